@@ -6,6 +6,7 @@ plugins {
     id("java")
     id("application")
     id("com.google.protobuf") version "0.9.4"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "org.example"
@@ -28,6 +29,7 @@ dependencies {
     implementation("io.grpc:grpc-netty-shaded:$grpcVersion")
     implementation("io.grpc:grpc-protobuf:$grpcVersion")
     implementation("io.grpc:grpc-stub:$grpcVersion")
+    implementation("io.grpc:grpc-inprocess:$grpcVersion")   // in-process transport baseline
     implementation("javax.annotation:javax.annotation-api:1.3.2")
 
 
@@ -76,10 +78,12 @@ tasks.test {
     testLogging {
         showStandardStreams = true
     }
-    // Forward chaos.*, stall.*, and runDefectTests system properties to the test JVM
+    // Forward chaos.*, stall.*, bench.*, and runDefectTests system properties to the test JVM
     System.getProperties()
         .keys.map { it.toString() }
-        .filter { it.startsWith("chaos.") || it.startsWith("stall.") || it == "runDefectTests" }
+        .filter {
+            it.startsWith("chaos.") || it.startsWith("stall.") || it.startsWith("bench.") || it == "runDefectTests"
+        }
         .forEach { key -> systemProperty(key, System.getProperty(key)) }
     minHeapSize = "1g"
     maxHeapSize = "4g"
@@ -89,6 +93,19 @@ tasks.test {
     )
 }
 
+// --- JMH microbenchmarks (src/jmh/java) ---
+// ./gradlew jmh                                  all benchmarks, with the GC/allocation profiler
+// ./gradlew jmh -PjmhIncludes=DataChunkCodec      regex filter on benchmark names
+jmh {
+    jmhVersion = "1.37"
+    profilers = listOf("gc")
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    resultFormat = "JSON"
+    project.findProperty("jmhIncludes")?.let { includes = listOf(it.toString()) }
+}
+
 // --- protoc + gRPC Java codegen ---
 protobuf {
     protoc { artifact = "com.google.protobuf:protoc:$protocVersion" }
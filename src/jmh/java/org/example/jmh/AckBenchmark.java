@@ -0,0 +1,55 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.jmh;
+
+import org.example.throughput.Ack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of producing one {@link Ack}: fresh builder per ack versus reused builder versus cached. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AckBenchmark {
+    private static final int CACHED = 1024;
+
+    private final Ack.Builder reused = Ack.newBuilder().setOk(true);
+    private Ack[] cached;
+    private long seq;
+
+    @Setup
+    public void setup() {
+        cached = new Ack[CACHED];
+        for (int i = 0; i < CACHED; i++) {
+            cached[i] = Ack.newBuilder().setSeq(i).setOk(true).build();
+        }
+    }
+
+    /** What the server does per chunk today. */
+    @Benchmark
+    public Ack newBuilderPerAck() {
+        return Ack.newBuilder().setSeq(seq++).setOk(true).build();
+    }
+
+    @Benchmark
+    public Ack reusedBuilder() {
+        return reused.setSeq(seq++).build();
+    }
+
+    /** Lower bound: no allocation at all. */
+    @Benchmark
+    public Ack cachedInstance() {
+        return cached[(int) (seq++ & (CACHED - 1))];
+    }
+
+    @Benchmark
+    public byte[] newBuilderAndSerialize() {
+        return Ack.newBuilder().setSeq(seq++).setOk(true).build().toByteArray();
+    }
+}
@@ -0,0 +1,82 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.jmh;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.UnsafeByteOperations;
+import org.example.throughput.DataChunk;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DataChunk} serialize/parse cost across the payload sizes of
+ * {@code AbstractThroughputMatrixTest}. Run with {@code -prof gc} (the default here) and read
+ * {@code gc.alloc.rate.norm} as bytes allocated per message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataChunkCodecBenchmark {
+
+    @Param({"5120", "51200", "512000", "1048576", "2097152", "4194304", "8388608"})
+    public int sizeBytes;
+
+    private DataChunk chunk;
+    private byte[] encoded;
+    private byte[] out;
+    private long seq;
+
+    @Setup
+    public void setup() {
+        chunk = DataChunk.newBuilder()
+                .setSeq(1)
+                .setPayload(ByteString.copyFrom(new byte[sizeBytes]))
+                .build();
+        encoded = chunk.toByteArray();
+        out = new byte[encoded.length + 16];
+    }
+
+    /** Allocates a fresh array per message, as {@code toByteArray()} callers do. */
+    @Benchmark
+    public byte[] serializeToByteArray() {
+        return chunk.toByteArray();
+    }
+
+    /** Serializes into a reused buffer: the copy cost without the allocation. */
+    @Benchmark
+    public int serializeIntoBuffer() throws IOException {
+        CodedOutputStream cos = CodedOutputStream.newInstance(out);
+        chunk.writeTo(cos);
+        return cos.getTotalBytesWritten();
+    }
+
+    /** Builds a new chunk around the shared payload; should allocate only the message object. */
+    @Benchmark
+    public DataChunk build() {
+        return DataChunk.newBuilder().setSeq(seq++).setPayload(chunk.getPayload()).build();
+    }
+
+    /** Default parse: the payload is copied into a new heap array. */
+    @Benchmark
+    public DataChunk parseCopy() throws IOException {
+        return DataChunk.parseFrom(encoded);
+    }
+
+    /** Aliasing parse, as the server's zero-copy marshaller does: the payload is a view. */
+    @Benchmark
+    public DataChunk parseAliasing() throws IOException {
+        CodedInputStream in = UnsafeByteOperations.unsafeWrap(encoded).newCodedInput();
+        in.enableAliasing(true);
+        return DataChunk.parseFrom(in);
+    }
+}
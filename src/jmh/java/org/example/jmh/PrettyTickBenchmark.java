@@ -0,0 +1,57 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.jmh;
+
+import org.example.common.AsyncConsole;
+import org.example.common.LatencyHistogram;
+import org.example.common.Pretty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caller-side cost of one reporter tick line: formatting plus the {@link AsyncConsole} enqueue.
+ * The console's writer drains to a null stream, so the terminal is not measured; the ring only
+ * drops lines if the writer falls {@code 8192} lines behind, which a null stream never does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PrettyTickBenchmark {
+    private long[] latencyBuckets;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        AsyncConsole.redirect(new PrintStream(OutputStream.nullOutputStream()));
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            h.record(i * 1_000L);
+        }
+        latencyBuckets = new long[LatencyHistogram.buckets()];
+        h.copyInto(latencyBuckets);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        AsyncConsole.redirect(null);
+    }
+
+    @Benchmark
+    public void tick() {
+        Pretty.tick("client", "netty", 12, 512.25, 10_240, 10_240, 512.25, -1, -1, null);
+    }
+
+    @Benchmark
+    public void tickWithWindowAndLatency() {
+        Pretty.tick("client", "netty", 12, 512.25, 10_240, 10_240, 512.25, 4L << 20, -1, latencyBuckets);
+    }
+}
@@ -0,0 +1,76 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.jmh;
+
+import com.google.protobuf.ByteString;
+import io.grpc.stub.StreamObserver;
+import org.example.common.AsyncConsole;
+import org.example.server.ServerOptions;
+import org.example.server.ThroughputServiceImpl;
+import org.example.throughput.Ack;
+import org.example.throughput.DataChunk;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server hot path per chunk: {@link ThroughputServiceImpl} {@code onNext} (metrics + ack)
+ * against a no-op response observer, with per-chunk and cumulative acks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ServiceOnNextBenchmark {
+
+    @Param({"1", "32"})
+    public int ackEvery;
+
+    private StreamObserver<DataChunk> in;
+    private DataChunk chunk;
+    private Ack lastAck;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // The shared metrics reporter ticks once per second on its own thread; its console
+        // writer drains to a null stream so terminal output stays out of the measurement.
+        AsyncConsole.redirect(new PrintStream(OutputStream.nullOutputStream()));
+        ServerOptions options = ServerOptions.builder().ackEvery(ackEvery).build();
+        in = new ThroughputServiceImpl("jmh", options).stream(new StreamObserver<>() {
+            @Override
+            public void onNext(Ack ack) {
+                lastAck = ack;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+        chunk = DataChunk.newBuilder().setSeq(1).setPayload(ByteString.copyFrom(new byte[5 * 1024])).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        in.onCompleted();
+        AsyncConsole.redirect(null);
+    }
+
+    @Benchmark
+    public Ack onNext() {
+        in.onNext(chunk);
+        return lastAck;
+    }
+}
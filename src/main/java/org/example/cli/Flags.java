@@ -0,0 +1,107 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.cli;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Minimal command-line splitter: positional arguments plus {@code --name value},
+ * {@code --name=value} and bare {@code --flag} options, in any order.
+ *
+ * <p>Only the {@link #SWITCHES} are bare flags; they never take the next token, so a switch
+ * followed by a positional leaves the positional in place. Every other option needs a value,
+ * and one without a value is rejected instead of silently becoming {@code "true"}.
+ */
+final class Flags {
+    /** Options that take no value (a {@code --name=false} form is still accepted). */
+    static final Set<String> SWITCHES = Set.of("ack-on-drain", "zero-copy", "flow-control", "h2-tap");
+
+    private final List<String> positional = new ArrayList<>();
+    private final Map<String, String> named = new HashMap<>();
+
+    private Flags() {
+    }
+
+    static Flags parse(String[] args) {
+        Flags flags = new Flags();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--") || arg.length() == 2) {
+                flags.positional.add(arg);
+                continue;
+            }
+            String body = arg.substring(2);
+            int eq = body.indexOf('=');
+            if (eq >= 0) {
+                flags.named.put(body.substring(0, eq), body.substring(eq + 1));
+            } else if (SWITCHES.contains(body)) {
+                flags.named.put(body, "true");
+            } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                flags.named.put(body, args[++i]);
+            } else {
+                throw new IllegalArgumentException("--" + body + " needs a value");
+            }
+        }
+        return flags;
+    }
+
+    int size() {
+        return positional.size();
+    }
+
+    String arg(int index) {
+        return positional.get(index);
+    }
+
+    boolean has(String name) {
+        return named.containsKey(name);
+    }
+
+    String get(String name, String defaultValue) {
+        return named.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        String v = named.get(name);
+        return v == null ? defaultValue : Integer.parseInt(v);
+    }
+
+    long getLong(String name, long defaultValue) {
+        String v = named.get(name);
+        return v == null ? defaultValue : Long.parseLong(v);
+    }
+
+    double getDouble(String name, double defaultValue) {
+        String v = named.get(name);
+        return v == null ? defaultValue : Double.parseDouble(v);
+    }
+
+    /** A duration such as {@code 10s}, {@code 500ms} or {@code 2m}; a bare number means seconds. */
+    Duration getDuration(String name, Duration defaultValue) {
+        String v = named.get(name);
+        if (v == null) {
+            return defaultValue;
+        }
+        String s = v.trim().toLowerCase(Locale.ROOT);
+        if (s.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(s.substring(0, s.length() - 2)));
+        }
+        if (s.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(s.substring(0, s.length() - 1)));
+        }
+        if (s.endsWith("s")) {
+            s = s.substring(0, s.length() - 1);
+        }
+        return Duration.ofMillis(Math.round(Double.parseDouble(s) * 1_000));
+    }
+
+    boolean getBoolean(String name) {
+        String v = named.get(name);
+        return v != null && !"false".equalsIgnoreCase(v);
+    }
+}
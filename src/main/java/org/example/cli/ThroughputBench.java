@@ -1,16 +1,41 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.example.cli;
 
+import org.example.client.CapacitySearch;
+import org.example.client.ClientOptions;
 import org.example.client.HelidonThroughputClient;
+import org.example.client.InProcessThroughputClient;
 import org.example.client.NettyThroughputClient;
+import org.example.client.RunResult;
 import org.example.client.StallTestRunner;
 import org.example.client.ThroughputClient;
+import org.example.common.AsyncConsole;
+import org.example.common.Pretty;
 import org.example.logging.Logging;
+import org.example.payload.PayloadMode;
 import org.example.server.HelidonThroughputServer;
+import org.example.server.InProcessThroughputServer;
 import org.example.server.NettyThroughputServer;
+import org.example.server.ServerExecutor;
+import org.example.server.ServerOptions;
 import org.example.server.ThroughputServer;
+import org.example.transport.H2FrameTap;
+import org.example.transport.Impairment;
+import org.example.transport.ImpairmentProxy;
+import org.example.transport.NettyTransport;
+import org.example.tuning.AutoTuner;
+import org.example.tuning.TuningProfile;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 
@@ -20,30 +45,70 @@ public final class ThroughputBench {
 
     public static void main(String[] args) throws Exception {
         Logging.init();
-        if (args.length < 1) {
+        Flags flags;
+        try {
+            flags = Flags.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
             usage();
             return;
         }
-        String mode = args[0].toLowerCase(Locale.ROOT);
-        switch (mode) {
-            case "server" -> runServer(args);
-            case "client" -> runClient(args);
-            case "stall"  -> runStall(args);
-            default -> usage();
+        if (flags.size() < 1) {
+            usage();
+            return;
+        }
+        String mode = flags.arg(0).toLowerCase(Locale.ROOT);
+        try {
+            switch (mode) {
+                case "server" -> runServer(flags);
+                case "client" -> runClient(flags);
+                case "stall"  -> runStall(flags);
+                case "tune"   -> runTune(flags);
+                case "capacity" -> runCapacity(flags);
+                case "tap"    -> runTap(flags);
+                default -> usage();
+            }
+        } finally {
+            AsyncConsole.flush();
         }
     }
 
-    private static void runServer(String[] args) throws Exception {
-        if (args.length < 3) {
+    private static void runServer(Flags flags) throws Exception {
+        if (flags.size() < 3) {
             usage();
             return;
         }
-        String type = args[1].toLowerCase(Locale.ROOT);
-        int port = Integer.parseInt(args[2]);
+        String type = flags.arg(1).toLowerCase(Locale.ROOT);
+        if (type.equals("inprocess")) {
+            System.err.println("An in-process server only exists inside a client JVM: use 'client inprocess <name>'");
+            return;
+        }
+        ServerOptions options = ServerOptions.builder()
+                .ackEvery(flags.getInt("ack-every", 1))
+                .ackIntervalMicros(flags.getLong("ack-interval-us", 0))
+                .ackOnDrain(flags.getBoolean("ack-on-drain"))
+                .zeroCopyInbound(flags.getBoolean("zero-copy"))
+                .flowControl(flags.getBoolean("flow-control"))
+                .inboundWindow(flags.getInt("inbound-window", 8))
+                .sinkDir(flags.get("sink", null))
+                .fsyncEvery(flags.getInt("fsync-every", 1))
+                .fsyncIntervalMillis(flags.getLong("fsync-interval-ms", 0))
+                .segmentBytes(flags.getLong("segment-mb", 1024) * 1024 * 1024)
+                .handler(flags.get("handler", null))
+                .handlerThreads(flags.getInt("handler-threads", 0))
+                .executor(ServerExecutor.parse(flags.get("executor", "default")))
+                .transport(NettyTransport.parse(flags.get("transport", "auto")))
+                .bossThreads(flags.getInt("boss-threads", 0))
+                .workerThreads(flags.getInt("worker-threads", 0))
+                .results(flags.get("results", null))
+                .resultsFormat(flags.get("results-format", null))
+                .tuning(tuning(flags))
+                .build();
 
         ThroughputServer server = switch (type) {
-            case "netty" -> new NettyThroughputServer(port);
-            case "helidon" -> new HelidonThroughputServer(port);
+            case "netty" -> new NettyThroughputServer(Integer.parseInt(flags.arg(2)), options);
+            case "helidon" -> new HelidonThroughputServer(Integer.parseInt(flags.arg(2)), options);
+            case "uds" -> NettyThroughputServer.unixSocket(Path.of(flags.arg(2)), options);
             default -> null;
         };
         if (server == null) {
@@ -52,20 +117,42 @@ public final class ThroughputBench {
         }
 
         Runtime.getRuntime().addShutdownHook(new Thread(server::stop, type + "-server-shutdown"));
+        AsyncConsole.printf("Server options: %s%n", options.describe());
         server.start();
         server.blockUntilShutdown();
     }
 
-    private static void runClient(String[] args) throws Exception {
-        if (args.length < 5) {
+    private static void runClient(Flags flags) throws Exception {
+        if (flags.size() < 5) {
             usage();
             return;
         }
-        String type = args[1].toLowerCase(Locale.ROOT);
-        String target = args[2];
-        long numMsg = Long.parseLong(args[3]);
-        long sizeKB = Long.parseLong(args[4]);
+        String type = flags.arg(1).toLowerCase(Locale.ROOT);
+        String target = flags.arg(2);
+        long numMsg = Long.parseLong(flags.arg(3));
+        long sizeKB = Long.parseLong(flags.arg(4));
         int sizeBytes = Math.toIntExact(Math.min(sizeKB * 1024, (long) Integer.MAX_VALUE));
+        ClientOptions options = ClientOptions.builder()
+                .windowMode(ClientOptions.WindowMode.valueOf(
+                        flags.get("window", "adaptive").toUpperCase(Locale.ROOT)))
+                .windowMaxBytes(flags.getLong("window-max-mb", 32) * 1024 * 1024)
+                .channels(flags.getInt("channels", 1))
+                .streamsPerChannel(flags.getInt("streams", 1))
+                .rateMsgsPerSec(flags.getDouble("rate", 0))
+                .rateMbPerSec(flags.getDouble("rate-mbps", 0))
+                .payloadMode(payloadMode(flags))
+                .payloadSource(flags.get("payload-source", "zeros"))
+                .transport(NettyTransport.parse(flags.get("transport", "auto")))
+                .eventLoopThreads(flags.getInt("worker-threads", 0))
+                .tuning(tuning(flags))
+                .warmup(flags.getDuration("warmup", Duration.ZERO))
+                .duration(flags.getDuration("duration", Duration.ZERO))
+                .results(flags.get("results", null))
+                .resultsFormat(flags.get("results-format", null))
+                .h2Tap(flags.getBoolean("h2-tap"))
+                .fragmentBytes(flags.getInt("fragment-kb", 0) * 1024)
+                .rpc(rpc(flags))
+                .build();
 
         ThroughputClient client;
         if (Objects.equals(type, "netty")) {
@@ -80,28 +167,79 @@ public final class ThroughputBench {
                 host = hp[0];
                 port = Integer.parseInt(hp[1]);
             }
-            client = new NettyThroughputClient(host, port);
+            client = new NettyThroughputClient(host, port, options);
         } else if (Objects.equals(type, "helidon")) {
-            client = new HelidonThroughputClient(target);
+            client = new HelidonThroughputClient(target, options);
+        } else if (Objects.equals(type, "uds")) {
+            client = NettyThroughputClient.unixSocket(Path.of(target), options);
+        } else if (Objects.equals(type, "inprocess")) {
+            client = new InProcessThroughputClient(target, options);
         } else {
             usage();
             return;
         }
 
-        System.out.printf("🚀 Running %s client → %s — %,d msgs of %,d bytes%n",
-                type, target, numMsg, sizeBytes);
+        // The in-process server lives in this JVM for the length of the run.
+        ThroughputServer embedded = null;
+        if (Objects.equals(type, "inprocess")) {
+            embedded = new InProcessThroughputServer(target, ServerOptions.builder().tuning(options.tuning()).build());
+            embedded.start();
+        }
+        AsyncConsole.printf("🚀 Running %s client → %s — %,d msgs of %,d bytes (%s)%n",
+                type, target, numMsg, sizeBytes, options.describe());
         try {
             client.run(numMsg, sizeBytes);
         } catch (Exception e) {
             // RESULT line already printed by ClientRunner — exit 0 so K8s Job logs are readable
             System.err.println("Client stream ended with error: " + e.getMessage());
+        } finally {
+            if (embedded != null) {
+                embedded.stop();
+                embedded.awaitTermination(Duration.ofSeconds(10));
+            }
         }
     }
 
-    private static void runStall(String[] args) throws Exception {
+    /**
+     * Transparent h2c proxy: forwards {@code listenPort} to the target unchanged and prints
+     * H2_STREAM / H2_RESULT lines for every connection when it closes.
+     */
+    private static void runTap(Flags flags) throws Exception {
+        if (flags.size() < 3) {
+            usage();
+            return;
+        }
+        int listenPort = Integer.parseInt(flags.arg(1));
+        String target = flags.arg(2);
+        URI uri = URI.create(target.startsWith("http") ? target : "http://" + target);
+        InetSocketAddress upstream = new InetSocketAddress(uri.getHost(), uri.getPort() < 0 ? 80 : uri.getPort());
+        H2FrameTap tap = new H2FrameTap(report -> {
+            report.perStream().forEach(s -> Pretty.h2StreamLine(report.id(), s));
+            Pretty.h2ResultLine("tap", report);
+        });
+        try (ImpairmentProxy proxy = ImpairmentProxy.start(new InetSocketAddress(listenPort), upstream,
+                Impairment.none(), Impairment.none(), tap)) {
+            AsyncConsole.printf("🔎 h2 frame tap :%d → %s%n", proxy.port(), upstream);
+            Thread.currentThread().join();
+        }
+    }
+
+    private static TuningProfile tuning(Flags flags) throws IOException {
+        return TuningProfile.load(flags.get("profile", null), flags.get("set", null));
+    }
+
+    private static PayloadMode payloadMode(Flags flags) {
+        return PayloadMode.valueOf(flags.get("payload", "heap").toUpperCase(Locale.ROOT));
+    }
+
+    private static ClientOptions.Rpc rpc(Flags flags) {
+        return ClientOptions.Rpc.valueOf(flags.get("rpc", "stream").toUpperCase(Locale.ROOT));
+    }
+
+    private static void runStall(Flags flags) throws Exception {
         // stall <helidon|netty> <host> <msgs> <payloadKB>
         // stall <host> <msgs> <payloadKB>               (backward compat — defaults to helidon)
-        if (args.length < 4) {
+        if (flags.size() < 4) {
             usage();
             return;
         }
@@ -110,38 +248,296 @@ public final class ThroughputBench {
         int numMessages;
         int payloadKB;
 
-        if ("helidon".equals(args[1]) || "netty".equals(args[1])) {
-            if (args.length < 5) {
+        if ("helidon".equals(flags.arg(1)) || "netty".equals(flags.arg(1))) {
+            if (flags.size() < 5) {
                 usage();
                 return;
             }
-            clientType = args[1];
-            target = args[2];
-            numMessages = Integer.parseInt(args[3]);
-            payloadKB = Integer.parseInt(args[4]);
+            clientType = flags.arg(1);
+            target = flags.arg(2);
+            numMessages = Integer.parseInt(flags.arg(3));
+            payloadKB = Integer.parseInt(flags.arg(4));
         } else {
             clientType = "helidon";
-            target = args[1];
-            numMessages = Integer.parseInt(args[2]);
-            payloadKB = Integer.parseInt(args[3]);
+            target = flags.arg(1);
+            numMessages = Integer.parseInt(flags.arg(2));
+            payloadKB = Integer.parseInt(flags.arg(3));
         }
 
         String serverUrl = target.startsWith("http") ? target : "http://" + target;
-        StallTestRunner.run(clientType, serverUrl, numMessages, payloadKB);
+        StallTestRunner.run(clientType, serverUrl, numMessages, payloadKB, payloadMode(flags),
+                flags.get("payload-source", "zeros"));
+    }
+
+    private static void runTune(Flags flags) throws Exception {
+        // tune <server netty|helidon> <client netty|helidon> <sizeKB>
+        if (flags.size() < 4) {
+            usage();
+            return;
+        }
+        String serverType = flags.arg(1).toLowerCase(Locale.ROOT);
+        String clientType = flags.arg(2).toLowerCase(Locale.ROOT);
+        int sizeBytes = Math.toIntExact(Long.parseLong(flags.arg(3)) * 1024);
+        long messages = flags.getLong("messages", 500);
+        long warmupMessages = flags.getLong("warmup-messages", Math.max(1, messages / 5));
+        int rttMs = flags.getInt("rtt-ms", 0);
+        // Half the round trip each way, like netem on both ends of the link.
+        Impairment upstream = Impairment.builder().latencyMs(rttMs / 2).build();
+        Impairment downstream = Impairment.builder().latencyMs(rttMs - rttMs / 2).build();
+        List<AutoTuner.Dimension> dimensions = tuneDimensions(serverType, clientType, flags.get("params", null));
+
+        AutoTuner tuner = new AutoTuner(dimensions, flags.get("profile", null), flags.get("set", null), profile -> {
+            ThroughputServer server = "netty".equals(serverType)
+                    ? new NettyThroughputServer(0, ServerOptions.builder().tuning(profile).build())
+                    : new HelidonThroughputServer(0, ServerOptions.builder().tuning(profile).build());
+            server.start();
+            ImpairmentProxy proxy = null;
+            try {
+                int port = server.port();
+                if (rttMs > 0) {
+                    proxy = ImpairmentProxy.start(new InetSocketAddress("localhost", port), upstream, downstream);
+                    port = proxy.port();
+                }
+                ClientOptions options = ClientOptions.builder().tuning(profile).build();
+                ThroughputClient client = "netty".equals(clientType)
+                        ? new NettyThroughputClient("localhost", port, options)
+                        : new HelidonThroughputClient("http://localhost:" + port, options);
+                // A fresh server and client start cold; the first burst only warms them up.
+                if (warmupMessages > 0) {
+                    client.run(warmupMessages, sizeBytes);
+                }
+                RunResult r = client.run(messages, sizeBytes);
+                return new AutoTuner.Sample(r.mbps(), r.p99Micros(), r.errorCode());
+            } finally {
+                if (proxy != null) {
+                    proxy.close();
+                }
+                server.stop();
+                server.awaitTermination(Duration.ofSeconds(10));
+            }
+        });
+
+        AsyncConsole.printf("🔧 Tuning %s server ↔ %s client, %,d msgs of %,d bytes per point (after %,d warm-up), "
+                        + "rtt %d ms, %d dimension(s)%n",
+                serverType, clientType, messages, sizeBytes, warmupMessages, rttMs, dimensions.size());
+        AutoTuner.Row best = tuner.run(flags.getInt("steps", 8));
+        String tag = serverType + "-" + clientType + "-" + sizeBytes / 1024 + "kb";
+        Path csv = Path.of(flags.get("csv", "tune-" + tag + ".csv"));
+        Path out = Path.of(flags.get("out", "tune-" + tag + ".properties"));
+        tuner.writeCsv(csv);
+        tuner.writeProfile(out, best, "tune " + serverType + " " + clientType + " " + sizeBytes / 1024 + " KB");
+        AsyncConsole.printf(Locale.ROOT,
+                "TUNE_RESULT server=%s client=%s payloadBytes=%d mbps=%.2f p99Us=%.0f points=%d set=%s profile=%s%n",
+                serverType, clientType, sizeBytes, best.sample().mbps(), best.sample().p99Micros(),
+                tuner.rows().size(), tuner.overrides(best.point()), best.profile());
+        AsyncConsole.printf("📈 Surface: %s, recommended profile: %s%n", csv, out);
+    }
+
+    private static void runCapacity(Flags flags) throws Exception {
+        // capacity <server netty|helidon> <client netty|helidon> <sizeKB|all>
+        if (flags.size() < 4) {
+            usage();
+            return;
+        }
+        String serverType = flags.arg(1).toLowerCase(Locale.ROOT);
+        String clientType = flags.arg(2).toLowerCase(Locale.ROOT);
+        // "all" = the payload sizes of AbstractThroughputMatrixTest.
+        List<Integer> sizesKb = "all".equalsIgnoreCase(flags.arg(3))
+                ? List.of(5, 50, 500, 1024, 2048, 4096, 8192)
+                : List.of(Integer.parseInt(flags.arg(3)));
+        ClientOptions.Rpc rpc = rpc(flags);
+        if (rpc == ClientOptions.Rpc.SUBSCRIBE) {
+            // Every step would be rejected for its open-loop rate and the capacity reported as 0.
+            System.err.println("capacity offers open-loop load; --rpc subscribe is server-paced");
+            usage();
+            return;
+        }
+        double sloMicros = flags.getDouble("slo-p99-ms", 10) * 1_000;
+        double minDelivered = flags.getDouble("min-delivered", 0.98);
+        Duration warmup = flags.getDuration("step-warmup", Duration.ofSeconds(2));
+        Duration duration = flags.getDuration("step-duration", Duration.ofSeconds(10));
+        TuningProfile tuning = tuning(flags);
+        ServerOptions serverOptions = ServerOptions.builder().tuning(tuning).build();
+        Path csv = Path.of(flags.get("csv", "capacity-" + serverType + "-" + clientType + ".csv"));
+
+        List<String> results = new ArrayList<>();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8))) {
+            out.println("server,client,payloadBytes,phase,offeredMbps,achievedMbps,p99Us,error,pass");
+            for (int sizeKb : sizesKb) {
+                int sizeBytes = sizeKb * 1024;
+                ThroughputServer server = "netty".equals(serverType)
+                        ? new NettyThroughputServer(0, serverOptions)
+                        : new HelidonThroughputServer(0, serverOptions);
+                server.start();
+                CapacitySearch.Result result;
+                try {
+                    CapacitySearch search = new CapacitySearch(offeredMbps -> {
+                        ClientOptions options = ClientOptions.builder()
+                                .rateMbPerSec(offeredMbps)
+                                .windowMaxBytes(flags.getLong("window-max-mb", 32) * 1024 * 1024)
+                                .fragmentBytes(flags.getInt("fragment-kb", 0) * 1024)
+                                .rpc(rpc)
+                                .tuning(tuning)
+                                .warmup(warmup)
+                                .duration(duration)
+                                .results(flags.get("results", null))
+                                .resultsFormat(flags.get("results-format", null))
+                                .build();
+                        ThroughputClient client = "netty".equals(clientType)
+                                ? new NettyThroughputClient("localhost", server.port(), options)
+                                : new HelidonThroughputClient("http://localhost:" + server.port(), options);
+                        return client.run(0, sizeBytes);
+                    }, sloMicros, minDelivered);
+                    AsyncConsole.printf("📶 Capacity %s server ↔ %s client, %,d bytes, p99 SLO %.1f ms%n",
+                            serverType, clientType, sizeBytes, sloMicros / 1_000);
+                    result = search.run(flags.getDouble("start-mbps", 10), flags.getDouble("max-mbps", 4096));
+                } finally {
+                    server.stop();
+                    server.awaitTermination(Duration.ofSeconds(10));
+                }
+                for (CapacitySearch.Step s : result.curve()) {
+                    out.printf(Locale.ROOT, "%s,%s,%d,%s,%.3f,%.3f,%.1f,%s,%s%n", serverType, clientType, sizeBytes,
+                            s.phase(), s.offeredMbps(), s.achievedMbps(), s.p99Micros(),
+                            s.error() == null ? "" : s.error(), s.pass());
+                }
+                out.flush();
+                results.add(String.format(Locale.ROOT,
+                        "CAPACITY_RESULT server=%s client=%s payloadBytes=%d capacityMbps=%.3f p99Us=%.1f"
+                                + " sloP99Us=%.0f minDelivered=%.2f saturated=%s steps=%d profile=%s",
+                        serverType, clientType, sizeBytes, result.capacityMbps(), result.p99Micros(),
+                        sloMicros, minDelivered, result.saturated(), result.curve().size(), tuning.describe()));
+            }
+        }
+        results.forEach(AsyncConsole::println);
+        AsyncConsole.printf("📈 Capacity curve: %s%n", csv);
+    }
+
+    /** Window and frame knobs of the chosen server and client, optionally narrowed to {@code params}. */
+    private static List<AutoTuner.Dimension> tuneDimensions(String serverType, String clientType, String params) {
+        List<Long> windows = AutoTuner.powers(1024 * 1024, 64 * 1024 * 1024, 8);
+        List<Long> frames = AutoTuner.powers(16 * 1024, 4 * 1024 * 1024, 16);
+        long minWindow = 64 * 1024;
+        long maxWindow = 1024 * 1024 * 1024;
+        // HTTP/2 caps SETTINGS_MAX_FRAME_SIZE at 2^24 - 1, so the largest power of two is 8 MB.
+        long minFrame = 16 * 1024;
+        long maxFrame = 8 * 1024 * 1024;
+        List<AutoTuner.Dimension> all = new ArrayList<>();
+        if ("netty".equals(serverType)) {
+            all.add(new AutoTuner.Dimension(TuningProfile.Knob.NETTY_SERVER_FLOW_CONTROL_WINDOW,
+                    minWindow, maxWindow, windows));
+        } else {
+            all.add(new AutoTuner.Dimension(TuningProfile.Knob.HELIDON_SERVER_INITIAL_WINDOW_SIZE,
+                    minWindow, maxWindow, windows));
+            all.add(new AutoTuner.Dimension(TuningProfile.Knob.HELIDON_SERVER_MAX_FRAME_SIZE,
+                    minFrame, maxFrame, frames));
+        }
+        if ("netty".equals(clientType)) {
+            all.add(new AutoTuner.Dimension(TuningProfile.Knob.NETTY_CLIENT_FLOW_CONTROL_WINDOW,
+                    minWindow, maxWindow, windows));
+        } else {
+            all.add(new AutoTuner.Dimension(TuningProfile.Knob.HELIDON_CLIENT_INITIAL_WINDOW_SIZE,
+                    minWindow, maxWindow, windows));
+            all.add(new AutoTuner.Dimension(TuningProfile.Knob.HELIDON_CLIENT_MAX_FRAME_SIZE,
+                    minFrame, maxFrame, frames));
+        }
+        if (params == null) {
+            return all;
+        }
+        List<String> keys = List.of(params.split(","));
+        List<AutoTuner.Dimension> selected = all.stream().filter(d -> keys.contains(d.knob().key())).toList();
+        if (selected.size() != keys.size()) {
+            throw new IllegalArgumentException("--params must be a subset of "
+                    + all.stream().map(d -> d.knob().key()).toList());
+        }
+        return selected;
     }
 
     private static void usage() {
-        System.out.println("""
+        AsyncConsole.println("""
                 Usage:
-                  server <netty|helidon> <port>
-                  client <netty|helidon> <host:port|url> <numMsg> <sizeKB>
+                  server <netty|helidon> <port> [server options]
+                  server uds <socketPath> [server options]
+                  client <netty|helidon> <host:port|url> <numMsg> <sizeKB> [client options]
+                  client uds <socketPath> <numMsg> <sizeKB> [client options]
+                  client inprocess <name> <numMsg> <sizeKB> [client options]   (starts its own in-process server)
                   stall  <host:port|url> <numMsg> <payloadKB>
+                  tune   <server netty|helidon> <client netty|helidon> <sizeKB> [tune options]
+                  capacity <server netty|helidon> <client netty|helidon> <sizeKB|all> [capacity options]
+                  tap    <listenPort> <host:port|url>   (h2c frame tap; H2_RESULT per connection)
+                Server options:
+                  --ack-every <K>          one cumulative ack every K chunks (default 1 = per-chunk)
+                  --ack-interval-us <T>    flush a partial ack batch after T µs (default 1000 when K > 1)
+                  --ack-on-drain           hold acks while the transport is backed up, flush on drain
+                  --zero-copy              parse chunks in place from transport buffers (netty)
+                  --flow-control           request chunks manually, only while the ack path is ready
+                  --inbound-window <N>     chunks requested ahead with --flow-control (default 8)
+                  --sink <dir>             append every chunk to a segment log; ack only once fsynced
+                  --fsync-every <N>        group commit: fsync every N chunks (default 1 = per chunk)
+                  --fsync-interval-ms <T>  group commit: fsync after T ms (default 5 when N > 1)
+                  --segment-mb <M>         segment file size (default 1024)
+                  --handler <name>         per-chunk work: discard (default), crc32c, sha384, persist (default with --sink), echo
+                  --handler-threads <N>    run the handler on N shared worker threads instead of inline (default 0)
+                  --executor <mode>        gRPC callback threads: default, direct, platform[:N], forkjoin[:N], virtual
+                  --transport <t>          netty socket transport: auto (default), nio, epoll, io_uring
+                  --boss-threads <N>       netty accept event-loop threads (default 1)
+                  --worker-threads <N>     netty I/O event-loop threads (default 2 × CPUs)
+                  --profile <file>         HTTP/2 / gRPC tuning profile (.properties, see profiles/default.properties)
+                  --set <k=v,...>          override profile keys, e.g. helidon.server.maxFrameSize=1MB
+                  --results <file|->       append a structured record of every finished stream, subscription or submit run
+                  --results-format <f>     jsonl or csv (default: from the file extension, else jsonl)
+                Client options:
+                  --window <adaptive|fixed>  in-flight byte budget: BDP-estimated (default) or legacy 1..4 msgs
+                  --window-max-mb <N>        upper bound for the adaptive window (default 32)
+                  --channels <N>             independent channels / HTTP/2 connections (default 1)
+                  --streams <M>              concurrent streams per channel, numMsg each (default 1)
+                  --rate <msgs/s>            open-loop: send on a fixed schedule, total across streams
+                  --rate-mbps <MB/s>         open-loop target expressed as MB/s instead of msgs/s
+                  --payload <heap|direct|mmap>  payload backing; direct/mmap avoid heap copies (also for stall)
+                  --payload-source <spec>    zeros (default), random, entropy:<0-8 bits>, file:<path> (also for stall)
+                  --transport <t>            netty socket transport: auto (default), nio, epoll, io_uring
+                  --worker-threads <N>       netty event-loop threads shared by all channels (default 2 × CPUs)
+                  --profile <file>           HTTP/2 / gRPC tuning profile; --set <k=v,...> overrides keys
+                  --warmup <T>               send for T (e.g. 10s) before measuring; warm-up traffic is not counted
+                  --duration <T>             send until warm-up + T (numMsg becomes a cap, 0 = none); report steady state
+                  --results <file|->         append a structured record of the run to a file, or stdout for -
+                  --results-format <f>       jsonl or csv (default: from the file extension, else jsonl)
+                  --h2-tap                   connect through an in-process h2c frame tap; adds H2_RESULT lines
+                  --fragment-kb <N>          send blocks larger than N KB as N KB fragments, acked per block
+                  --rpc <shape>              stream (bidi, default), submit (unary per message), subscribe (server push)
+                Tune options (plus --profile / --set as the base the search starts from):
+                  --messages <N>             messages per measured burst (default 500)
+                  --warmup-messages <N>      discarded burst before each measured one (default messages/5, 0 = none)
+                  --rtt-ms <T>               route each point through an ImpairmentProxy adding T ms round trip
+                  --steps <N>                hill-climb steps after the grid (default 8)
+                  --params <k1,k2>           tune only these window/frame keys
+                  --csv <file>               throughput surface (default tune-<server>-<client>-<size>kb.csv)
+                  --out <file>               recommended profile (default tune-<server>-<client>-<size>kb.properties)
+                Capacity options (plus --profile / --set / --window-max-mb / --fragment-kb / --rpc stream|submit):
+                  --slo-p99-ms <T>           p99 ack-latency SLO per step (default 10)
+                  --min-delivered <R>        achieved / offered rate a step must reach (default 0.98)
+                  --start-mbps <R>           first offered rate; doubles until a step fails (default 10)
+                  --max-mbps <R>             ramp limit (default 4096)
+                  --step-warmup <T>          warm-up per step (default 2s)
+                  --step-duration <T>        measured window per step (default 10s)
+                  --csv <file>               capacity curve (default capacity-<server>-<client>.csv)
+                  --results <file|->         append one structured record per step (--results-format as for client)
                 Examples:
                   ./gradlew run --args="server netty 9090"
                   ./gradlew run --args="server helidon 9090"
+                  ./gradlew run --args="server netty 9090 --ack-every 32 --ack-interval-us 500"
+                  ./gradlew run --args="server netty 9090 --handler sha384 --handler-threads 4"
                   ./gradlew run --args="client netty localhost:9090 1000 64"
                   ./gradlew run --args="client helidon http://localhost:9090 1000 64"
+                  ./gradlew run --args="client netty localhost:9090 1000 64 --channels 4 --streams 8"
+                  ./gradlew run --args="client netty localhost:9090 20000 16 --rate 2000"
+                  ./gradlew run --args="client netty localhost:9090 0 5 --warmup 10s --duration 60s"
+                  ./gradlew run --args="server uds /tmp/bench.sock"
+                  ./gradlew run --args="client uds /tmp/bench.sock 1000 64"
+                  ./gradlew run --args="client inprocess bench 1000 64"
                   ./gradlew run --args="stall http://localhost:9090 100 4096"
+                  ./gradlew run --args="tune netty helidon 1024 --messages 300"
+                  ./gradlew run --args="capacity netty netty all --slo-p99-ms 5"
+                  ./gradlew run --args="tap 9091 localhost:9090"
                 """);
     }
 }
@@ -0,0 +1,100 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.client;
+
+import org.example.common.AsyncConsole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Finds the highest sustainable offered load: the largest open-loop rate at which p99 ack
+ * latency stays within an SLO and the achieved rate keeps up with the offered one.
+ *
+ * <p>The search ramps the offered rate geometrically (×2 per step) from {@code startMbps} until
+ * a step fails or {@code maxMbps} is reached, then binary-searches between the last passing and
+ * the first failing rate until they are within {@value #RESOLUTION_PCT}% of each other (at most
+ * {@value #MAX_SEARCH_STEPS} steps, which also bounds the search below a failing first step). Every
+ * measured step becomes a point of the capacity curve.
+ */
+public final class CapacitySearch {
+    private static final double RESOLUTION_PCT = 5.0;
+    private static final int MAX_SEARCH_STEPS = 8;
+
+    /** Runs one open-loop step at {@code offeredMbps} and returns its steady-state result. */
+    @FunctionalInterface
+    public interface Probe {
+        RunResult run(double offeredMbps) throws Exception;
+    }
+
+    /** One measured point of the capacity curve. */
+    public record Step(String phase, double offeredMbps, double achievedMbps, double p99Micros, String error,
+                       boolean pass) {
+    }
+
+    /**
+     * Outcome of the search; {@code capacityMbps} is 0 when even the first step failed, and
+     * {@code saturated} is false when every rate up to the ramp limit passed.
+     */
+    public record Result(double capacityMbps, double p99Micros, boolean saturated, List<Step> curve) {
+    }
+
+    private final Probe probe;
+    private final double sloP99Micros;
+    private final double minDeliveredRatio;
+
+    public CapacitySearch(Probe probe, double sloP99Micros, double minDeliveredRatio) {
+        this.probe = probe;
+        this.sloP99Micros = sloP99Micros;
+        this.minDeliveredRatio = minDeliveredRatio;
+    }
+
+    public Result run(double startMbps, double maxMbps) throws Exception {
+        List<Step> curve = new ArrayList<>();
+        Step best = null;
+        Step failed = null;
+        for (double rate = startMbps; rate <= maxMbps; rate *= 2) {
+            Step step = measure("ramp", rate, curve);
+            if (!step.pass()) {
+                failed = step;
+                break;
+            }
+            best = step;
+        }
+        if (failed != null) {
+            double low = best != null ? best.offeredMbps() : 0;
+            double high = failed.offeredMbps();
+            for (int i = 0; i < MAX_SEARCH_STEPS && high - low > high * RESOLUTION_PCT / 100; i++) {
+                Step step = measure("search", (low + high) / 2, curve);
+                if (step.pass()) {
+                    best = step;
+                    low = step.offeredMbps();
+                } else {
+                    high = step.offeredMbps();
+                }
+            }
+        }
+        return best == null ? new Result(0, 0, true, curve)
+                : new Result(best.offeredMbps(), best.p99Micros(), failed != null, curve);
+    }
+
+    private Step measure(String phase, double offeredMbps, List<Step> curve) throws Exception {
+        AsyncConsole.printf(Locale.ROOT, "📶 [%s %d] offering %.1f MB/s%n", phase, curve.size() + 1, offeredMbps);
+        Step step;
+        try {
+            RunResult r = probe.run(offeredMbps);
+            double achieved = r.mbps();
+            double p99 = r.p99Micros();
+            boolean pass = r.ok() && p99 <= sloP99Micros && achieved >= offeredMbps * minDeliveredRatio;
+            step = new Step(phase, offeredMbps, achieved, p99, r.errorCode(), pass);
+        } catch (Exception e) {
+            step = new Step(phase, offeredMbps, 0, 0, e.getClass().getSimpleName(), false);
+        }
+        AsyncConsole.printf(Locale.ROOT,
+                "CAPACITY_STEP phase=%s offeredMbps=%.3f achievedMbps=%.3f p99Us=%.1f error=%s pass=%s%n",
+                step.phase(), step.offeredMbps(), step.achievedMbps(), step.p99Micros(),
+                step.error() == null ? "none" : step.error(), step.pass());
+        curve.add(step);
+        return step;
+    }
+}
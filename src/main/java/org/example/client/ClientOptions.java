@@ -0,0 +1,362 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.client;
+
+import org.example.payload.PayloadMode;
+import org.example.transport.NettyTransport;
+import org.example.tuning.TuningProfile;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Client-side knobs shared by the Netty and Helidon clients and {@link ClientRunner}.
+ */
+public final class ClientOptions {
+    private static final ClientOptions DEFAULTS = builder().build();
+
+    /** How the number of unacknowledged bytes on a stream is bounded. */
+    public enum WindowMode {
+        /** BBR-style byte budget sized from measured ack RTT and delivery rate. */
+        ADAPTIVE,
+        /** Legacy heuristic: 1 message for wire messages of 2 MB or more, otherwise min(4, 32 MB / size). */
+        FIXED
+    }
+
+    /** RPC shape a run drives; every shape moves {@code numMsg} chunks per stream. */
+    public enum Rpc {
+        /** Bidi {@code Stream}: chunks up, acks down. */
+        STREAM,
+        /** Unary {@code Submit}: one call per chunk, as many outstanding as the window allows. */
+        SUBMIT,
+        /** Server-streaming {@code Subscribe}: the server pushes the chunks. */
+        SUBSCRIBE
+    }
+
+    private final WindowMode windowMode;
+    private final long windowMaxBytes;
+    private final int channels;
+    private final int streamsPerChannel;
+    private final double rateMsgsPerSec;
+    private final double rateMbPerSec;
+    private final PayloadMode payloadMode;
+    private final String payloadSource;
+    private final NettyTransport.Kind transport;
+    private final int eventLoopThreads;
+    private final TuningProfile tuning;
+    private final Duration warmup;
+    private final Duration duration;
+    private final String results;
+    private final String resultsFormat;
+    private final boolean h2Tap;
+    private final int fragmentBytes;
+    private final Rpc rpc;
+
+    private ClientOptions(Builder b) {
+        this.windowMode = b.windowMode;
+        this.windowMaxBytes = b.windowMaxBytes;
+        this.channels = b.channels;
+        this.streamsPerChannel = b.streamsPerChannel;
+        this.rateMsgsPerSec = b.rateMsgsPerSec;
+        this.rateMbPerSec = b.rateMbPerSec;
+        this.payloadMode = b.payloadMode;
+        this.payloadSource = b.payloadSource;
+        this.transport = b.transport;
+        this.eventLoopThreads = b.eventLoopThreads;
+        this.tuning = b.tuning;
+        this.warmup = b.warmup;
+        this.duration = b.duration;
+        this.results = b.results;
+        this.resultsFormat = b.resultsFormat;
+        this.h2Tap = b.h2Tap;
+        this.fragmentBytes = b.fragmentBytes;
+        this.rpc = b.rpc;
+    }
+
+    public static ClientOptions defaults() {
+        return DEFAULTS;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public WindowMode windowMode() {
+        return windowMode;
+    }
+
+    /** Upper bound for the adaptive window, in bytes. */
+    public long windowMaxBytes() {
+        return windowMaxBytes;
+    }
+
+    /** Number of independent channels (HTTP/2 connections) to open. */
+    public int channels() {
+        return channels;
+    }
+
+    /** Number of concurrent bidi streams per channel; each sends the full message count. */
+    public int streamsPerChannel() {
+        return streamsPerChannel;
+    }
+
+    /** Where the shared payload bytes live (heap array, pooled direct buffer or mmapped file). */
+    public PayloadMode payloadMode() {
+        return payloadMode;
+    }
+
+    /** {@link org.example.payload.PayloadSource} spec: zeros, random, entropy:&lt;bits&gt; or file:&lt;path&gt;. */
+    public String payloadSource() {
+        return payloadSource;
+    }
+
+    /** Netty socket transport (ignored by the Helidon client). */
+    public NettyTransport.Kind transport() {
+        return transport;
+    }
+
+    /** Netty event-loop threads shared by all channels (0 = Netty default). */
+    public int eventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    /** HTTP/2 and gRPC settings of the client. */
+    public TuningProfile tuning() {
+        return tuning;
+    }
+
+    /** Traffic sent before the steady-state window opens and left out of the statistics. */
+    public Duration warmup() {
+        return warmup;
+    }
+
+    /** Length of the steady-state window; when non-zero, streams send until warm-up + duration. */
+    public Duration duration() {
+        return duration;
+    }
+
+    /** True when the run has a warm-up or a fixed duration, so it reports the steady-state window. */
+    public boolean timed() {
+        return !warmup.isZero() || !duration.isZero();
+    }
+
+    /** File (or {@code -} for stdout) each run appends its {@link org.example.results.RunRecord} to, or null. */
+    public String results() {
+        return results;
+    }
+
+    /** {@code jsonl} or {@code csv}; null picks the format from the {@link #results()} extension. */
+    public String resultsFormat() {
+        return resultsFormat;
+    }
+
+    /**
+     * True when every channel connects through an {@link org.example.transport.H2FrameTap} proxy
+     * that reports HTTP/2 framing and flow-control statistics with the run.
+     */
+    public boolean h2Tap() {
+        return h2Tap;
+    }
+
+    /**
+     * Largest gRPC message a block is sent as (0 = unfragmented). Larger blocks go out as several
+     * fragments that the server reassembles and acks once.
+     */
+    public int fragmentBytes() {
+        return fragmentBytes;
+    }
+
+    public Rpc rpc() {
+        return rpc;
+    }
+
+    /** Size of one gRPC message carrying a block of {@code sizeBytes}. */
+    public int wireBytes(int sizeBytes) {
+        return fragmentBytes > 0 ? Math.min(sizeBytes, fragmentBytes) : sizeBytes;
+    }
+
+    /** True when sends are scheduled at a target rate instead of waiting for window space. */
+    public boolean openLoop() {
+        return rateMsgsPerSec > 0 || rateMbPerSec > 0;
+    }
+
+    /** Total offered rate across all streams in messages per second, or 0 when closed-loop. */
+    public double offeredMsgsPerSec(int sizeBytes) {
+        if (rateMsgsPerSec > 0) {
+            return rateMsgsPerSec;
+        }
+        return rateMbPerSec > 0 ? rateMbPerSec * 1024 * 1024 / Math.max(1, sizeBytes) : 0;
+    }
+
+    public String describe() {
+        String load = !openLoop() ? "closed-loop"
+                : rateMsgsPerSec > 0 ? String.format(Locale.ROOT, "open-loop %.0f msgs/s", rateMsgsPerSec)
+                : String.format(Locale.ROOT, "open-loop %.1f MB/s", rateMbPerSec);
+        String timing = !timed() ? ""
+                : String.format(Locale.ROOT, ", warmup=%ds, duration=%s", warmup.toSeconds(),
+                        duration.isZero() ? "count" : duration.toSeconds() + "s");
+        return String.format(Locale.ROOT,
+                "rpc=%s, window=%s(max=%d), channels=%d, streams/channel=%d, %s, payload=%s/%s%s%s%s",
+                rpc.name().toLowerCase(Locale.ROOT), windowMode.name().toLowerCase(Locale.ROOT), windowMaxBytes,
+                channels, streamsPerChannel, load,
+                payloadMode.name().toLowerCase(Locale.ROOT), payloadSource, timing,
+                fragmentBytes > 0 ? ", fragment=" + fragmentBytes / 1024 + "KB" : "", h2Tap ? ", h2-tap" : "");
+    }
+
+    public static final class Builder {
+        private WindowMode windowMode = WindowMode.ADAPTIVE;
+        private long windowMaxBytes = 32L * 1024 * 1024;
+        private int channels = 1;
+        private int streamsPerChannel = 1;
+        private double rateMsgsPerSec;
+        private double rateMbPerSec;
+        private PayloadMode payloadMode = PayloadMode.HEAP;
+        private String payloadSource = "zeros";
+        private NettyTransport.Kind transport = NettyTransport.Kind.AUTO;
+        private int eventLoopThreads;
+        private TuningProfile tuning = TuningProfile.defaults();
+        private Duration warmup = Duration.ZERO;
+        private Duration duration = Duration.ZERO;
+        private String results;
+        private String resultsFormat;
+        private boolean h2Tap;
+        private int fragmentBytes;
+        private Rpc rpc = Rpc.STREAM;
+
+        private Builder() {
+        }
+
+        public Builder windowMode(WindowMode windowMode) {
+            this.windowMode = windowMode;
+            return this;
+        }
+
+        public Builder windowMaxBytes(long windowMaxBytes) {
+            if (windowMaxBytes < 1) {
+                throw new IllegalArgumentException("windowMaxBytes must be >= 1: " + windowMaxBytes);
+            }
+            this.windowMaxBytes = windowMaxBytes;
+            return this;
+        }
+
+        public Builder channels(int channels) {
+            if (channels < 1) {
+                throw new IllegalArgumentException("channels must be >= 1: " + channels);
+            }
+            this.channels = channels;
+            return this;
+        }
+
+        public Builder streamsPerChannel(int streamsPerChannel) {
+            if (streamsPerChannel < 1) {
+                throw new IllegalArgumentException("streamsPerChannel must be >= 1: " + streamsPerChannel);
+            }
+            this.streamsPerChannel = streamsPerChannel;
+            return this;
+        }
+
+        /** Open-loop target in messages per second across all streams (0 = closed-loop). */
+        public Builder rateMsgsPerSec(double rateMsgsPerSec) {
+            if (rateMsgsPerSec < 0) {
+                throw new IllegalArgumentException("rateMsgsPerSec must be >= 0: " + rateMsgsPerSec);
+            }
+            this.rateMsgsPerSec = rateMsgsPerSec;
+            return this;
+        }
+
+        /** Open-loop target in MB/s across all streams (0 = closed-loop); ignored if a msgs/s rate is set. */
+        public Builder rateMbPerSec(double rateMbPerSec) {
+            if (rateMbPerSec < 0) {
+                throw new IllegalArgumentException("rateMbPerSec must be >= 0: " + rateMbPerSec);
+            }
+            this.rateMbPerSec = rateMbPerSec;
+            return this;
+        }
+
+        public Builder payloadMode(PayloadMode payloadMode) {
+            this.payloadMode = payloadMode;
+            return this;
+        }
+
+        public Builder payloadSource(String payloadSource) {
+            this.payloadSource = payloadSource;
+            return this;
+        }
+
+        public Builder transport(NettyTransport.Kind transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public Builder eventLoopThreads(int eventLoopThreads) {
+            if (eventLoopThreads < 0) {
+                throw new IllegalArgumentException("eventLoopThreads must be >= 0: " + eventLoopThreads);
+            }
+            this.eventLoopThreads = eventLoopThreads;
+            return this;
+        }
+
+        public Builder tuning(TuningProfile tuning) {
+            this.tuning = tuning;
+            return this;
+        }
+
+        public Builder warmup(Duration warmup) {
+            if (warmup.isNegative()) {
+                throw new IllegalArgumentException("warmup must be >= 0: " + warmup);
+            }
+            this.warmup = warmup;
+            return this;
+        }
+
+        public Builder duration(Duration duration) {
+            if (duration.isNegative()) {
+                throw new IllegalArgumentException("duration must be >= 0: " + duration);
+            }
+            this.duration = duration;
+            return this;
+        }
+
+        public Builder results(String results) {
+            this.results = results;
+            return this;
+        }
+
+        public Builder resultsFormat(String resultsFormat) {
+            if (resultsFormat != null && !resultsFormat.equalsIgnoreCase("jsonl")
+                    && !resultsFormat.equalsIgnoreCase("csv")) {
+                throw new IllegalArgumentException("results format must be jsonl or csv: " + resultsFormat);
+            }
+            this.resultsFormat = resultsFormat;
+            return this;
+        }
+
+        public Builder h2Tap(boolean h2Tap) {
+            this.h2Tap = h2Tap;
+            return this;
+        }
+
+        /** Splits blocks larger than this into fragments (0 = never); at least 1 KiB. */
+        public Builder fragmentBytes(int fragmentBytes) {
+            if (fragmentBytes != 0 && fragmentBytes < 1024) {
+                throw new IllegalArgumentException("fragmentBytes must be 0 or >= 1 KiB: " + fragmentBytes);
+            }
+            this.fragmentBytes = fragmentBytes;
+            return this;
+        }
+
+        public Builder rpc(Rpc rpc) {
+            this.rpc = rpc;
+            return this;
+        }
+
+        public ClientOptions build() {
+            if (fragmentBytes > 0 && rpc != Rpc.STREAM) {
+                throw new IllegalArgumentException("fragmentBytes applies to the stream RPC only: " + rpc);
+            }
+            if (rpc == Rpc.SUBSCRIBE && (rateMsgsPerSec > 0 || rateMbPerSec > 0)) {
+                throw new IllegalArgumentException("subscribe is server-paced; open-loop rates do not apply");
+            }
+            return new ClientOptions(this);
+        }
+    }
+}
@@ -3,130 +3,484 @@ package org.example.client;
 
 import com.google.protobuf.ByteString;
 import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
 import io.grpc.stub.StreamObserver;
+import org.example.common.CostMeter;
+import org.example.common.LatencyHistogram;
+import org.example.common.MetricsReporter;
 import org.example.common.Pretty;
+import org.example.common.StreamMetrics;
+import org.example.payload.PayloadSource;
+import org.example.results.RunRecord;
+import org.example.results.RunRecordWriter;
+import org.example.transport.H2FrameTap;
+import org.example.tuning.TuningProfile;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import org.example.throughput.Ack;
 import org.example.throughput.DataChunk;
+import org.example.throughput.SubscribeRequest;
 import org.example.throughput.ThroughputServiceGrpc;
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Drives {@code channels × streamsPerChannel} bidi streams, each with its own sequence space
+ * and {@link InFlightWindow}, and prints one aggregate RESULT line plus per-stream STREAM lines.
+ * With {@link ClientOptions#rpc()} each stream instead drives unary {@code Submit} calls through
+ * the same window, or one server-streaming {@code Subscribe} call, so the three RPC shapes
+ * produce the same RESULT lines and records.
+ *
+ * <p>Every ack records send → ack latency for each seq it covers, using the send timestamps the
+ * window already keeps in its per-seq ring; each stream has its own histogram (per-interval
+ * percentiles on the ticks) and they are merged into one run-wide histogram for the summary.
+ *
+ * <p>Closed-loop (default) streams send as fast as the window allows. Open-loop streams send on
+ * a fixed schedule ({@code offered rate / streams} each) regardless of acks, and record the
+ * latency of every message from its scheduled send time, so a stalled server shows up as
+ * latency instead of as a silently lower send rate.
+ *
+ * <p>With a warm-up and/or a duration ({@link ClientOptions#warmup()}, {@link ClientOptions#duration()})
+ * streams send until the deadline instead of stopping at {@code numMsg} (0 = no cap), and the
+ * RESULT line reports only the {@link SteadyWindow steady-state window}, followed by a
+ * STEADY_RESULT line with the spread of the per-second rates.
+ *
+ * <p>Each run also becomes a {@link RunRecord}; the RESULT line is printed from it, and it is
+ * appended to {@link ClientOptions#results()} when a results sink is configured.
+ *
+ * <p>When the channels connect through an {@link H2FrameTap}, H2_STREAM and H2_RESULT lines per
+ * connection and a run total precede the RESULT line, and the total goes into the record.
+ */
 final class ClientRunner {
+    private static final long SPIN_THRESHOLD_NS = TimeUnit.MICROSECONDS.toNanos(50);
+    /** Per-call deadline of a {@code Submit}; the same bound as a stream's wait for an ack. */
+    private static final long SUBMIT_DEADLINE_SECONDS = 30;
+
     private ClientRunner() {
     }
 
-    static void run(String implName,
-                    ThroughputServiceGrpc.ThroughputServiceStub stub,
-                    long numMsg,
-                    int sizeBytes) throws InterruptedException {
+    /**
+     * Runs {@code numMsg} messages on every stream; {@code channels} holds one stub per channel,
+     * {@code transport} names the socket transport for the RESULT line and {@code tap} is the
+     * frame tap the channels connect through, or null.
+     */
+    static RunResult run(String implName,
+                         String transport,
+                         List<ThroughputServiceGrpc.ThroughputServiceStub> channels,
+                         long numMsg,
+                         int sizeBytes,
+                         ClientOptions options,
+                         H2FrameTap tap) throws InterruptedException {
+        if (numMsg == 0 && !options.warmup().isZero() && options.duration().isZero()) {
+            // Neither a count nor a duration: the warm-up would end a run that never sent anything.
+            throw new IllegalArgumentException("--warmup with numMsg 0 needs --duration");
+        }
+
+        // Built before the clock starts: generators precompute their whole pool here.
+        PayloadSource payload = PayloadSource.parse(options.payloadSource(), options.payloadMode(), sizeBytes);
+        int streamsPerChannel = options.streamsPerChannel();
+        int totalStreams = channels.size() * streamsPerChannel;
+        double offeredPerSec = options.offeredMsgsPerSec(sizeBytes);
+        long intervalNs = offeredPerSec > 0 ? Math.max(1, Math.round(1e9 * totalStreams / offeredPerSec)) : 0;
+        LatencyHistogram latency = new LatencyHistogram();
+        long streamMsgs = numMsg == 0 && !options.duration().isZero() ? Long.MAX_VALUE : numMsg;
+
+        CostMeter costMeter = CostMeter.start();
+        SteadyWindow steady = SteadyWindow.start(options);
+        long startedNs = System.nanoTime();
+        List<StreamOutcome> outcomes = new ArrayList<>(totalStreams);
+        if (totalStreams == 1) {
+            outcomes.add(runStream(implName, channels.get(0), 0, 0, streamMsgs, sizeBytes, payload, options,
+                    intervalNs, latency, steady));
+        } else {
+            List<Future<StreamOutcome>> futures = new ArrayList<>(totalStreams);
+            try (ExecutorService streams = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int c = 0; c < channels.size(); c++) {
+                    for (int s = 0; s < streamsPerChannel; s++) {
+                        ThroughputServiceGrpc.ThroughputServiceStub stub = channels.get(c);
+                        int streamId = c * streamsPerChannel + s;
+                        int channelId = c;
+                        futures.add(streams.submit(() -> runStream(implName, stub, streamId, channelId,
+                                streamMsgs, sizeBytes, payload, options, intervalNs, latency, steady)));
+                    }
+                }
+            }
+            for (Future<StreamOutcome> f : futures) {
+                try {
+                    outcomes.add(f.get());
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Client stream crashed", e.getCause());
+                }
+            }
+        }
+        double sec = (System.nanoTime() - startedNs) / 1_000_000_000.0;
+        CostMeter.Cost cost = costMeter.stop();
+        if (steady != null) {
+            steady.close();
+        }
+
+        long attempted = 0;
+        long delivered = 0;
+        long acks = 0;
+        Throwable err = null;
+        List<RunResult.StreamResult> perStream = new ArrayList<>(totalStreams);
+        for (StreamOutcome o : outcomes) {
+            attempted += o.result().attempted();
+            delivered += o.result().delivered();
+            acks += o.result().acks();
+            perStream.add(o.result());
+            if (err == null) {
+                err = o.error();
+            }
+        }
+        boolean timed = options.timed();
+        if (timed && steady.empty()) {
+            System.err.println("⚠️  Run ended during warm-up; reporting the whole run instead of the steady state");
+        } else if (timed) {
+            attempted = steady.sent();
+            delivered = steady.messages();
+            acks = steady.acks();
+            sec = steady.seconds();
+            cost = steady.cost();
+        }
+        RunResult result = new RunResult(implName, sizeBytes, attempted, delivered, acks, sec,
+                classifyError(err), List.copyOf(perStream), offeredPerSec, latency);
+
+        if (totalStreams > 1) {
+            for (RunResult.StreamResult r : perStream) {
+                Pretty.streamLine(r.stream(), r.channel(), r.delivered(), r.attempted(), sizeBytes,
+                        r.seconds(), r.errorCode());
+            }
+        }
+        String label = totalStreams == 1 ? implName
+                : String.format(Locale.ROOT, "%s (%d ch × %d streams)", implName, channels.size(), streamsPerChannel);
+        Pretty.summary("client", label, err == null ? attempted : delivered,
+                sizeBytes, delivered * (long) sizeBytes, acks, sec, latency, cost);
+        double warmupSec = options.warmup().toMillis() / 1_000.0;
+        List<Double> perSecond = steady != null && !steady.empty() ? steady.perSecondRates() : List.of();
+        List<Double> seriesMbps = new ArrayList<>(perSecond.size());
+        for (double msgs : perSecond) {
+            seriesMbps.add(msgs * sizeBytes / (1024.0 * 1024.0));
+        }
+        H2FrameTap.ConnectionReport h2 = H2FrameTap.ConnectionReport.none();
+        if (tap != null) {
+            for (H2FrameTap.ConnectionReport c : tap.connections()) {
+                c.perStream().forEach(s -> Pretty.h2StreamLine(c.id(), s));
+                Pretty.h2ResultLine(implName, c);
+            }
+            h2 = tap.total();
+            Pretty.h2ResultLine(implName, h2);
+        }
+        RunRecord record = new RunRecord(Instant.now(), implName, transport, sizeBytes, attempted, delivered, acks,
+                sec, result.errorCode(), offeredPerSec, RunRecord.Latency.of(latency),
+                RunRecord.Cost.of(cost, delivered), RunRecord.Steady.of(warmupSec, seriesMbps), seriesMbps,
+                config(options, payload), RunRecord.Environment.current(), h2);
+        Pretty.resultLine(record, "rpc=" + options.rpc().name().toLowerCase(Locale.ROOT),
+                "payload=" + options.payloadMode().name().toLowerCase(Locale.ROOT),
+                "source=" + payload.describe(), "transport=" + transport,
+                "profile=" + options.tuning().describe());
+        if (timed && !steady.empty()) {
+            Pretty.steadyResultLine(implName, sizeBytes, warmupSec, sec, perSecond);
+        }
+        if (options.results() != null) {
+            RunRecordWriter.open(options.results(), options.resultsFormat()).append(record);
+        }
 
-        ByteString payload = ByteString.copyFrom(new byte[sizeBytes]);
+        if (err != null) {
+            if (err instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException("gRPC stream failed", err);
+        }
+        return result;
+    }
 
+    /**
+     * Runs one stream: a bidi {@code Stream} call, or with {@link ClientOptions.Rpc#SUBMIT} one
+     * unary call per message, where each response is a single-seq ack on the same window.
+     * {@link ClientOptions.Rpc#SUBSCRIBE} is handed to {@link #runSubscribe}.
+     */
+    private static StreamOutcome runStream(String implName,
+                                           ThroughputServiceGrpc.ThroughputServiceStub stub,
+                                           int streamId,
+                                           int channelId,
+                                           long numMsg,
+                                           int sizeBytes,
+                                           PayloadSource payload,
+                                           ClientOptions options,
+                                           long intervalNs,
+                                           LatencyHistogram latency,
+                                           SteadyWindow steady) throws InterruptedException {
+        if (options.rpc() == ClientOptions.Rpc.SUBSCRIBE) {
+            return runSubscribe(implName, stub, streamId, channelId, numMsg, sizeBytes, steady);
+        }
         long startedNs = System.nanoTime();
-        AtomicLong totalAcks = new AtomicLong();
-        AtomicLong lastBytes = new AtomicLong();
-        AtomicLong lastAcks = new AtomicLong();
-        AtomicLong lastTime = new AtomicLong(System.nanoTime());
+        StreamMetrics metrics = MetricsReporter.shared().register("client", implName);
         AtomicReference<Throwable> error = new AtomicReference<>();
 
-        // Cap in-flight at 1 for messages >= 2 MB to avoid HTTP/2 connection-window exhaustion
-        // on implementations (e.g. Helidon) that don't auto-update the connection-level window.
-        int maxInFlight = sizeBytes >= 2 * 1024 * 1024
-                ? 1
-                : Math.max(1, (int) Math.min(4, (32L * 1024 * 1024) / Math.max(1, sizeBytes)));
-        Semaphore inFlight = new Semaphore(maxInFlight);
-
-        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, implName + "-client-reporter");
-            t.setDaemon(true);
-            return t;
-        });
-        reporter.scheduleAtFixedRate(() -> {
-            long now = System.nanoTime();
-            long dt = now - lastTime.getAndSet(now);
-            long acks = totalAcks.get();
-            long deltaAcks = acks - lastAcks.getAndSet(acks);
-            long bytes = acks * (long) sizeBytes;
-            long deltaBytes = bytes - lastBytes.getAndSet(bytes);
-            double sec = dt / 1_000_000_000.0;
-            double mbps = sec > 0 ? (deltaBytes / (1024.0 * 1024.0)) / sec : 0.0;
-            Pretty.tick("client", implName,
-                    (System.nanoTime() - startedNs) / 1_000_000_000L,
-                    mbps,
-                    deltaAcks,
-                    deltaBytes / (1024.0 * 1024.0));
-        }, 1, 1, TimeUnit.SECONDS);
+        InFlightWindow window = new InFlightWindow(options, sizeBytes);
+        metrics.windowGauge(window::windowBytes);
+        LatencyHistogram streamLatency = new LatencyHistogram();
+        metrics.latency(streamLatency);
 
+        // Counts the sender plus every unary call in flight; the stream shape only ever holds one.
         CountDownLatch done = new CountDownLatch(1);
-        StreamObserver<DataChunk> in = stub.stream(new StreamObserver<>() {
+        AtomicLong open = new AtomicLong(1);
+        Runnable ended = () -> {
+            if (open.decrementAndGet() == 0) {
+                done.countDown();
+            }
+        };
+        StreamObserver<Ack> acks = new StreamObserver<>() {
             @Override
             public void onNext(Ack ack) {
-                totalAcks.incrementAndGet();
-                inFlight.release();
+                // A cumulative ack covers ack.getCount() chunks; 0 means a classic per-chunk ack.
+                int covered = Math.max(1, ack.getCount());
+                metrics.record((long) covered * sizeBytes, covered);
+                metrics.recordAck();
+                // Latency of messages acked during warm-up (or after the window) is not recorded.
+                window.onAck(ack.getSeq(), covered, steady == null || steady.measuring() ? streamLatency : null);
+                if (steady != null) {
+                    steady.onAck(covered);
+                }
             }
 
             @Override
             public void onError(Throwable t) {
                 error.compareAndSet(null, t);
-                done.countDown();
-                reporter.shutdownNow();
-                inFlight.release(maxInFlight);
+                ended.run();
+                window.abort();
             }
 
             @Override
             public void onCompleted() {
-                done.countDown();
-                reporter.shutdown();
+                ended.run();
             }
-        });
+        };
+        boolean unary = options.rpc() == ClientOptions.Rpc.SUBMIT;
+        StreamObserver<DataChunk> in = unary ? null : stub.stream(acks);
 
-        for (long i = 0; i < numMsg; i++) {
-            boolean acquired = inFlight.tryAcquire(30, TimeUnit.SECONDS);
+        long scheduleStartNs = System.nanoTime();
+        long endNs = steady != null ? steady.endNs() : Long.MAX_VALUE;
+        long sent = 0;
+        for (long i = 0; i < numMsg && System.nanoTime() < endNs; i++) {
+            boolean acquired;
+            if (intervalNs > 0) {
+                long intendedNs = scheduleStartNs + i * intervalNs;
+                awaitUntil(intendedNs);
+                acquired = window.acquireAt(i, intendedNs, 30, TimeUnit.SECONDS);
+            } else {
+                acquired = window.acquire(i, 30, TimeUnit.SECONDS);
+            }
             if (!acquired) {
                 error.compareAndSet(null, new RuntimeException("No ack within 30s — server stalled"));
             }
-            Throwable err = error.get();
-            if (err != null) {
-                inFlight.release();
+            if (error.get() != null) {
                 break;
             }
-            in.onNext(DataChunk.newBuilder()
-                    .setSeq(i)
-                    .setPayload(payload)
-                    .build());
+            if (unary) {
+                open.incrementAndGet();
+                stub.withDeadlineAfter(SUBMIT_DEADLINE_SECONDS, TimeUnit.SECONDS).submit(
+                        DataChunk.newBuilder().setSeq(i).setPayload(payload.payload(i + streamId)).build(), acks);
+            } else {
+                send(in, i, payload.payload(i + streamId), options.fragmentBytes());
+            }
+            sent++;
+            if (steady != null) {
+                steady.onSend();
+            }
         }
-        if (error.get() == null) {
+        if (unary) {
+            ended.run();
+        } else if (error.get() == null) {
             in.onCompleted();
         }
         boolean finished = done.await(120, TimeUnit.SECONDS);
         if (!finished) {
             error.compareAndSet(null, new RuntimeException("Stream timed out after 120s"));
         }
+        metrics.close();
+        latency.add(streamLatency);
 
         double sec = (System.nanoTime() - startedNs) / 1_000_000_000.0;
-        long delivered = totalAcks.get();
         Throwable err = error.get();
+        RunResult.StreamResult result = new RunResult.StreamResult(streamId, channelId,
+                sent, metrics.totalMessages(), metrics.totalAcks(), sec,
+                classifyError(err));
+        return new StreamOutcome(result, err);
+    }
 
-        Pretty.summary("client", implName, err == null ? numMsg : delivered,
-                sizeBytes, delivered * (long) sizeBytes, sec);
-        Pretty.resultLine(delivered, numMsg, sizeBytes, sec, classifyError(err));
+    /**
+     * Runs one {@code Subscribe} call: the server pushes {@code numMsg} chunks (until the
+     * measurement window closes when unbounded) and each one counts as sent and acked on
+     * arrival. Chunks carry no send time, so no latency is recorded; the rate is paced by
+     * HTTP/2 flow control alone.
+     */
+    private static StreamOutcome runSubscribe(String implName,
+                                              ThroughputServiceGrpc.ThroughputServiceStub stub,
+                                              int streamId,
+                                              int channelId,
+                                              long numMsg,
+                                              int sizeBytes,
+                                              SteadyWindow steady) throws InterruptedException {
+        long startedNs = System.nanoTime();
+        StreamMetrics metrics = MetricsReporter.shared().register("client", implName);
+        Subscription subscription = new Subscription(metrics, steady);
+        stub.subscribe(SubscribeRequest.newBuilder()
+                .setCount(numMsg == Long.MAX_VALUE ? 0 : numMsg)
+                .setSizeBytes(sizeBytes)
+                .build(), subscription);
+        long seen = -1;
+        while (!subscription.done.await(30, TimeUnit.SECONDS)) {
+            long received = metrics.totalMessages();
+            if (received == seen) {
+                subscription.fail(new RuntimeException("No chunk within 30s — server stalled"));
+                break;
+            }
+            seen = received;
+        }
+        metrics.close();
 
-        if (err != null) {
-            if (err instanceof RuntimeException re) {
-                throw re;
+        double sec = (System.nanoTime() - startedNs) / 1_000_000_000.0;
+        Throwable err = subscription.error.get();
+        // Uncapped, or cancelled when the window closed: what arrived is all that was due.
+        long attempted = numMsg == Long.MAX_VALUE || (subscription.stopped && err == null)
+                ? metrics.totalMessages() : numMsg;
+        RunResult.StreamResult result = new RunResult.StreamResult(streamId, channelId,
+                attempted, metrics.totalMessages(), metrics.totalAcks(), sec, classifyError(err));
+        return new StreamOutcome(result, err);
+    }
+
+    /** Receiving side of one {@code Subscribe} call; cancels it once the steady window has closed. */
+    private static final class Subscription implements ClientResponseObserver<SubscribeRequest, DataChunk> {
+        private final StreamMetrics metrics;
+        private final SteadyWindow steady;
+        private final long endNs;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private ClientCallStreamObserver<SubscribeRequest> call;
+        private volatile boolean stopped;
+
+        Subscription(StreamMetrics metrics, SteadyWindow steady) {
+            this.metrics = metrics;
+            this.steady = steady;
+            this.endNs = steady != null ? steady.endNs() : Long.MAX_VALUE;
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<SubscribeRequest> call) {
+            this.call = call;
+        }
+
+        @Override
+        public void onNext(DataChunk chunk) {
+            metrics.record(chunk.getPayload().size());
+            if (steady != null) {
+                steady.onSend();
+                steady.onAck(1);
+            }
+            if (!stopped && System.nanoTime() >= endNs) {
+                stopped = true;
+                call.cancel("measurement window closed", null);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            // Our own cancellation ends the call with CANCELLED; that is a normal end.
+            if (!stopped) {
+                error.compareAndSet(null, t);
+            }
+            done.countDown();
+        }
+
+        @Override
+        public void onCompleted() {
+            done.countDown();
+        }
+
+        void fail(Throwable t) {
+            error.compareAndSet(null, t);
+            stopped = true;
+            call.cancel(t.getMessage(), t);
+        }
+    }
+
+    /**
+     * Sends block {@code seq}, split into fragments of at most {@code fragmentBytes} when it is
+     * larger. Fragments share the seq and slice the payload without copying; the server acks the
+     * block once its last fragment arrives.
+     */
+    private static void send(StreamObserver<DataChunk> in, long seq, ByteString block, int fragmentBytes) {
+        int size = block.size();
+        if (fragmentBytes <= 0 || size <= fragmentBytes) {
+            in.onNext(DataChunk.newBuilder().setSeq(seq).setPayload(block).build());
+            return;
+        }
+        int fragments = (size + fragmentBytes - 1) / fragmentBytes;
+        for (int k = 0; k < fragments; k++) {
+            int off = k * fragmentBytes;
+            in.onNext(DataChunk.newBuilder()
+                    .setSeq(seq)
+                    .setPayload(block.substring(off, Math.min(size, off + fragmentBytes)))
+                    .setFragment(k)
+                    .setFragments(fragments)
+                    .build());
+        }
+    }
+
+    /** Parks until close to {@code deadlineNs}, then spins the rest to keep pacing jitter low. */
+    private static void awaitUntil(long deadlineNs) {
+        long remaining;
+        while ((remaining = deadlineNs - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NS);
+            } else {
+                Thread.onSpinWait();
             }
-            throw new RuntimeException("gRPC stream failed", err);
         }
     }
 
+    /** Client and tuning settings of the run, flattened for its {@link RunRecord}. */
+    private static Map<String, String> config(ClientOptions options, PayloadSource payload) {
+        Map<String, String> config = new LinkedHashMap<>();
+        config.put("window", options.windowMode().name().toLowerCase(Locale.ROOT));
+        config.put("windowMaxBytes", String.valueOf(options.windowMaxBytes()));
+        config.put("channels", String.valueOf(options.channels()));
+        config.put("streamsPerChannel", String.valueOf(options.streamsPerChannel()));
+        config.put("payload", options.payloadMode().name().toLowerCase(Locale.ROOT));
+        config.put("source", payload.describe());
+        config.put("nettyTransport", options.transport().name().toLowerCase(Locale.ROOT));
+        config.put("eventLoopThreads", String.valueOf(options.eventLoopThreads()));
+        config.put("warmupMs", String.valueOf(options.warmup().toMillis()));
+        config.put("durationMs", String.valueOf(options.duration().toMillis()));
+        config.put("rpc", options.rpc().name().toLowerCase(Locale.ROOT));
+        config.put("fragmentBytes", String.valueOf(options.fragmentBytes()));
+        config.put("h2Tap", String.valueOf(options.h2Tap()));
+        config.put("profile", options.tuning().describe());
+        for (TuningProfile.Knob k : TuningProfile.Knob.values()) {
+            config.put(k.key(), options.tuning().value(k));
+        }
+        return config;
+    }
+
+    private record StreamOutcome(RunResult.StreamResult result, Throwable error) {
+    }
+
     private static String classifyError(Throwable t) {
         if (t == null) {
             return null;
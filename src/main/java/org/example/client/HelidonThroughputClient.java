@@ -1,6 +1,9 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.example.client;
 
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 
 import io.helidon.common.tls.Tls;
@@ -10,30 +13,69 @@ import io.helidon.webclient.grpc.GrpcClientProtocolConfig;
 import io.helidon.webclient.http2.Http2ClientProtocolConfig;
 
 import org.example.throughput.ThroughputServiceGrpc;
+import org.example.transport.H2FrameTap;
+import org.example.transport.ImpairmentProxy;
+import org.example.tuning.TuningProfile;
+
+import static org.example.tuning.TuningProfile.Knob.HELIDON_CLIENT_INITIAL_WINDOW_SIZE;
+import static org.example.tuning.TuningProfile.Knob.HELIDON_CLIENT_INIT_BUFFER_SIZE;
+import static org.example.tuning.TuningProfile.Knob.HELIDON_CLIENT_MAX_FRAME_SIZE;
 
 public final class HelidonThroughputClient implements ThroughputClient {
     private final String baseUri;
+    private final ClientOptions options;
 
     public HelidonThroughputClient(String baseUri) {
+        this(baseUri, ClientOptions.defaults());
+    }
+
+    public HelidonThroughputClient(String baseUri, ClientOptions options) {
         this.baseUri = baseUri.startsWith("http") ? baseUri : "http://" + baseUri;
+        this.options = options;
     }
 
     @Override
-    public void run(long numMessages, int sizeBytes) throws Exception {
+    public RunResult run(long numMessages, int sizeBytes) throws Exception {
+        H2FrameTap tap = null;
+        ImpairmentProxy proxy = null;
+        String uri = baseUri;
+        if (options.h2Tap()) {
+            URI target = URI.create(baseUri);
+            tap = new H2FrameTap();
+            proxy = ImpairmentProxy.tap(
+                    new InetSocketAddress(target.getHost(), target.getPort() < 0 ? 80 : target.getPort()), tap);
+            uri = "http://localhost:" + proxy.port();
+        }
+        try {
+            // One WebClient per channel so every channel gets its own HTTP/2 connection.
+            List<ThroughputServiceGrpc.ThroughputServiceStub> stubs = new ArrayList<>(options.channels());
+            for (int i = 0; i < options.channels(); i++) {
+                stubs.add(newStub(uri));
+            }
+            return ClientRunner.run("helidon", "helidon", stubs, numMessages, sizeBytes, options, tap);
+        } finally {
+            if (proxy != null) {
+                proxy.close();
+            }
+        }
+    }
+
+    private ThroughputServiceGrpc.ThroughputServiceStub newStub(String uri) {
+        TuningProfile tuning = options.tuning();
         WebClient webClient = WebClient.builder()
-                .baseUri(baseUri)
+                .baseUri(uri)
                 .tls(Tls.builder().enabled(false).build())
                 .protocolConfigs(List.of(Http2ClientProtocolConfig.builder()
                                                  .priorKnowledge(true)
-                                                 .maxFrameSize(2 * 1024 * 1024)
-                                                 .initialWindowSize(2 * 1024 * 1024)
+                                                 .maxFrameSize(tuning.intValue(HELIDON_CLIENT_MAX_FRAME_SIZE))
+                                                 .initialWindowSize(
+                                                         tuning.intValue(HELIDON_CLIENT_INITIAL_WINDOW_SIZE))
                                                  .build(),
                                          GrpcClientProtocolConfig.builder()
-                                                 .initBufferSize(2 * 1024 * 1024)
+                                                 .initBufferSize(tuning.intValue(HELIDON_CLIENT_INIT_BUFFER_SIZE))
                                                  .build()))
                 .build();
         GrpcClient grpcClient = webClient.client(GrpcClient.PROTOCOL);
-        ThroughputServiceGrpc.ThroughputServiceStub stub = ThroughputServiceGrpc.newStub(grpcClient.channel());
-        ClientRunner.run("helidon", stub, numMessages, sizeBytes);
+        return ThroughputServiceGrpc.newStub(grpcClient.channel());
     }
 }
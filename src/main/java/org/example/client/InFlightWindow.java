@@ -0,0 +1,215 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.client;
+
+import org.example.common.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the unacknowledged bytes of one stream.
+ *
+ * <p>In {@link ClientOptions.WindowMode#ADAPTIVE adaptive} mode the budget follows a BBR-style
+ * bandwidth-delay-product estimate: every ack yields an RTT sample (send → ack of the newest
+ * covered seq) and a delivery-rate sample computed as in BBR: bytes acked while that seq was in
+ * flight divided by {@code max(send interval, ack interval)}, which filters out ack compression.
+ * The window is {@code GAIN × maxBw × minRtt} rounded up to whole messages, where maxBw is a
+ * windowed max over the last two one-second buckets and minRtt a windowed min over
+ * {@value #MIN_RTT_WINDOW_SEC} s. While the path is not saturated the measured bandwidth tracks
+ * the window, so the window doubles per round trip; at the knee bandwidth flattens while RTT
+ * grows, and the window settles at about twice the bandwidth-delay product.
+ *
+ * <p>In open-loop mode ({@link ClientOptions#openLoop()}) the window is a fixed safety cap of
+ * {@code windowMaxBytes}, and each seq is stamped with its <em>intended</em> send time, so the
+ * latency recorded on ack includes any time the sender spent behind schedule
+ * (coordinated-omission correction).
+ *
+ * <p>Per-seq send state lives in preallocated primitive rings indexed by {@code seq & mask}; the
+ * window never lets more messages in flight than the ring holds.
+ */
+final class InFlightWindow {
+    private static final double GAIN = 2.0;
+    private static final long BW_BUCKET_NS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MIN_RTT_WINDOW_SEC = 10;
+    private static final int MAX_RING = 1 << 16;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition space = lock.newCondition();
+
+    private final boolean adaptive;
+    private final int messageBytes;
+    private final long minWindowBytes;
+    private final long maxWindowBytes;
+
+    private final long[] sendNs;
+    private final long[] deliveredAtSend;
+    private final long[] deliveredNsAtSend;
+    private final long[] firstSentNsAtSend;
+    private final int mask;
+
+    private volatile long windowBytes;
+    private long inFlightBytes;
+    private int inFlightMessages;
+    private boolean aborted;
+
+    private long delivered;
+    private long deliveredNs;
+    private long lastAckedSendNs;
+    private long minRttNs = Long.MAX_VALUE;
+    private long minRttStampNs;
+    private double bwCurrent;
+    private double bwPrevious;
+    private long bwBucketStartNs;
+
+    InFlightWindow(ClientOptions options, int messageBytes) {
+        this.messageBytes = Math.max(1, messageBytes);
+        this.adaptive = options.windowMode() == ClientOptions.WindowMode.ADAPTIVE && !options.openLoop();
+
+        int wireBytes = options.wireBytes(messageBytes);
+        int legacyMessages = legacyMaxInFlight(messageBytes, wireBytes);
+        long maxBytes = adaptive || options.openLoop() ? Math.max(this.messageBytes, options.windowMaxBytes())
+                : (long) legacyMessages * this.messageBytes;
+        // Cap in-flight at 1 for gRPC messages >= 2 MB to avoid HTTP/2 connection-window exhaustion
+        // on implementations (e.g. Helidon) that don't auto-update the connection-level window.
+        // Fragmented blocks (--fragment-kb) go out as smaller messages and are not capped.
+        if (wireBytes >= 2 * 1024 * 1024) {
+            maxBytes = this.messageBytes;
+        }
+        this.maxWindowBytes = maxBytes;
+        this.minWindowBytes = this.messageBytes;
+        this.windowBytes = options.openLoop() ? maxBytes
+                : Math.min(maxBytes, (long) legacyMessages * this.messageBytes);
+
+        int ring = Integer.highestOneBit((int) Math.min(MAX_RING, maxBytes / this.messageBytes + 1) - 1) << 1;
+        ring = Math.max(2, ring);
+        this.sendNs = new long[ring];
+        this.deliveredAtSend = new long[ring];
+        this.deliveredNsAtSend = new long[ring];
+        this.firstSentNsAtSend = new long[ring];
+        this.mask = ring - 1;
+        this.deliveredNs = System.nanoTime();
+        this.lastAckedSendNs = deliveredNs;
+        this.bwBucketStartNs = deliveredNs;
+    }
+
+    /**
+     * The original fixed heuristic, kept as the starting point and for {@code --window fixed}.
+     * {@code wireBytes} is the size of one gRPC message: the block itself, or one fragment.
+     */
+    static int legacyMaxInFlight(int sizeBytes, int wireBytes) {
+        return wireBytes >= 2 * 1024 * 1024
+                ? 1
+                : Math.max(1, (int) Math.min(4, (32L * 1024 * 1024) / Math.max(1, sizeBytes)));
+    }
+
+    /**
+     * Blocks until one more message fits in the window, then records its send state stamped
+     * with the current time. Returns false on timeout; returns true immediately once
+     * {@link #abort()} was called.
+     */
+    boolean acquire(long seq, long timeout, TimeUnit unit) throws InterruptedException {
+        return acquire(seq, false, 0, timeout, unit);
+    }
+
+    /** Like {@link #acquire(long, long, TimeUnit)} but stamps the seq with its intended send time. */
+    boolean acquireAt(long seq, long intendedNs, long timeout, TimeUnit unit) throws InterruptedException {
+        return acquire(seq, true, intendedNs, timeout, unit);
+    }
+
+    private boolean acquire(long seq, boolean stamped, long stampNs, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!aborted && inFlightMessages > 0
+                    && (inFlightBytes + messageBytes > windowBytes || inFlightMessages > mask)) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = space.awaitNanos(remaining);
+            }
+            inFlightBytes += messageBytes;
+            inFlightMessages++;
+            int slot = (int) (seq & mask);
+            long now = stamped ? stampNs : System.nanoTime();
+            if (inFlightMessages == 1) {
+                // Restarting from idle: do not let the idle gap dilute the next rate sample.
+                deliveredNs = now;
+                lastAckedSendNs = now;
+            }
+            sendNs[slot] = now;
+            deliveredAtSend[slot] = delivered;
+            deliveredNsAtSend[slot] = deliveredNs;
+            firstSentNsAtSend[slot] = lastAckedSendNs;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases {@code count} messages acknowledged by an ack for {@code seq} and updates the
+     * estimate. When {@code latency} is non-null, every covered seq records stamp → now.
+     */
+    void onAck(long seq, int count, LatencyHistogram latency) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            long bytes = (long) count * messageBytes;
+            inFlightBytes = Math.max(0, inFlightBytes - bytes);
+            inFlightMessages = Math.max(0, inFlightMessages - count);
+            delivered += bytes;
+            deliveredNs = now;
+            int slot = (int) (seq & mask);
+            lastAckedSendNs = sendNs[slot];
+            if (latency != null) {
+                int covered = Math.min(count, mask + 1);
+                for (long s = seq - covered + 1; s <= seq; s++) {
+                    latency.record(now - sendNs[(int) (s & mask)]);
+                }
+            }
+            if (adaptive) {
+                long interval = Math.max(sendNs[slot] - firstSentNsAtSend[slot], now - deliveredNsAtSend[slot]);
+                update(now, now - sendNs[slot], delivered - deliveredAtSend[slot], interval);
+            }
+            space.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Wakes every waiter; used when the stream fails. */
+    void abort() {
+        lock.lock();
+        try {
+            aborted = true;
+            space.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long windowBytes() {
+        return windowBytes;
+    }
+
+    private void update(long now, long rttNs, long deliveredBytes, long intervalNs) {
+        if (rttNs <= 0 || intervalNs <= 0) {
+            return;
+        }
+        if (rttNs <= minRttNs || now - minRttStampNs > TimeUnit.SECONDS.toNanos(MIN_RTT_WINDOW_SEC)) {
+            minRttNs = rttNs;
+            minRttStampNs = now;
+        }
+        if (now - bwBucketStartNs >= BW_BUCKET_NS) {
+            bwPrevious = bwCurrent;
+            bwCurrent = 0;
+            bwBucketStartNs = now;
+        }
+        bwCurrent = Math.max(bwCurrent, (double) deliveredBytes / intervalNs);
+        double maxBw = Math.max(bwCurrent, bwPrevious);
+        long target = (long) Math.ceil(GAIN * maxBw * minRttNs / messageBytes) * messageBytes;
+        windowBytes = Math.max(minWindowBytes, Math.min(maxWindowBytes, target));
+    }
+}
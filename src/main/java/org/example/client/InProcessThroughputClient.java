@@ -0,0 +1,51 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.client;
+
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import org.example.throughput.ThroughputServiceGrpc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.example.tuning.TuningProfile.Knob.NETTY_CLIENT_MAX_INBOUND_MESSAGE_SIZE;
+
+/**
+ * grpc-java client for an {@link org.example.server.InProcessThroughputServer} in the same JVM.
+ * Runs exactly like {@link NettyThroughputClient} minus the socket, HTTP/2 and serialization, so
+ * the gap between the two is what the transport costs.
+ */
+public final class InProcessThroughputClient implements ThroughputClient {
+    private final String name;
+    private final ClientOptions options;
+
+    public InProcessThroughputClient(String name) {
+        this(name, ClientOptions.defaults());
+    }
+
+    public InProcessThroughputClient(String name, ClientOptions options) {
+        if (options.h2Tap()) {
+            throw new IllegalArgumentException("--h2-tap needs a TCP target, not an in-process server");
+        }
+        this.name = name;
+        this.options = options;
+    }
+
+    @Override
+    public RunResult run(long numMessages, int sizeBytes) throws Exception {
+        List<ManagedChannel> channels = new ArrayList<>(options.channels());
+        try {
+            List<ThroughputServiceGrpc.ThroughputServiceStub> stubs = new ArrayList<>(options.channels());
+            for (int i = 0; i < options.channels(); i++) {
+                ManagedChannel channel = InProcessChannelBuilder.forName(name)
+                        .maxInboundMessageSize(options.tuning().intValue(NETTY_CLIENT_MAX_INBOUND_MESSAGE_SIZE))
+                        .build();
+                channels.add(channel);
+                stubs.add(ThroughputServiceGrpc.newStub(channel));
+            }
+            return ClientRunner.run("inprocess", "inprocess", stubs, numMessages, sizeBytes, options, null);
+        } finally {
+            channels.forEach(ManagedChannel::shutdownNow);
+        }
+    }
+}
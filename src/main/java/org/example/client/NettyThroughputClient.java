@@ -4,28 +4,88 @@ package org.example.client;
 import io.grpc.ManagedChannel;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 import org.example.throughput.ThroughputServiceGrpc;
+import org.example.transport.H2FrameTap;
+import org.example.transport.ImpairmentProxy;
+import org.example.transport.NettyTransport;
+import org.example.tuning.TuningProfile;
 
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.example.tuning.TuningProfile.Knob.NETTY_CLIENT_FLOW_CONTROL_WINDOW;
+import static org.example.tuning.TuningProfile.Knob.NETTY_CLIENT_MAX_INBOUND_MESSAGE_SIZE;
+
+/**
+ * grpc-netty client over TCP, or over a Unix domain socket ({@link #unixSocket}) to take the
+ * TCP/IP path out of the comparison.
+ */
 public final class NettyThroughputClient implements ThroughputClient {
     private final String host;
     private final int port;
+    private final Path socket;
+    private final ClientOptions options;
 
     public NettyThroughputClient(String host, int port) {
+        this(host, port, ClientOptions.defaults());
+    }
+
+    public NettyThroughputClient(String host, int port, ClientOptions options) {
+        this(host, port, null, options);
+    }
+
+    private NettyThroughputClient(String host, int port, Path socket, ClientOptions options) {
         this.host = host;
         this.port = port;
+        this.socket = socket;
+        this.options = options;
+    }
+
+    /** Connects every channel to the Unix domain socket {@code socket}. */
+    public static NettyThroughputClient unixSocket(Path socket, ClientOptions options) {
+        if (options.h2Tap()) {
+            throw new IllegalArgumentException("--h2-tap needs a TCP target, not a Unix domain socket");
+        }
+        return new NettyThroughputClient(null, 0, socket, options);
     }
 
     @Override
-    public void run(long numMessages, int sizeBytes) throws Exception {
-        ManagedChannel channel = NettyChannelBuilder.forAddress(host, port)
-                .usePlaintext()
-                .flowControlWindow(32 * 1024 * 1024)
-                .maxInboundMessageSize(32 * 1024 * 1024)
-                .build();
+    public RunResult run(long numMessages, int sizeBytes) throws Exception {
+        List<ManagedChannel> channels = new ArrayList<>(options.channels());
+        NettyTransport transport = socket != null
+                ? NettyTransport.forDomainSocketClient(options.eventLoopThreads())
+                : NettyTransport.forClient(options.transport(), options.eventLoopThreads());
+        TuningProfile tuning = options.tuning();
+        H2FrameTap tap = options.h2Tap() ? new H2FrameTap() : null;
+        ImpairmentProxy proxy = tap != null ? ImpairmentProxy.tap(new InetSocketAddress(host, port), tap) : null;
         try {
-            ThroughputServiceGrpc.ThroughputServiceStub stub = ThroughputServiceGrpc.newStub(channel);
-            ClientRunner.run("netty", stub, numMessages, sizeBytes);
+            List<ThroughputServiceGrpc.ThroughputServiceStub> stubs = new ArrayList<>(options.channels());
+            for (int i = 0; i < options.channels(); i++) {
+                ManagedChannel channel = transport.configure(channelBuilder(proxy))
+                        .usePlaintext()
+                        .flowControlWindow(tuning.intValue(NETTY_CLIENT_FLOW_CONTROL_WINDOW))
+                        .maxInboundMessageSize(tuning.intValue(NETTY_CLIENT_MAX_INBOUND_MESSAGE_SIZE))
+                        .build();
+                channels.add(channel);
+                stubs.add(ThroughputServiceGrpc.newStub(channel));
+            }
+            return ClientRunner.run("netty", transport.active(), stubs, numMessages, sizeBytes, options, tap);
         } finally {
-            channel.shutdownNow();
+            channels.forEach(ManagedChannel::shutdownNow);
+            transport.close();
+            if (proxy != null) {
+                proxy.close();
+            }
+        }
+    }
+
+    private NettyChannelBuilder channelBuilder(ImpairmentProxy proxy) {
+        if (socket != null) {
+            // The socket path is not a valid :authority; any host name will do.
+            return NettyChannelBuilder.forAddress(NettyTransport.domainSocket(socket)).overrideAuthority("localhost");
         }
+        return proxy != null ? NettyChannelBuilder.forAddress("localhost", proxy.port())
+                : NettyChannelBuilder.forAddress(host, port);
     }
 }
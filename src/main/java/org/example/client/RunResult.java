@@ -0,0 +1,43 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.client;
+
+import org.example.common.LatencyHistogram;
+
+import java.util.List;
+
+/**
+ * Outcome of one client run, aggregated over every stream, plus the per-stream breakdown.
+ * {@code errorCode} is null when the run (or stream) completed cleanly. {@code offeredPerSec}
+ * is the open-loop target rate in msgs/s (0 for closed-loop) and {@code latency} holds the
+ * send → ack latency of every acknowledged message (from the intended send time when open-loop).
+ */
+public record RunResult(String impl, int payloadBytes, long attempted, long delivered, long acks,
+                        double seconds, String errorCode, List<StreamResult> streams,
+                        double offeredPerSec, LatencyHistogram latency) {
+
+    public double mbps() {
+        return mbps(delivered, payloadBytes, seconds);
+    }
+
+    public double p50Micros() {
+        return latency.valueAtPercentile(50) / 1_000.0;
+    }
+
+    public double p99Micros() {
+        return latency.valueAtPercentile(99) / 1_000.0;
+    }
+
+    public boolean ok() {
+        return errorCode == null;
+    }
+
+    /** One bidi stream: its own sequence space and in-flight window. */
+    public record StreamResult(int stream, int channel, long attempted, long delivered, long acks,
+                               double seconds, String errorCode) {
+    }
+
+    static double mbps(long delivered, int payloadBytes, double seconds) {
+        double totalBytes = delivered * (double) payloadBytes;
+        return seconds > 0 ? (totalBytes / (1024.0 * 1024.0)) / seconds : 0.0;
+    }
+}
@@ -1,7 +1,6 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.example.client;
 
-import com.google.protobuf.ByteString;
 import io.grpc.ManagedChannel;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 import io.grpc.stub.StreamObserver;
@@ -10,6 +9,9 @@ import io.helidon.webclient.api.WebClient;
 import io.helidon.webclient.grpc.GrpcClient;
 import io.helidon.webclient.grpc.GrpcClientProtocolConfig;
 import io.helidon.webclient.http2.Http2ClientProtocolConfig;
+import org.example.common.AsyncConsole;
+import org.example.payload.PayloadMode;
+import org.example.payload.PayloadSource;
 import org.example.throughput.Ack;
 import org.example.throughput.DataChunk;
 import org.example.throughput.ThroughputServiceGrpc;
@@ -36,19 +38,25 @@ public final class StallTestRunner {
     }
 
     /** Backward-compatible entry point — defaults to Helidon client. */
-    public static void run(String serverUrl, int numMessages, int payloadKB) throws InterruptedException {
-        run("helidon", serverUrl, numMessages, payloadKB);
+    public static int run(String serverUrl, int numMessages, int payloadKB) throws InterruptedException {
+        return run("helidon", serverUrl, numMessages, payloadKB);
     }
 
-    public static void run(String clientType, String serverUrl, int numMessages, int payloadKB)
+    public static int run(String clientType, String serverUrl, int numMessages, int payloadKB)
             throws InterruptedException {
+        return run(clientType, serverUrl, numMessages, payloadKB, PayloadMode.HEAP, "zeros");
+    }
+
+    /** Sends {@code numMessages} one at a time, prints STALL_RESULT and returns the number of stalls. */
+    public static int run(String clientType, String serverUrl, int numMessages, int payloadKB,
+                           PayloadMode payloadMode, String payloadSource) throws InterruptedException {
         int payloadBytes = payloadKB * 1024;
         int timeoutSecs = stallTimeoutSecs(payloadBytes);
-        ByteString payload = ByteString.copyFrom(new byte[payloadBytes]);
+        PayloadSource payload = PayloadSource.parse(payloadSource, payloadMode, payloadBytes);
 
-        System.out.printf("[StallTest] %d messages × %d KB → %s (client: %s)%n",
-                numMessages, payloadKB, serverUrl, clientType);
-        System.out.printf("  stall timeout: %ds (%.1f MB @ %.0f MB/s + %ds grace)%n",
+        AsyncConsole.printf("[StallTest] %d messages × %d KB → %s (client: %s, payload: %s)%n",
+                numMessages, payloadKB, serverUrl, clientType, payload.describe());
+        AsyncConsole.printf("  stall timeout: %ds (%.1f MB @ %.0f MB/s + %ds grace)%n",
                 timeoutSecs, payloadBytes / (1024.0 * 1024.0), ASSUMED_NETWORK_MB_PER_SEC, STALL_GRACE_SECS);
 
         int stalls;
@@ -59,12 +67,13 @@ public final class StallTestRunner {
         }
 
         int stallRate = numMessages == 0 ? 0 : (int) Math.round(100.0 * stalls / numMessages);
-        System.out.printf("STALL_RESULT stalls=%d total=%d payloadKB=%d stallRate=%d%n",
+        AsyncConsole.printf("STALL_RESULT stalls=%d total=%d payloadKB=%d stallRate=%d%n",
                 stalls, numMessages, payloadKB, stallRate);
-        System.out.flush();
+        AsyncConsole.flush();
+        return stalls;
     }
 
-    private static int runWithHelidonClient(String serverUrl, ByteString payload, int numMessages, int timeoutSecs)
+    private static int runWithHelidonClient(String serverUrl, PayloadSource payload, int numMessages, int timeoutSecs)
             throws InterruptedException {
         ThroughputServiceGrpc.ThroughputServiceStub stub = buildHelidonStub(serverUrl);
         int stalls = 0;
@@ -80,13 +89,12 @@ public final class StallTestRunner {
                 // streams on the same connection to also stall. A fresh connection resets the
                 // window and prevents cascade failures from inflating the stall count.
                 stub = buildHelidonStub(serverUrl);
-                System.out.printf("  [%d/%d] STALLED after %ds  — running: %d/%d stalled (%.0f%%)%n",
+                AsyncConsole.printf("  [%d/%d] STALLED after %ds  — running: %d/%d stalled (%.0f%%)%n",
                         i + 1, numMessages, elapsedMs / 1_000,
                         stalls, i + 1, 100.0 * stalls / (i + 1));
             } else {
-                System.out.printf("  [%d/%d] OK (%dms)%n", i + 1, numMessages, elapsedMs);
+                AsyncConsole.printf("  [%d/%d] OK (%dms)%n", i + 1, numMessages, elapsedMs);
             }
-            System.out.flush();
         }
         return stalls;
     }
@@ -108,7 +116,7 @@ public final class StallTestRunner {
         return ThroughputServiceGrpc.newStub(webClient.client(GrpcClient.PROTOCOL).channel());
     }
 
-    private static int runWithNettyClient(String serverUrl, ByteString payload, int numMessages, int timeoutSecs)
+    private static int runWithNettyClient(String serverUrl, PayloadSource payload, int numMessages, int timeoutSecs)
             throws InterruptedException {
         String hostPort = serverUrl.contains("://") ? serverUrl.substring(serverUrl.indexOf("://") + 3) : serverUrl;
         String[] parts = hostPort.split(":", 2);
@@ -132,7 +140,7 @@ public final class StallTestRunner {
 
     private static int measurementLoop(
             ThroughputServiceGrpc.ThroughputServiceStub stub,
-            ByteString payload,
+            PayloadSource payload,
             int numMessages,
             int timeoutSecs) throws InterruptedException {
         int stalls = 0;
@@ -143,20 +151,19 @@ public final class StallTestRunner {
 
             if (stalled) {
                 stalls++;
-                System.out.printf("  [%d/%d] STALLED after %ds  — running: %d/%d stalled (%.0f%%)%n",
+                AsyncConsole.printf("  [%d/%d] STALLED after %ds  — running: %d/%d stalled (%.0f%%)%n",
                         i + 1, numMessages, elapsedMs / 1_000,
                         stalls, i + 1, 100.0 * stalls / (i + 1));
             } else {
-                System.out.printf("  [%d/%d] OK (%dms)%n", i + 1, numMessages, elapsedMs);
+                AsyncConsole.printf("  [%d/%d] OK (%dms)%n", i + 1, numMessages, elapsedMs);
             }
-            System.out.flush();
         }
         return stalls;
     }
 
     private static boolean sendOneMessage(
             ThroughputServiceGrpc.ThroughputServiceStub stub,
-            ByteString payload,
+            PayloadSource payload,
             int seq,
             int timeoutSecs) throws InterruptedException {
         CountDownLatch done = new CountDownLatch(1);
@@ -183,7 +190,7 @@ public final class StallTestRunner {
             }
         });
 
-        requestObserver.onNext(DataChunk.newBuilder().setSeq(seq).setPayload(payload).build());
+        requestObserver.onNext(DataChunk.newBuilder().setSeq(seq).setPayload(payload.payload(seq)).build());
         requestObserver.onCompleted();
 
         boolean anySignal = done.await(timeoutSecs + 1, TimeUnit.SECONDS);
@@ -0,0 +1,158 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.client;
+
+import org.example.common.CostMeter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Steady-state measurement window of a run: it opens after the warm-up and closes after the
+ * measured duration (or when the run ends first). Sends and acks outside the window, and the
+ * latency of messages acked outside it, are left out of the run's statistics, so JIT
+ * compilation, TLAB sizing and connection setup do not leak into the reported rates.
+ *
+ * <p>A daemon thread samples the in-window ack counter once per second; the per-second message
+ * rates give the mean, standard deviation and coefficient of variation of the steady state.
+ */
+final class SteadyWindow {
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder acks = new LongAdder();
+    private final List<Double> perSecond = new ArrayList<>();
+    private final ScheduledExecutorService sampler;
+    private final long warmupNs;
+    private final long endNs;
+
+    private volatile boolean measuring;
+    private boolean closed;
+    private long openedNs;
+    private long closedNs;
+    private long lastSampleNs;
+    private long lastMessages;
+    private CostMeter cost;
+    private CostMeter.Cost measuredCost;
+
+    private SteadyWindow(Duration warmup, Duration duration) {
+        long now = System.nanoTime();
+        this.warmupNs = warmup.toNanos();
+        this.endNs = duration.isZero() ? Long.MAX_VALUE : now + warmupNs + duration.toNanos();
+        this.sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "steady-window");
+            t.setDaemon(true);
+            return t;
+        });
+        if (warmupNs == 0) {
+            open();
+        } else {
+            sampler.schedule(this::open, warmupNs, TimeUnit.NANOSECONDS);
+        }
+        if (!duration.isZero()) {
+            sampler.schedule(this::close, warmupNs + duration.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Starts the warm-up clock, or returns null when the run has neither warm-up nor duration and
+     * no results sink wants the per-second series (without them the window spans the whole run).
+     */
+    static SteadyWindow start(ClientOptions options) {
+        if (!options.timed() && options.results() == null) {
+            return null;
+        }
+        return new SteadyWindow(options.warmup(), options.duration());
+    }
+
+    /** Send deadline: warm-up plus duration, or {@link Long#MAX_VALUE} when the run is count-bound. */
+    long endNs() {
+        return endNs;
+    }
+
+    boolean measuring() {
+        return measuring;
+    }
+
+    void onSend() {
+        if (measuring) {
+            sent.increment();
+        }
+    }
+
+    void onAck(int covered) {
+        if (measuring) {
+            messages.add(covered);
+            acks.increment();
+        }
+    }
+
+    private synchronized void open() {
+        if (closed) {
+            return;
+        }
+        openedNs = System.nanoTime();
+        lastSampleNs = openedNs;
+        cost = CostMeter.start();
+        measuring = true;
+        sampler.scheduleAtFixedRate(this::sample, 1, 1, TimeUnit.SECONDS);
+    }
+
+    private synchronized void sample() {
+        if (!measuring) {
+            return;
+        }
+        long now = System.nanoTime();
+        long total = messages.sum();
+        perSecond.add((total - lastMessages) * 1e9 / (now - lastSampleNs));
+        lastMessages = total;
+        lastSampleNs = now;
+    }
+
+    /** Closes the window (idempotent); called on schedule or when the run ends first. */
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (measuring) {
+            measuring = false;
+            closedNs = System.nanoTime();
+            measuredCost = cost.stop();
+        }
+        sampler.shutdownNow();
+    }
+
+    /** True when the run ended before the warm-up did, so nothing was measured. */
+    synchronized boolean empty() {
+        return closedNs == 0;
+    }
+
+    synchronized double seconds() {
+        return (closedNs - openedNs) / 1_000_000_000.0;
+    }
+
+    long sent() {
+        return sent.sum();
+    }
+
+    long messages() {
+        return messages.sum();
+    }
+
+    long acks() {
+        return acks.sum();
+    }
+
+    synchronized CostMeter.Cost cost() {
+        return measuredCost;
+    }
+
+    /** Acked messages per second, one value per full second of the window. */
+    synchronized List<Double> perSecondRates() {
+        return List.copyOf(perSecond);
+    }
+}
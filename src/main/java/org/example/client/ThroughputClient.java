@@ -2,5 +2,6 @@
 package org.example.client;
 
 public interface ThroughputClient {
-    void run(long numMessages, int sizeBytes) throws Exception;
+    /** Sends {@code numMessages} of {@code sizeBytes} on every configured stream. */
+    RunResult run(long numMessages, int sizeBytes) throws Exception;
 }
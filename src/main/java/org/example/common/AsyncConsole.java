@@ -0,0 +1,186 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.common;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-writer console: producers put preformatted text into a bounded ring without taking a
+ * lock, and one daemon thread drains it in batches to {@link System#out}. A slow stdout (a
+ * terminal, or {@code kubectl logs} applying backpressure) then stalls only the writer thread,
+ * never a stream or reporter thread, and the {@code PrintStream} lock is taken once per batch
+ * instead of once per line.
+ *
+ * <p>Producers claim a slot with one CAS on the tail sequence and publish with an ordered store;
+ * the writer polls the head slot. When the ring is empty it flags itself idle and parks with no
+ * timeout, so an idle console costs no wakeups; a producer that sees the flag after publishing
+ * unparks it. A slot that is claimed but not yet published gets {@value #PUBLISH_SPINS} spins
+ * before the writer parks between polls. Per-second ticks use {@link #offer}, which drops the
+ * line when the ring is full (the writer reports the count); RESULT-style lines use
+ * {@link #print}/{@link #printf}, which wait for room, so nothing a test or script parses is ever
+ * lost. {@link #flush} waits until everything enqueued so far is on stdout; a shutdown hook
+ * flushes what is left at exit.
+ */
+public final class AsyncConsole {
+    private static final int CAPACITY = 1 << 13;
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_BATCH_CHARS = 64 * 1024;
+    private static final int PUBLISH_SPINS = 100;
+    private static final long PUBLISH_PARK_NANOS = 10_000;
+    private static final long SHUTDOWN_FLUSH_MS = 2_000;
+
+    private static final AtomicReferenceArray<String> SLOTS = new AtomicReferenceArray<>(CAPACITY);
+    private static final AtomicLong TAIL = new AtomicLong();
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final Thread WRITER;
+
+    /** Next sequence the writer consumes; written by the writer only. */
+    private static volatile long head;
+    /** Every sequence below this is on stdout. */
+    private static volatile long written;
+    /** Set by the writer just before it parks on an empty ring; producers then unpark it. */
+    private static volatile boolean idle;
+    /** Where the writer drains to; null means whatever {@link System#out} is at the time. */
+    private static volatile PrintStream target;
+
+    static {
+        WRITER = new Thread(AsyncConsole::drain, "async-console");
+        WRITER.setDaemon(true);
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(SHUTDOWN_FLUSH_MS), "async-console-flush"));
+    }
+
+    private AsyncConsole() {
+    }
+
+    /** Enqueues {@code text} as is (include the line terminator), waiting while the ring is full. */
+    public static void print(String text) {
+        while (!tryEnqueue(text)) {
+            LockSupport.unpark(WRITER);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+    }
+
+    public static void println(Object line) {
+        print(line + System.lineSeparator());
+    }
+
+    public static void printf(String format, Object... args) {
+        print(String.format(format, args));
+    }
+
+    public static void printf(Locale locale, String format, Object... args) {
+        print(String.format(locale, format, args));
+    }
+
+    /** Enqueues {@code text} unless the ring is full, in which case it is counted and dropped. */
+    public static boolean offer(String text) {
+        if (tryEnqueue(text)) {
+            return true;
+        }
+        DROPPED.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Drains to {@code out} instead of {@link System#out}; null goes back to stdout. Benchmarks
+     * point it at a null stream so they measure what a caller pays (formatting and the enqueue),
+     * not the terminal.
+     */
+    public static void redirect(PrintStream out) {
+        flush();
+        target = out;
+    }
+
+    /** Lines dropped by {@link #offer} so far. */
+    public static long dropped() {
+        return DROPPED.get();
+    }
+
+    /** Blocks until every line enqueued before the call has been written and stdout flushed. */
+    public static void flush() {
+        flush(Long.MAX_VALUE);
+    }
+
+    private static void flush(long timeoutMs) {
+        long target = TAIL.get();
+        long deadline = timeoutMs == Long.MAX_VALUE ? Long.MAX_VALUE
+                : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (written < target && System.nanoTime() < deadline) {
+            LockSupport.unpark(WRITER);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    private static boolean tryEnqueue(String text) {
+        while (true) {
+            long t = TAIL.get();
+            if (t - head >= CAPACITY) {
+                return false;
+            }
+            if (TAIL.compareAndSet(t, t + 1)) {
+                SLOTS.lazySet((int) (t & MASK), text);
+                if (idle) {
+                    LockSupport.unpark(WRITER);
+                }
+                return true;
+            }
+        }
+    }
+
+    private static void drain() {
+        StringBuilder batch = new StringBuilder(MAX_BATCH_CHARS);
+        long reportedDrops = 0;
+        int spins = 0;
+        while (true) {
+            long h = head;
+            int slot = (int) (h & MASK);
+            String text = SLOTS.get(slot);
+            if (text != null) {
+                spins = 0;
+                SLOTS.lazySet(slot, null);
+                head = h + 1;
+                batch.append(text);
+                if (batch.length() < MAX_BATCH_CHARS) {
+                    continue;
+                }
+            } else if (h != TAIL.get()) {
+                // Claimed but not yet published: the producer is between its CAS and its store.
+                // Spin briefly, then park, in case it was descheduled in between.
+                if (++spins < PUBLISH_SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(PUBLISH_PARK_NANOS);
+                }
+                continue;
+            }
+            long drops = DROPPED.get();
+            if (drops != reportedDrops) {
+                batch.append(String.format(Locale.ROOT, "⚠️  console full: %d tick line(s) dropped%n",
+                        drops - reportedDrops));
+                reportedDrops = drops;
+            }
+            if (!batch.isEmpty()) {
+                PrintStream t = target;
+                PrintStream out = t != null ? t : System.out;
+                out.print(batch);
+                out.flush();
+                batch.setLength(0);
+            }
+            written = head;
+            if (text == null) {
+                // Flag first, then re-check the tail: a producer either sees the flag and unparks,
+                // or its claim is seen here (both are volatile, so one of the two must happen).
+                idle = true;
+                if (head == TAIL.get()) {
+                    LockSupport.park();
+                }
+                idle = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.common;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Process-wide CPU, allocation and GC deltas over a measured section, so copy and allocation
+ * costs show up as numbers instead of guesses. Values are -1 when the JVM does not expose them.
+ * Concurrent sections (e.g. several server streams) each see the whole process.
+ */
+public final class CostMeter {
+    private final long cpuNs;
+    private final long allocatedBytes;
+    private final long gcCount;
+    private final long gcMillis;
+
+    private CostMeter() {
+        this.cpuNs = processCpuNs();
+        this.allocatedBytes = allocatedBytes();
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        this.gcCount = count;
+        this.gcMillis = millis;
+    }
+
+    public static CostMeter start() {
+        return new CostMeter();
+    }
+
+    /** Cost accrued since {@link #start()}. */
+    public Cost stop() {
+        CostMeter end = new CostMeter();
+        return new Cost(
+                cpuNs < 0 || end.cpuNs < 0 ? -1 : end.cpuNs - cpuNs,
+                allocatedBytes < 0 || end.allocatedBytes < 0 ? -1 : end.allocatedBytes - allocatedBytes,
+                end.gcCount - gcCount,
+                end.gcMillis - gcMillis);
+    }
+
+    /** CPU time, bytes allocated on the heap by all threads, and GC activity. */
+    public record Cost(long cpuNs, long allocatedBytes, long gcCount, long gcMillis) {
+
+        public double cpuMicrosPer(long messages) {
+            return cpuNs < 0 || messages <= 0 ? -1 : cpuNs / 1_000.0 / messages;
+        }
+
+        public double allocatedBytesPer(long messages) {
+            return allocatedBytes < 0 || messages <= 0 ? -1 : (double) allocatedBytes / messages;
+        }
+    }
+
+    private static long processCpuNs() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,139 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-memory log-linear latency histogram in nanoseconds, in the spirit of HdrHistogram.
+ * Values below {@value #SUB_BUCKETS} ns are exact; above that every power-of-two range is split
+ * into {@value #HALF} linear sub-buckets, so the relative error stays under 1/{@value #HALF}
+ * (~1.6 %). Values are clamped at 2^{@value #MAX_BITS} ns (~18 minutes).
+ *
+ * <p>{@link #record} is lock-free and allocation-free and may be called from any thread.
+ * Readers see a consistent-enough view for reporting; use {@link #copyInto}/{@link #subtract}
+ * to compute per-interval deltas without resetting the writers.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int HALF = SUB_BUCKETS >> 1;
+    private static final int MAX_BITS = 40;
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long valueNs) {
+        long v = Math.min(Math.max(0, valueNs), MAX_VALUE);
+        counts.incrementAndGet(index(v));
+        long m = max.get();
+        while (v > m && !max.compareAndSet(m, v)) {
+            m = max.get();
+        }
+    }
+
+    /** Adds every sample of {@code other} into this histogram (e.g. per-stream into per-run). */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    public long maxNs() {
+        return max.get();
+    }
+
+    /** Value at {@code percentile} (0–100), reported as the upper bound of its bucket. */
+    public long valueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        copyInto(snapshot);
+        return valueAtPercentile(snapshot, percentile);
+    }
+
+    /** Copies the raw bucket counts; {@code into} must have {@link #buckets()} slots. */
+    public void copyInto(long[] into) {
+        for (int i = 0; i < BUCKETS; i++) {
+            into[i] = counts.get(i);
+        }
+    }
+
+    public static int buckets() {
+        return BUCKETS;
+    }
+
+    /** {@code current[i] -= previous[i]} for every bucket; leaves the per-interval delta in current. */
+    public static void subtract(long[] current, long[] previous) {
+        for (int i = 0; i < BUCKETS; i++) {
+            current[i] -= previous[i];
+        }
+    }
+
+    /** {@code into[i] += delta[i]} for every bucket. */
+    public static void add(long[] into, long[] delta) {
+        for (int i = 0; i < BUCKETS; i++) {
+            into[i] += delta[i];
+        }
+    }
+
+    public static long valueAtPercentile(long[] buckets, double percentile) {
+        long total = 0;
+        for (long c : buckets) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return highestEquivalentValue(i);
+            }
+        }
+        return highestEquivalentValue(buckets.length - 1);
+    }
+
+    /** Largest recorded bucket bound in {@code buckets}, or 0 when empty. */
+    public static long max(long[] buckets) {
+        for (int i = buckets.length - 1; i >= 0; i--) {
+            if (buckets[i] > 0) {
+                return highestEquivalentValue(i);
+            }
+        }
+        return 0;
+    }
+
+    static int index(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        int shift = msb - (SUB_BITS - 1);
+        int sub = (int) (v >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF + (sub - HALF);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long sub = (index - SUB_BUCKETS) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
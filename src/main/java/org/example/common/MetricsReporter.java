@@ -0,0 +1,247 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.common;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide per-second reporter shared by every stream on the server and client side.
+ * One daemon thread samples all registered {@link StreamMetrics} once per second, so thread
+ * count and wakeups stay constant no matter how many streams are open.
+ *
+ * <p>Streams are grouped by {@code side/impl}. A group with a single stream prints the classic
+ * {@link Pretty#tick} line; larger groups print up to {@value #PER_STREAM_LINES_MAX} per-stream
+ * lines plus one aggregate line. Streams with a {@link StreamMetrics#latency latency histogram}
+ * also report per-interval p50/p99/max, computed from bucket deltas so writers are never reset.
+ */
+public final class MetricsReporter {
+    private static final MetricsReporter SHARED = new MetricsReporter();
+    private static final int PER_STREAM_LINES_MAX = 8;
+    private static final StreamMetrics[] NO_STREAMS = new StreamMetrics[0];
+
+    private final Object lock = new Object();
+    private Group[] groups = new Group[0];
+    private long nextStreamId;
+    private ScheduledExecutorService scheduler;
+
+    private MetricsReporter() {
+    }
+
+    public static MetricsReporter shared() {
+        return SHARED;
+    }
+
+    /** Registers a new stream and starts the shared reporter thread on first use. */
+    public StreamMetrics register(String side, String impl) {
+        synchronized (lock) {
+            Group group = groupFor(side, impl);
+            StreamMetrics m = new StreamMetrics(this, group, impl + "#" + nextStreamId++);
+            if (group.streams.length == 0) {
+                group.startedNs = m.startedNs;
+            }
+            group.streams = Arrays.copyOf(group.streams, group.streams.length + 1);
+            group.streams[group.streams.length - 1] = m;
+            if (scheduler == null) {
+                scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "metrics-reporter");
+                    t.setDaemon(true);
+                    return t;
+                });
+                scheduler.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+            }
+            return m;
+        }
+    }
+
+    void unregister(StreamMetrics m) {
+        synchronized (lock) {
+            Group group = m.group;
+            StreamMetrics[] streams = group.streams;
+            int idx = -1;
+            for (int i = 0; i < streams.length; i++) {
+                if (streams[i] == m) {
+                    idx = i;
+                    break;
+                }
+            }
+            if (idx < 0) {
+                return;
+            }
+            // Carry the unreported tail of the closed stream into the next aggregate line.
+            group.retiredBytes += m.totalBytes() - m.lastBytes;
+            group.retiredMessages += m.totalMessages() - m.lastMessages;
+            group.retiredAcks += m.totalAcks() - m.lastAcks;
+            if (sampleLatency(m)) {
+                group.retiredLatency(m.intervalLatency);
+            }
+            if (streams.length == 1) {
+                group.streams = NO_STREAMS;
+                return;
+            }
+            StreamMetrics[] next = new StreamMetrics[streams.length - 1];
+            System.arraycopy(streams, 0, next, 0, idx);
+            System.arraycopy(streams, idx + 1, next, idx, streams.length - idx - 1);
+            group.streams = next;
+        }
+    }
+
+    private Group groupFor(String side, String impl) {
+        for (Group g : groups) {
+            if (g.side.equals(side) && g.impl.equals(impl)) {
+                return g;
+            }
+        }
+        Group g = new Group(side, impl);
+        groups = Arrays.copyOf(groups, groups.length + 1);
+        groups[groups.length - 1] = g;
+        return g;
+    }
+
+    private void tick() {
+        synchronized (lock) {
+            long now = System.nanoTime();
+            for (Group g : groups) {
+                sample(g, now);
+            }
+        }
+    }
+
+    private static void sample(Group g, long now) {
+        StreamMetrics[] streams = g.streams;
+        double sec = (now - g.lastNs) / 1_000_000_000.0;
+        g.lastNs = now;
+        if (streams.length == 0) {
+            g.retiredBytes = 0;
+            g.retiredMessages = 0;
+            g.retiredAcks = 0;
+            g.hasRetiredLatency = false;
+            return;
+        }
+
+        long sumBytes = g.retiredBytes;
+        long sumMsgs = g.retiredMessages;
+        long sumAcks = g.retiredAcks;
+        g.retiredBytes = 0;
+        g.retiredMessages = 0;
+        g.retiredAcks = 0;
+        long[] sumLatency = null;
+        if (g.hasRetiredLatency) {
+            sumLatency = g.intervalLatency();
+            System.arraycopy(g.retiredLatency, 0, sumLatency, 0, sumLatency.length);
+            g.hasRetiredLatency = false;
+        }
+        for (StreamMetrics m : streams) {
+            long bytes = m.totalBytes();
+            long msgs = m.totalMessages();
+            long acks = m.totalAcks();
+            m.intervalBytes = bytes - m.lastBytes;
+            m.intervalMessages = msgs - m.lastMessages;
+            m.intervalAcks = acks - m.lastAcks;
+            m.lastBytes = bytes;
+            m.lastMessages = msgs;
+            m.lastAcks = acks;
+            sumBytes += m.intervalBytes;
+            sumMsgs += m.intervalMessages;
+            sumAcks += m.intervalAcks;
+            if (sampleLatency(m)) {
+                if (sumLatency == null) {
+                    sumLatency = g.intervalLatency();
+                    Arrays.fill(sumLatency, 0);
+                }
+                LatencyHistogram.add(sumLatency, m.intervalLatency);
+            }
+        }
+
+        if (streams.length == 1) {
+            StreamMetrics m = streams[0];
+            Pretty.tick(g.side, g.impl, (now - m.startedNs) / 1_000_000_000L,
+                    mbps(m.intervalBytes, sec), rate(m.intervalAcks, sec),
+                    m.intervalMessages, mb(m.intervalBytes), m.windowBytes(), m.ackQueueDepth(),
+                    m.intervalLatency);
+            return;
+        }
+        long maxAckQueue = -1;
+        for (StreamMetrics m : streams) {
+            long depth = m.ackQueueDepth();
+            maxAckQueue = Math.max(maxAckQueue, depth);
+            if (streams.length <= PER_STREAM_LINES_MAX) {
+                Pretty.tick(g.side, m.label, (now - m.startedNs) / 1_000_000_000L,
+                        mbps(m.intervalBytes, sec), rate(m.intervalAcks, sec),
+                        m.intervalMessages, mb(m.intervalBytes), m.windowBytes(), depth, m.intervalLatency);
+            }
+        }
+        Pretty.aggregateTick(g.side, g.impl, (now - g.startedNs) / 1_000_000_000L,
+                mbps(sumBytes, sec), rate(sumAcks, sec), sumMsgs, mb(sumBytes), streams.length, maxAckQueue,
+                sumLatency);
+    }
+
+    /**
+     * Moves the latency buckets recorded since the last sample into {@code m.intervalLatency}.
+     * Returns false when the stream has no histogram.
+     */
+    private static boolean sampleLatency(StreamMetrics m) {
+        LatencyHistogram h = m.latency();
+        if (h == null) {
+            return false;
+        }
+        if (m.lastLatency == null) {
+            m.lastLatency = new long[LatencyHistogram.buckets()];
+            m.intervalLatency = new long[LatencyHistogram.buckets()];
+        }
+        h.copyInto(m.intervalLatency);
+        LatencyHistogram.subtract(m.intervalLatency, m.lastLatency);
+        LatencyHistogram.add(m.lastLatency, m.intervalLatency);
+        return true;
+    }
+
+    private static double mbps(long bytes, double sec) {
+        return sec > 0 ? mb(bytes) / sec : 0.0;
+    }
+
+    private static double rate(long count, double sec) {
+        return sec > 0 ? count / sec : 0.0;
+    }
+
+    private static double mb(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+
+    static final class Group {
+        final String side;
+        final String impl;
+        StreamMetrics[] streams = NO_STREAMS;
+        long startedNs;
+        long lastNs = System.nanoTime();
+        long retiredBytes;
+        long retiredMessages;
+        long retiredAcks;
+        long[] retiredLatency;
+        long[] intervalLatency;
+        boolean hasRetiredLatency;
+
+        Group(String side, String impl) {
+            this.side = side;
+            this.impl = impl;
+        }
+
+        long[] intervalLatency() {
+            if (intervalLatency == null) {
+                intervalLatency = new long[LatencyHistogram.buckets()];
+            }
+            return intervalLatency;
+        }
+
+        void retiredLatency(long[] tail) {
+            if (retiredLatency == null) {
+                retiredLatency = new long[LatencyHistogram.buckets()];
+            }
+            if (!hasRetiredLatency) {
+                Arrays.fill(retiredLatency, 0);
+                hasRetiredLatency = true;
+            }
+            LatencyHistogram.add(retiredLatency, tail);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.example.common;
 
+import org.example.results.RunRecord;
+import org.example.transport.H2FrameTap;
+
+import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -19,39 +23,262 @@ public final class Pretty {
         long last = LAST_HEADER_MS.get();
         if (last == 0 || now - last >= HEADER_EVERY_MS) {
             if (LAST_HEADER_MS.compareAndSet(last, now)) {
-                System.out.println("  side  impl     t(+s) |   MB/s");
-                System.out.println("--------------------------------");
+                AsyncConsole.offer(String.format("  side  impl     t(+s) |   MB/s    acks/s%n"
+                        + "------------------------------------------%n"));
             }
         }
     }
 
+    /**
+     * Per-stream line; {@code windowBytes} is the client in-flight window and {@code ackQueue}
+     * the server's peak pending-ack depth, each negative when n/a. {@code latencyBuckets} holds
+     * this interval's {@link LatencyHistogram} bucket deltas, or null.
+     */
     public static void tick(String side, String impl, long elapsedSec, double mbPerSec,
-                            long msgs, double mbThisInterval) {
+                            double acksPerSec, long msgs, double mbThisInterval, long windowBytes,
+                            long ackQueue, long[] latencyBuckets) {
+        headerIfNeeded();
+        String win = windowBytes < 0 ? ""
+                : String.format(Locale.ROOT, ", win %.2f MB", windowBytes / (1024.0 * 1024.0));
+        AsyncConsole.offer(String.format(Locale.ROOT, " %6s %-7s %7d | %7.2f %9.0f   (%d msgs, %.2f MB%s%s%s)%n",
+                side, impl, elapsedSec, mbPerSec, acksPerSec, msgs, mbThisInterval, win,
+                ackQueueSuffix(ackQueue), latencySuffix(latencyBuckets)));
+    }
+
+    /** Aggregate line for a group of concurrent streams sharing one side/impl. */
+    public static void aggregateTick(String side, String impl, long elapsedSec, double mbPerSec,
+                                     double acksPerSec, long msgs, double mbThisInterval, int streams,
+                                     long maxAckQueue, long[] latencyBuckets) {
         headerIfNeeded();
-        System.out.printf(Locale.ROOT, " %6s %-7s %7d | %7.2f   (%d msgs, %.2f MB)%n",
-                side, impl, elapsedSec, mbPerSec, msgs, mbThisInterval);
+        AsyncConsole.offer(String.format(Locale.ROOT,
+                " %6s %-7s %7d | %7.2f %9.0f   (%d msgs, %.2f MB, %d streams%s%s)%n",
+                side, impl + "*", elapsedSec, mbPerSec, acksPerSec, msgs, mbThisInterval, streams,
+                ackQueueSuffix(maxAckQueue), latencySuffix(latencyBuckets)));
+    }
+
+    private static String ackQueueSuffix(long ackQueue) {
+        return ackQueue < 0 ? "" : ", ackq " + ackQueue;
     }
 
-    public static void resultLine(long delivered, long attempted, int payloadBytes,
+    private static String latencySuffix(long[] buckets) {
+        if (buckets == null || LatencyHistogram.max(buckets) == 0) {
+            return "";
+        }
+        return String.format(Locale.ROOT, ", p50 %.2f p99 %.2f max %.2f ms",
+                LatencyHistogram.valueAtPercentile(buckets, 50) / 1e6,
+                LatencyHistogram.valueAtPercentile(buckets, 99) / 1e6,
+                LatencyHistogram.max(buckets) / 1e6);
+    }
+
+    public static void resultLine(long delivered, long attempted, int payloadBytes, long acks,
                                   double seconds, String errorCode) {
+        resultLine(delivered, attempted, payloadBytes, acks, seconds, errorCode, 0, null, null);
+    }
+
+    /**
+     * RESULT line; send → ack latency keys are appended when {@code latency} is non-null,
+     * {@code offeredPerSec} when the run was open-loop ({@code > 0}), per-message CPU/allocation
+     * cost when {@code cost} is non-null, and finally every {@code key=value} tag as given.
+     */
+    public static void resultLine(long delivered, long attempted, int payloadBytes, long acks,
+                                  double seconds, String errorCode, double offeredPerSec,
+                                  LatencyHistogram latency, CostMeter.Cost cost, String... tags) {
         long totalBytes = delivered * (long) payloadBytes;
         double mbps = seconds > 0 ? (totalBytes / (1024.0 * 1024.0)) / seconds : 0.0;
-        System.out.printf(Locale.ROOT,
-                "RESULT mbps=%.3f delivered=%d attempted=%d payloadBytes=%d duration=%.3f error=%s%n",
+        double acksPerSec = seconds > 0 ? acks / seconds : 0.0;
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "RESULT mbps=%.3f delivered=%d attempted=%d payloadBytes=%d duration=%.3f error=%s"
+                        + " acks=%d acksPerSec=%.1f",
                 mbps, delivered, attempted, payloadBytes, seconds,
+                errorCode != null ? errorCode : "OK", acks, acksPerSec));
+        if (latency != null) {
+            long[] buckets = new long[LatencyHistogram.buckets()];
+            latency.copyInto(buckets);
+            sb.append(String.format(Locale.ROOT, " p50Us=%.1f p99Us=%.1f p999Us=%.1f maxUs=%.1f",
+                    micros(LatencyHistogram.valueAtPercentile(buckets, 50)),
+                    micros(LatencyHistogram.valueAtPercentile(buckets, 99)),
+                    micros(LatencyHistogram.valueAtPercentile(buckets, 99.9)),
+                    micros(latency.maxNs())));
+        }
+        if (offeredPerSec > 0) {
+            sb.append(String.format(Locale.ROOT, " offeredPerSec=%.1f", offeredPerSec));
+        }
+        if (cost != null) {
+            sb.append(String.format(Locale.ROOT, " cpuUsPerMsg=%.2f allocBytesPerMsg=%.0f gcCount=%d gcMs=%d",
+                    cost.cpuMicrosPer(delivered), cost.allocatedBytesPer(delivered),
+                    cost.gcCount(), cost.gcMillis()));
+        }
+        for (String tag : tags) {
+            sb.append(' ').append(tag);
+        }
+        AsyncConsole.println(sb);
+    }
+
+    /**
+     * RESULT line of a client run, as a view over its {@link RunRecord}; same keys as the
+     * histogram-based overload, with {@code tags} appended as given.
+     */
+    public static void resultLine(RunRecord record, String... tags) {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "RESULT mbps=%.3f delivered=%d attempted=%d payloadBytes=%d duration=%.3f error=%s"
+                        + " acks=%d acksPerSec=%.1f",
+                record.mbps(), record.delivered(), record.attempted(), record.payloadBytes(), record.seconds(),
+                record.error() != null ? record.error() : "OK", record.acks(), record.acksPerSec()));
+        RunRecord.Latency latency = record.latency();
+        sb.append(String.format(Locale.ROOT, " p50Us=%.1f p99Us=%.1f p999Us=%.1f maxUs=%.1f",
+                latency.p50Us(), latency.p99Us(), latency.p999Us(), latency.maxUs()));
+        if (record.offeredPerSec() > 0) {
+            sb.append(String.format(Locale.ROOT, " offeredPerSec=%.1f", record.offeredPerSec()));
+        }
+        RunRecord.Cost cost = record.cost();
+        sb.append(String.format(Locale.ROOT, " cpuUsPerMsg=%.2f allocBytesPerMsg=%.0f gcCount=%d gcMs=%d",
+                cost.cpuUsPerMsg(), cost.allocBytesPerMsg(), cost.gcCount(), cost.gcMs()));
+        for (String tag : tags) {
+            sb.append(' ').append(tag);
+        }
+        AsyncConsole.println(sb);
+    }
+
+    /**
+     * Server-side line for a persisted stream: durable MB/s (every chunk counted was fsynced
+     * before the stream completed) and the fsync latencies observed during the stream.
+     */
+    public static void durableResultLine(String impl, long chunks, long bytes, double seconds,
+                                         long[] fsyncBuckets, int fsyncEvery, long fsyncIntervalMs) {
+        double mbps = seconds > 0 ? (bytes / (1024.0 * 1024.0)) / seconds : 0.0;
+        long fsyncs = 0;
+        for (long c : fsyncBuckets) {
+            fsyncs += c;
+        }
+        AsyncConsole.printf(Locale.ROOT,
+                "DURABLE_RESULT impl=%s durableMbps=%.3f chunks=%d bytes=%d duration=%.3f fsyncs=%d"
+                        + " fsyncP50Us=%.1f fsyncP99Us=%.1f fsyncP999Us=%.1f fsyncMaxUs=%.1f fsyncEvery=%d fsyncIntervalMs=%d%n",
+                impl, mbps, chunks, bytes, seconds, fsyncs,
+                micros(LatencyHistogram.valueAtPercentile(fsyncBuckets, 50)),
+                micros(LatencyHistogram.valueAtPercentile(fsyncBuckets, 99)),
+                micros(LatencyHistogram.valueAtPercentile(fsyncBuckets, 99.9)),
+                micros(LatencyHistogram.max(fsyncBuckets)), fsyncEvery, fsyncIntervalMs);
+    }
+
+    /**
+     * Client-side spread of the steady-state window: mean, standard deviation and coefficient of
+     * variation of the per-second throughput, from acked messages per second.
+     */
+    public static void steadyResultLine(String impl, int payloadBytes, double warmupSeconds, double seconds,
+                                        List<Double> perSecondMsgs) {
+        int n = perSecondMsgs.size();
+        double mean = 0;
+        double min = n > 0 ? Double.MAX_VALUE : 0;
+        double max = 0;
+        for (double r : perSecondMsgs) {
+            mean += r;
+            min = Math.min(min, r);
+            max = Math.max(max, r);
+        }
+        mean = n > 0 ? mean / n : 0;
+        double var = 0;
+        for (double r : perSecondMsgs) {
+            var += (r - mean) * (r - mean);
+        }
+        double stddev = n > 1 ? Math.sqrt(var / (n - 1)) : 0;
+        double toMb = payloadBytes / (1024.0 * 1024.0);
+        AsyncConsole.printf(Locale.ROOT,
+                "STEADY_RESULT impl=%s warmup=%.1f duration=%.3f samples=%d meanMbps=%.3f stddevMbps=%.3f cv=%.4f"
+                        + " minMbps=%.3f maxMbps=%.3f meanMsgsPerSec=%.1f%n",
+                impl, warmupSeconds, seconds, n, mean * toMb, stddev * toMb, mean > 0 ? stddev / mean : 0,
+                min * toMb, max * toMb, mean);
+    }
+
+    /** Server-side line for a stream processed by a digest-style handler. */
+    public static void handlerResultLine(String impl, String handler, long chunks, String value) {
+        AsyncConsole.printf(Locale.ROOT, "HANDLER_RESULT impl=%s handler=%s chunks=%d value=%s%n",
+                impl, handler, chunks, value);
+    }
+
+    /**
+     * HTTP/2 framing and flow-control counters of one tapped connection ({@code conn=0} for the
+     * run total); {@code up*} keys cover client → server DATA and the WINDOW_UPDATEs crediting it,
+     * {@code down*} the reverse.
+     */
+    public static void h2ResultLine(String impl, H2FrameTap.ConnectionReport r) {
+        AsyncConsole.println(String.format(Locale.ROOT,
+                "H2_RESULT impl=%s conn=%s h2=%s streams=%d rstStreams=%d goaways=%d goawayError=%d",
+                impl, r.id() == 0 ? "total" : String.valueOf(r.id()), r.h2(), r.streams(), r.rstStreams(),
+                r.goaways(), r.goawayError()) + h2Direction("up", r.up()) + h2Direction("down", r.down()));
+    }
+
+    private static String h2Direction(String prefix, H2FrameTap.DirectionStats d) {
+        return String.format(Locale.ROOT,
+                " %1$sDataFrames=%2$d %1$sDataBytes=%3$d %1$sDataP50=%4$d %1$sDataMax=%5$d %1$sWindowUpdates=%6$d"
+                        + " %1$sWuIncrementBytes=%7$d %1$sWuGapMeanMs=%8$.1f %1$sWuGapMaxMs=%9$.1f"
+                        + " %1$sConnZeroWindowMs=%10$.1f %1$sStreamZeroWindowMs=%11$.1f %1$sMinConnWindow=%12$d",
+                prefix, d.dataFrames(), d.dataBytes(), d.dataSizeP50(), d.dataSizeMax(), d.windowUpdates(),
+                d.windowIncrementBytes(), d.wuGapMeanMs(), d.wuGapMaxMs(), d.connZeroWindowMs(),
+                d.streamZeroWindowMs(), d.minConnWindow());
+    }
+
+    /** Per-stream breakdown of a tapped connection, printed before its H2_RESULT line. */
+    public static void h2StreamLine(long conn, H2FrameTap.StreamReport s) {
+        AsyncConsole.printf(Locale.ROOT,
+                "H2_STREAM conn=%d id=%d upBytes=%d upFrames=%d upZeroWindowMs=%.1f minUpWindow=%d"
+                        + " downBytes=%d downFrames=%d downZeroWindowMs=%.1f minDownWindow=%d reset=%s%n",
+                conn, s.id(), s.upBytes(), s.upFrames(), s.upZeroWindowMs(), s.minUpWindow(),
+                s.downBytes(), s.downFrames(), s.downZeroWindowMs(), s.minDownWindow(), s.reset());
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+
+    /** Per-stream breakdown line printed after a multi-stream run, before the aggregate RESULT line. */
+    public static void streamLine(int stream, int channel, long delivered, long attempted, int payloadBytes,
+                                  double seconds, String errorCode) {
+        long totalBytes = delivered * (long) payloadBytes;
+        double mbps = seconds > 0 ? (totalBytes / (1024.0 * 1024.0)) / seconds : 0.0;
+        AsyncConsole.printf(Locale.ROOT,
+                "STREAM id=%d channel=%d mbps=%.3f delivered=%d attempted=%d duration=%.3f error=%s%n",
+                stream, channel, mbps, delivered, attempted, seconds,
                 errorCode != null ? errorCode : "OK");
     }
 
     public static void summary(String side, String impl, long messages, long sizeBytes,
-                               long totalBytes, double seconds) {
+                               long totalBytes, long acks, double seconds) {
+        summary(side, impl, messages, sizeBytes, totalBytes, acks, seconds, null, null);
+    }
+
+    /**
+     * Run summary; adds a latency line (send → ack) when {@code latency} is non-null and a
+     * per-message CPU/allocation line when {@code cost} is non-null.
+     */
+    public static void summary(String side, String impl, long messages, long sizeBytes,
+                               long totalBytes, long acks, double seconds, LatencyHistogram latency,
+                               CostMeter.Cost cost) {
         double mbps = seconds > 0 ? (totalBytes / (1024.0 * 1024.0)) / seconds : 0.0;
+        double acksPerSec = seconds > 0 ? acks / seconds : 0.0;
         String line = "══════════════════════════════════════════════════════════════";
-        System.out.println(line);
-        System.out.printf(Locale.ROOT, " SUMMARY  %s / %s%n", side, impl);
-        System.out.printf(Locale.ROOT, "   messages     : %,d%n", messages);
-        System.out.printf(Locale.ROOT, "   message size : %,d bytes%n", sizeBytes);
-        System.out.printf(Locale.ROOT, "   total time   : %.3f s%n", seconds);
-        System.out.printf(Locale.ROOT, "   throughput   : %.2f MB/s%n", mbps);
-        System.out.println(line);
+        StringBuilder sb = new StringBuilder();
+        sb.append(line).append(System.lineSeparator());
+        sb.append(String.format(Locale.ROOT, " SUMMARY  %s / %s%n", side, impl));
+        sb.append(String.format(Locale.ROOT, "   messages     : %,d%n", messages));
+        sb.append(String.format(Locale.ROOT, "   message size : %,d bytes%n", sizeBytes));
+        sb.append(String.format(Locale.ROOT, "   total time   : %.3f s%n", seconds));
+        sb.append(String.format(Locale.ROOT, "   throughput   : %.2f MB/s%n", mbps));
+        sb.append(String.format(Locale.ROOT, "   acks         : %,d (%.0f acks/s)%n", acks, acksPerSec));
+        if (latency != null && latency.count() > 0) {
+            long[] buckets = new long[LatencyHistogram.buckets()];
+            latency.copyInto(buckets);
+            sb.append(String.format(Locale.ROOT, "   latency (ms) : p50 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n",
+                    LatencyHistogram.valueAtPercentile(buckets, 50) / 1e6,
+                    LatencyHistogram.valueAtPercentile(buckets, 99) / 1e6,
+                    LatencyHistogram.valueAtPercentile(buckets, 99.9) / 1e6,
+                    latency.maxNs() / 1e6));
+        }
+        if (cost != null) {
+            sb.append(String.format(Locale.ROOT,
+                    "   cost / msg   : %.1f µs cpu, %,.0f B alloc (gc %d × %d ms, process-wide)%n",
+                    cost.cpuMicrosPer(messages), cost.allocatedBytesPer(messages), cost.gcCount(), cost.gcMillis()));
+        }
+        sb.append(line).append(System.lineSeparator());
+        AsyncConsole.print(sb.toString());
     }
 }
@@ -0,0 +1,111 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.common;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Striped byte/message counters for one live stream, sampled by {@link MetricsReporter}.
+ * Writers only touch the {@link LongAdder}s; the {@code last*} snapshot fields belong to the
+ * reporter thread and are read/written under the reporter lock.
+ */
+public final class StreamMetrics implements AutoCloseable {
+    private final MetricsReporter reporter;
+    final MetricsReporter.Group group;
+    final String label;
+    final long startedNs;
+
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder acks = new LongAdder();
+    private volatile LongSupplier windowGauge;
+    private volatile LatencyHistogram latency;
+    private volatile LongSupplier ackQueueGauge;
+
+    // Reporter-thread snapshot state.
+    long lastBytes;
+    long lastMessages;
+    long lastAcks;
+    long intervalBytes;
+    long intervalMessages;
+    long intervalAcks;
+    long[] lastLatency;
+    long[] intervalLatency;
+
+    StreamMetrics(MetricsReporter reporter, MetricsReporter.Group group, String label) {
+        this.reporter = reporter;
+        this.group = group;
+        this.label = label;
+        this.startedNs = System.nanoTime();
+    }
+
+    /** Records one message of {@code sizeBytes}. Safe to call from any thread. */
+    public void record(long sizeBytes) {
+        bytes.add(sizeBytes);
+        messages.increment();
+    }
+
+    /** Records {@code count} messages totalling {@code totalBytes} (e.g. one cumulative ack). */
+    public void record(long totalBytes, long count) {
+        bytes.add(totalBytes);
+        messages.add(count);
+    }
+
+    /** Records one ack frame sent (server) or received (client). */
+    public void recordAck() {
+        acks.increment();
+    }
+
+    /** Attaches a gauge for the stream's current in-flight window, reported on every tick. */
+    public void windowGauge(LongSupplier gauge) {
+        this.windowGauge = gauge;
+    }
+
+    /** Current window in bytes, or -1 when the stream has no window gauge. */
+    long windowBytes() {
+        LongSupplier gauge = windowGauge;
+        return gauge != null ? gauge.getAsLong() : -1;
+    }
+
+    /**
+     * Attaches a gauge for the server's pending-ack depth. It is read once per tick and should
+     * return the peak since its previous read.
+     */
+    public void ackQueueGauge(LongSupplier gauge) {
+        this.ackQueueGauge = gauge;
+    }
+
+    /** Peak pending-ack depth since the last tick, or -1 when the stream has no ack-queue gauge. */
+    long ackQueueDepth() {
+        LongSupplier gauge = ackQueueGauge;
+        return gauge != null ? gauge.getAsLong() : -1;
+    }
+
+    /** Attaches the stream's send → ack latency histogram; the reporter prints per-interval percentiles. */
+    public void latency(LatencyHistogram histogram) {
+        this.latency = histogram;
+    }
+
+    /** The attached latency histogram, or null. */
+    LatencyHistogram latency() {
+        return latency;
+    }
+
+    public long totalBytes() {
+        return bytes.sum();
+    }
+
+    public long totalMessages() {
+        return messages.sum();
+    }
+
+    public long totalAcks() {
+        return acks.sum();
+    }
+
+    /** Removes this stream from the reporter; idempotent. */
+    @Override
+    public void close() {
+        reporter.unregister(this);
+    }
+}
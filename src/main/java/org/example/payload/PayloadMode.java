@@ -0,0 +1,12 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.payload;
+
+/** Where the bytes behind a benchmark payload {@code ByteString} live. */
+public enum PayloadMode {
+    /** {@code ByteString.copyFrom(new byte[size])}: a heap array, copied once at construction. */
+    HEAP,
+    /** A pooled direct {@code ByteBuffer} wrapped without copying. */
+    DIRECT,
+    /** A memory-mapped region of an anonymous temp file, wrapped without copying. */
+    MMAP
+}
@@ -0,0 +1,62 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.payload;
+
+import com.google.protobuf.ByteString;
+
+import java.util.Locale;
+
+/**
+ * Supplies the payload for each message. Every source precomputes a fixed pool of immutable
+ * blocks up front and {@link #payload(long) rotates} through them by sequence number, so the
+ * send loop does no generation, allocation, or shared-state updates.
+ *
+ * <p>Specs accepted by {@link #parse}:
+ * <ul>
+ *   <li>{@code zeros} — one all-zero block (the original behaviour);</li>
+ *   <li>{@code random} — incompressible random blocks;</li>
+ *   <li>{@code entropy:<bits>} — random symbols from a {@code 2^bits} alphabet, 0–8 bits per byte;</li>
+ *   <li>{@code file:<path>} — consecutive blocks of a recorded file, memory-mapped.</li>
+ * </ul>
+ */
+public interface PayloadSource {
+
+    /** The block for message {@code seq}; blocks repeat every {@link #blocks()} messages. */
+    ByteString payload(long seq);
+
+    /** Number of distinct blocks in the pool. */
+    int blocks();
+
+    /** Short spec-like label for RESULT lines, e.g. {@code entropy:4}. */
+    String describe();
+
+    static PayloadSource parse(String spec, PayloadMode mode, int sizeBytes) {
+        String kind = spec;
+        String arg = null;
+        int colon = spec.indexOf(':');
+        if (colon >= 0) {
+            kind = spec.substring(0, colon);
+            arg = spec.substring(colon + 1);
+        }
+        return switch (kind.toLowerCase(Locale.ROOT)) {
+            case "zeros" -> new PooledPayloadSource("zeros", new ByteString[] {Payloads.create(mode, sizeBytes)});
+            case "random" -> PooledPayloadSource.generated("random", mode, sizeBytes, 8);
+            case "entropy" -> {
+                if (arg == null) {
+                    throw new IllegalArgumentException("entropy needs bits per byte, e.g. entropy:4");
+                }
+                int bits = Integer.parseInt(arg);
+                if (bits < 0 || bits > 8) {
+                    throw new IllegalArgumentException("entropy bits must be 0..8: " + bits);
+                }
+                yield PooledPayloadSource.generated("entropy:" + bits, mode, sizeBytes, bits);
+            }
+            case "file" -> {
+                if (arg == null || arg.isEmpty()) {
+                    throw new IllegalArgumentException("file needs a path, e.g. file:/data/blocks.bin");
+                }
+                yield PooledPayloadSource.replay(arg, sizeBytes);
+            }
+            default -> throw new IllegalArgumentException("Unknown payload source: " + spec);
+        };
+    }
+}
@@ -0,0 +1,69 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.payload;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the immutable payload {@link ByteString}s every stream of a run shares.
+ *
+ * <p>{@link PayloadMode#DIRECT} and {@link PayloadMode#MMAP} wrap off-heap memory with
+ * {@link UnsafeByteOperations#unsafeWrap(ByteBuffer)}, so no 4–8 MB heap array is allocated or
+ * copied. All-zero payloads are pooled per size for the life of the JVM: the matrix tests run
+ * the same sizes over and over, and nothing ever writes to a buffer once it has been wrapped.
+ */
+public final class Payloads {
+    private static final Map<Integer, ByteString> DIRECT_POOL = new ConcurrentHashMap<>();
+    private static final Map<Integer, ByteString> MMAP_POOL = new ConcurrentHashMap<>();
+
+    private Payloads() {
+    }
+
+    /** An all-zero payload of {@code sizeBytes}. */
+    public static ByteString create(PayloadMode mode, int sizeBytes) {
+        return switch (mode) {
+            case HEAP -> ByteString.copyFrom(new byte[sizeBytes]);
+            case DIRECT -> DIRECT_POOL.computeIfAbsent(sizeBytes, n -> wrap(ByteBuffer.allocateDirect(n)));
+            case MMAP -> MMAP_POOL.computeIfAbsent(sizeBytes, n -> wrap(map(n)));
+        };
+    }
+
+    /**
+     * Moves generated {@code content} into memory of the given mode. HEAP wraps the array itself,
+     * so the caller must not touch it afterwards.
+     */
+    static ByteString store(PayloadMode mode, byte[] content) {
+        return switch (mode) {
+            case HEAP -> UnsafeByteOperations.unsafeWrap(content);
+            case DIRECT -> wrap(ByteBuffer.allocateDirect(content.length).put(content).flip());
+            case MMAP -> wrap(map(content.length).put(content).flip());
+        };
+    }
+
+    private static ByteString wrap(ByteBuffer buffer) {
+        return UnsafeByteOperations.unsafeWrap(buffer.asReadOnlyBuffer());
+    }
+
+    private static ByteBuffer map(int sizeBytes) {
+        try {
+            Path file = Files.createTempFile("payload-", ".bin");
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE)) {
+                // The mapping stays valid after the channel is closed and the file unlinked.
+                return ch.map(FileChannel.MapMode.READ_WRITE, 0, sizeBytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map a " + sizeBytes + " byte payload", e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.payload;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * {@link PayloadSource} over a precomputed array of blocks; {@code payload(seq)} is one array load.
+ */
+final class PooledPayloadSource implements PayloadSource {
+    /** Generated pools stop at this many bytes (or {@link #MAX_GENERATED_BLOCKS}), whichever is smaller. */
+    private static final long GENERATED_POOL_BYTES = 64L * 1024 * 1024;
+    private static final int MAX_GENERATED_BLOCKS = 64;
+    private static final int MAX_REPLAY_BLOCKS = 1 << 16;
+    private static final long SEED = 0x5EED_B10CL;
+
+    private final String label;
+    private final ByteString[] blocks;
+
+    PooledPayloadSource(String label, ByteString[] blocks) {
+        this.label = label;
+        this.blocks = blocks;
+    }
+
+    @Override
+    public ByteString payload(long seq) {
+        return blocks[(int) Math.floorMod(seq, (long) blocks.length)];
+    }
+
+    @Override
+    public int blocks() {
+        return blocks.length;
+    }
+
+    @Override
+    public String describe() {
+        return label;
+    }
+
+    /**
+     * Blocks of random symbols drawn from a {@code 2^bits} alphabet: 8 bits is incompressible,
+     * 0 is all zeros, and compressors get roughly {@code bits / 8} of the original size in between.
+     * The seed is fixed so runs are comparable.
+     */
+    static PooledPayloadSource generated(String label, PayloadMode mode, int sizeBytes, int bits) {
+        int count = (int) Math.max(2, Math.min(MAX_GENERATED_BLOCKS, GENERATED_POOL_BYTES / Math.max(1, sizeBytes)));
+        SplittableRandom random = new SplittableRandom(SEED);
+        int mask = (1 << bits) - 1;
+        ByteString[] blocks = new ByteString[count];
+        for (int b = 0; b < count; b++) {
+            byte[] content = new byte[sizeBytes];
+            random.nextBytes(content);
+            if (bits < 8) {
+                for (int i = 0; i < content.length; i++) {
+                    content[i] &= (byte) mask;
+                }
+            }
+            blocks[b] = Payloads.store(mode, content);
+        }
+        return new PooledPayloadSource(label, blocks);
+    }
+
+    /**
+     * Consecutive {@code sizeBytes} blocks of {@code path}, mapped read-only and wrapped without
+     * copying (the payload mode does not apply). A trailing partial block is dropped; a file shorter
+     * than one block is repeated into a single block.
+     *
+     * <p>Each mapped segment is {@link MappedByteBuffer#load() loaded} before the source is
+     * returned, so the first pass over the file does not take page faults and disk reads inside
+     * the send loop.
+     */
+    static PooledPayloadSource replay(String path, int sizeBytes) {
+        try (FileChannel ch = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            long fileBytes = ch.size();
+            if (fileBytes == 0) {
+                throw new IllegalArgumentException("Replay file is empty: " + path);
+            }
+            String label = "file:" + Path.of(path).getFileName();
+            if (fileBytes < sizeBytes) {
+                ByteBuffer whole = ch.map(FileChannel.MapMode.READ_ONLY, 0, fileBytes);
+                byte[] content = new byte[sizeBytes];
+                for (int off = 0; off < sizeBytes; off += (int) fileBytes) {
+                    whole.get(0, content, off, (int) Math.min(fileBytes, sizeBytes - off));
+                }
+                return new PooledPayloadSource(label, new ByteString[] {UnsafeByteOperations.unsafeWrap(content)});
+            }
+            long count = Math.min(MAX_REPLAY_BLOCKS, fileBytes / sizeBytes);
+            // Map whole blocks in segments below the 2 GB MappedByteBuffer limit and slice them.
+            long blocksPerSegment = Math.max(1, Integer.MAX_VALUE / sizeBytes);
+            List<ByteString> blocks = new ArrayList<>((int) count);
+            for (long first = 0; first < count; first += blocksPerSegment) {
+                long n = Math.min(blocksPerSegment, count - first);
+                MappedByteBuffer segment = ch.map(FileChannel.MapMode.READ_ONLY, first * sizeBytes, n * sizeBytes);
+                segment.load();
+                for (int i = 0; i < n; i++) {
+                    blocks.add(UnsafeByteOperations.unsafeWrap(segment.slice(i * sizeBytes, sizeBytes)));
+                }
+            }
+            return new PooledPayloadSource(label, blocks.toArray(new ByteString[0]));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map replay file " + path, e);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.results;
+
+import org.example.common.CostMeter;
+import org.example.common.LatencyHistogram;
+import org.example.transport.H2FrameTap;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structured outcome of one client run: what ran, on which JVM and host, with which settings, and
+ * what it measured. {@link RunRecordWriter} appends records as JSON Lines or CSV; the console
+ * RESULT line ({@link org.example.common.Pretty#resultLine(RunRecord)}) is a view of the same
+ * record.
+ *
+ * <p>{@code config} holds the client and tuning settings as flat {@code key → value} strings.
+ * {@code seriesMbps} is the per-second throughput of the measured window (empty when no window
+ * was sampled); {@code steady} summarizes it. {@code h2} totals the HTTP/2 framing and
+ * flow-control counters over all channels when the run was tapped ({@code --h2-tap}), and
+ * is all zeros otherwise, so CSV columns stay the same either way.
+ */
+public record RunRecord(Instant timestamp, String impl, String transport, int payloadBytes,
+                        long attempted, long delivered, long acks, double seconds, String error,
+                        double offeredPerSec, Latency latency, Cost cost, Steady steady,
+                        List<Double> seriesMbps, Map<String, String> config, Environment environment,
+                        H2FrameTap.ConnectionReport h2) {
+
+    public RunRecord {
+        seriesMbps = List.copyOf(seriesMbps);
+        config = Collections.unmodifiableMap(new LinkedHashMap<>(config));
+    }
+
+    public double mbps() {
+        return seconds > 0 ? delivered * (double) payloadBytes / (1024.0 * 1024.0) / seconds : 0.0;
+    }
+
+    public double acksPerSec() {
+        return seconds > 0 ? acks / seconds : 0.0;
+    }
+
+    /** Send → ack latency percentiles in microseconds. */
+    public record Latency(long count, double p50Us, double p90Us, double p99Us, double p999Us, double maxUs) {
+
+        public static Latency of(LatencyHistogram histogram) {
+            long[] buckets = new long[LatencyHistogram.buckets()];
+            histogram.copyInto(buckets);
+            return new Latency(histogram.count(),
+                    LatencyHistogram.valueAtPercentile(buckets, 50) / 1_000.0,
+                    LatencyHistogram.valueAtPercentile(buckets, 90) / 1_000.0,
+                    LatencyHistogram.valueAtPercentile(buckets, 99) / 1_000.0,
+                    LatencyHistogram.valueAtPercentile(buckets, 99.9) / 1_000.0,
+                    histogram.maxNs() / 1_000.0);
+        }
+    }
+
+    /** Per-message CPU and allocation cost plus GC activity over the measured section (-1 = unknown). */
+    public record Cost(double cpuUsPerMsg, double allocBytesPerMsg, long gcCount, long gcMs) {
+
+        public static Cost of(CostMeter.Cost cost, long messages) {
+            return new Cost(cost.cpuMicrosPer(messages), cost.allocatedBytesPer(messages),
+                    cost.gcCount(), cost.gcMillis());
+        }
+    }
+
+    /** Spread of the per-second throughput series; {@code cv} is stddev / mean. */
+    public record Steady(double warmupSeconds, int samples, double meanMbps, double stddevMbps, double cv,
+                         double minMbps, double maxMbps) {
+
+        public static Steady of(double warmupSeconds, List<Double> seriesMbps) {
+            int n = seriesMbps.size();
+            double mean = 0;
+            double min = n > 0 ? Double.MAX_VALUE : 0;
+            double max = 0;
+            for (double r : seriesMbps) {
+                mean += r;
+                min = Math.min(min, r);
+                max = Math.max(max, r);
+            }
+            mean = n > 0 ? mean / n : 0;
+            double var = 0;
+            for (double r : seriesMbps) {
+                var += (r - mean) * (r - mean);
+            }
+            double stddev = n > 1 ? Math.sqrt(var / (n - 1)) : 0;
+            return new Steady(warmupSeconds, n, mean, stddev, mean > 0 ? stddev / mean : 0, min, max);
+        }
+    }
+
+    /** Where the run executed. */
+    public record Environment(String host, String javaVersion, String vm, int cpus, long maxHeapBytes,
+                              List<String> gcs) {
+
+        public static Environment current() {
+            List<String> gcs = new ArrayList<>();
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcs.add(gc.getName());
+            }
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                host = "unknown";
+            }
+            return new Environment(host, System.getProperty("java.version"),
+                    System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version"),
+                    Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory(), List.copyOf(gcs));
+        }
+    }
+
+    /**
+     * The record as nested, ordered fields: scalars, lists and maps only. JSON writes it as is;
+     * CSV flattens nested keys with dots.
+     */
+    public Map<String, Object> fields() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("timestamp", timestamp.toString());
+        m.put("impl", impl);
+        m.put("transport", transport);
+        m.put("payloadBytes", payloadBytes);
+        m.put("attempted", attempted);
+        m.put("delivered", delivered);
+        m.put("acks", acks);
+        m.put("seconds", seconds);
+        m.put("mbps", mbps());
+        m.put("acksPerSec", acksPerSec());
+        m.put("error", error == null ? "OK" : error);
+        m.put("offeredPerSec", offeredPerSec);
+        Map<String, Object> lat = new LinkedHashMap<>();
+        lat.put("count", latency.count());
+        lat.put("p50Us", latency.p50Us());
+        lat.put("p90Us", latency.p90Us());
+        lat.put("p99Us", latency.p99Us());
+        lat.put("p999Us", latency.p999Us());
+        lat.put("maxUs", latency.maxUs());
+        m.put("latency", lat);
+        Map<String, Object> c = new LinkedHashMap<>();
+        c.put("cpuUsPerMsg", cost.cpuUsPerMsg());
+        c.put("allocBytesPerMsg", cost.allocBytesPerMsg());
+        c.put("gcCount", cost.gcCount());
+        c.put("gcMs", cost.gcMs());
+        m.put("cost", c);
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("warmupSeconds", steady.warmupSeconds());
+        s.put("samples", steady.samples());
+        s.put("meanMbps", steady.meanMbps());
+        s.put("stddevMbps", steady.stddevMbps());
+        s.put("cv", steady.cv());
+        s.put("minMbps", steady.minMbps());
+        s.put("maxMbps", steady.maxMbps());
+        m.put("steady", s);
+        m.put("seriesMbps", seriesMbps);
+        m.put("config", config);
+        Map<String, Object> env = new LinkedHashMap<>();
+        env.put("host", environment.host());
+        env.put("javaVersion", environment.javaVersion());
+        env.put("vm", environment.vm());
+        env.put("cpus", environment.cpus());
+        env.put("maxHeapBytes", environment.maxHeapBytes());
+        env.put("gcs", environment.gcs());
+        m.put("env", env);
+        Map<String, Object> h = new LinkedHashMap<>();
+        h.put("tapped", h2.h2());
+        h.put("streams", h2.streams());
+        h.put("rstStreams", h2.rstStreams());
+        h.put("goaways", h2.goaways());
+        h.put("goawayError", h2.goawayError());
+        h.put("up", direction(h2.up()));
+        h.put("down", direction(h2.down()));
+        m.put("h2", h);
+        return m;
+    }
+
+    private static Map<String, Object> direction(H2FrameTap.DirectionStats d) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("dataFrames", d.dataFrames());
+        m.put("dataBytes", d.dataBytes());
+        m.put("dataSizeMin", d.dataSizeMin());
+        m.put("dataSizeP50", d.dataSizeP50());
+        m.put("dataSizeP90", d.dataSizeP90());
+        m.put("dataSizeMax", d.dataSizeMax());
+        m.put("windowUpdates", d.windowUpdates());
+        m.put("connWindowUpdates", d.connWindowUpdates());
+        m.put("windowIncrementBytes", d.windowIncrementBytes());
+        m.put("wuGapMeanMs", d.wuGapMeanMs());
+        m.put("wuGapMaxMs", d.wuGapMaxMs());
+        m.put("connZeroWindowMs", d.connZeroWindowMs());
+        m.put("streamZeroWindowMs", d.streamZeroWindowMs());
+        m.put("minConnWindow", d.minConnWindow());
+        return m;
+    }
+}
@@ -0,0 +1,176 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.results;
+
+import org.example.common.AsyncConsole;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Appends {@link RunRecord}s to a file, or to stdout for target {@code -}, as JSON Lines (one
+ * object per line) or CSV (dotted column names, list values joined with {@code ;}, header written
+ * only when the file is new or empty). The format is {@code jsonl} or {@code csv}; when null it
+ * follows the file extension and defaults to JSON Lines.
+ */
+public final class RunRecordWriter {
+    private static final Object LOCK = new Object();
+
+    public enum Format { JSONL, CSV }
+
+    private final String target;
+    private final Format format;
+
+    private RunRecordWriter(String target, Format format) {
+        this.target = target;
+        this.format = format;
+    }
+
+    public static RunRecordWriter open(String target, String format) {
+        Format f;
+        if (format != null) {
+            f = Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } else {
+            f = target.toLowerCase(Locale.ROOT).endsWith(".csv") ? Format.CSV : Format.JSONL;
+        }
+        return new RunRecordWriter(target, f);
+    }
+
+    /** Appends one record; concurrent runs in one JVM append whole lines. */
+    public void append(RunRecord record) {
+        synchronized (LOCK) {
+            appendLocked(record);
+        }
+    }
+
+    private void appendLocked(RunRecord record) {
+        Map<String, Object> fields = record.fields();
+        if (format == Format.JSONL) {
+            write(List.of(json(fields)));
+            return;
+        }
+        Map<String, Object> flat = new LinkedHashMap<>();
+        flatten("", fields, flat);
+        List<String> lines = new ArrayList<>(2);
+        if (needsHeader()) {
+            StringJoiner header = new StringJoiner(",");
+            flat.keySet().forEach(k -> header.add(csv(k)));
+            lines.add(header.toString());
+        }
+        StringJoiner row = new StringJoiner(",");
+        flat.values().forEach(v -> row.add(csv(scalar(v))));
+        lines.add(row.toString());
+        write(lines);
+    }
+
+    private boolean needsHeader() {
+        if ("-".equals(target)) {
+            return true;
+        }
+        try {
+            Path path = Path.of(target);
+            return !Files.exists(path) || Files.size(path) == 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(List<String> lines) {
+        if ("-".equals(target)) {
+            lines.forEach(AsyncConsole::println);
+            return;
+        }
+        try {
+            Files.write(Path.of(target), lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append results to " + target, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void flatten(String prefix, Map<String, ?> fields, Map<String, Object> out) {
+        for (Map.Entry<String, ?> e : fields.entrySet()) {
+            String key = prefix + e.getKey();
+            if (e.getValue() instanceof Map<?, ?> nested) {
+                flatten(key + ".", (Map<String, ?>) nested, out);
+            } else {
+                out.put(key, e.getValue());
+            }
+        }
+    }
+
+    private static String scalar(Object v) {
+        if (v instanceof List<?> list) {
+            StringJoiner joined = new StringJoiner(";");
+            list.forEach(item -> joined.add(scalar(item)));
+            return joined.toString();
+        }
+        if (v instanceof Double d) {
+            return Double.isFinite(d) ? Double.toString(d) : "";
+        }
+        return String.valueOf(v);
+    }
+
+    private static String csv(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    static String json(Object v) {
+        if (v == null) {
+            return "null";
+        }
+        if (v instanceof Map<?, ?> map) {
+            StringJoiner obj = new StringJoiner(",", "{", "}");
+            map.forEach((k, val) -> obj.add(quote(String.valueOf(k)) + ":" + json(val)));
+            return obj.toString();
+        }
+        if (v instanceof List<?> list) {
+            StringJoiner arr = new StringJoiner(",", "[", "]");
+            list.forEach(item -> arr.add(json(item)));
+            return arr.toString();
+        }
+        if (v instanceof Double d) {
+            // Shortest round-tripping form: sub-millisecond latencies and tiny cvs keep their digits.
+            return Double.isFinite(d) ? Double.toString(d) : "null";
+        }
+        if (v instanceof Number || v instanceof Boolean) {
+            return String.valueOf(v);
+        }
+        return quote(String.valueOf(v));
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
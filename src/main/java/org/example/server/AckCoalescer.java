@@ -0,0 +1,313 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server;
+
+import com.google.protobuf.ByteString;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.example.common.StreamMetrics;
+import org.example.throughput.Ack;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the ack side of one stream. In per-chunk mode every chunk is acked immediately;
+ * otherwise a single cumulative ack (seq = highest seq, count = chunks covered) is sent when
+ * {@code ackEvery} chunks are pending, when the oldest pending chunk is {@code ackIntervalMicros}
+ * old, or — with {@code ackOnDrain} — as soon as the transport reports it is ready again.
+ *
+ * <p>With {@link ServerOptions#flowControl()} the stream also paces its own input: automatic
+ * inbound requests are disabled, {@code inboundWindow} chunks are requested up front, and each
+ * processed chunk requests the next one only while the ack path is ready. Requests owed while
+ * the transport is backed up are issued from the on-ready handler, so a client that reads acks
+ * slowly stalls its own sends instead of growing server buffers.
+ *
+ * <p>{@link #drainMaxDepth()} reports the pending-ack depth: chunks not yet acked plus acks
+ * written while the transport was not ready.
+ *
+ * <p>State is guarded by the monitor, but {@code out} and {@code request} are never called while
+ * it is held: the in-process transport can re-enter (e.g. the on-ready handler) from inside
+ * them. Observer calls are queued under the monitor and run afterwards, in order and by one
+ * thread at a time, since the transport thread and the flush timer both write to {@code out}
+ * and gRPC observers must not be called concurrently.
+ */
+final class AckCoalescer {
+    private final StreamObserver<Ack> out;
+    private final ServerCallStreamObserver<Ack> callObserver;
+    private final StreamMetrics metrics;
+    private final boolean coalesce;
+    private final int every;
+    private final long intervalNs;
+    private final boolean onDrain;
+    private final boolean flowControl;
+
+    private long pending;
+    private long owedRequests;
+    private long queuedAcks;
+    private long maxDepth;
+    private long pendingSeq;
+    private long firstPendingNs;
+    private boolean timerArmed;
+    private boolean closed;
+    private final ArrayDeque<Runnable> outbox = new ArrayDeque<>();
+    private boolean emitting;
+
+    AckCoalescer(StreamObserver<Ack> out, ServerOptions options, StreamMetrics metrics) {
+        this.out = out;
+        this.callObserver = out instanceof ServerCallStreamObserver<Ack> sco ? sco : null;
+        this.metrics = metrics;
+        this.coalesce = options.coalesceAcks();
+        this.every = options.ackEvery();
+        this.intervalNs = TimeUnit.MICROSECONDS.toNanos(options.ackIntervalMicros());
+        this.onDrain = options.ackOnDrain() && callObserver != null;
+        this.flowControl = options.flowControl() && callObserver != null;
+        // Both must be configured before stream() returns; gRPC freezes the observer afterwards.
+        if (onDrain || flowControl) {
+            callObserver.setOnReadyHandler(this::onReady);
+        }
+        if (flowControl) {
+            callObserver.disableAutoRequest();
+            callObserver.request(options.inboundWindow());
+        }
+        if (callObserver != null) {
+            metrics.ackQueueGauge(this::drainMaxDepth);
+        }
+    }
+
+    void onChunk(long seq) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (!coalesce) {
+                queue(Ack.newBuilder().setSeq(seq).setOk(true).build());
+            } else {
+                if (pending++ == 0) {
+                    firstPendingNs = System.nanoTime();
+                }
+                pendingSeq = seq;
+                if (pending >= every) {
+                    flushLocked();
+                } else {
+                    armTimer();
+                }
+                maxDepth = Math.max(maxDepth, pending + queuedAcks);
+            }
+            requestNext();
+        }
+        emit();
+    }
+
+    /**
+     * Acks {@code seq} individually with its payload echoed back. Pending cumulative acks are
+     * flushed first so acks stay in seq order.
+     */
+    void onEcho(long seq, ByteString payload) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (pending > 0) {
+                send();
+            }
+            queue(Ack.newBuilder().setSeq(seq).setOk(true).setPayload(payload).build());
+            requestNext();
+        }
+        emit();
+    }
+
+    /**
+     * Accounts for a fragment that did not complete its block: nothing is acked, but with flow
+     * control the next message is requested, since the block cannot complete without it.
+     */
+    void onFragment() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            requestNext();
+        }
+        emit();
+    }
+
+    private void requestNext() {
+        if (flowControl) {
+            if (callObserver.isReady()) {
+                outbox.add(() -> callObserver.request(1));
+            } else {
+                owedRequests++;
+            }
+        }
+    }
+
+    /** Peak pending-ack depth since the previous call; read by the metrics reporter once per tick. */
+    synchronized long drainMaxDepth() {
+        long depth = pending + queuedAcks;
+        long peak = Math.max(maxDepth, depth);
+        maxDepth = depth;
+        return peak;
+    }
+
+    private void onReady() {
+        synchronized (this) {
+            queuedAcks = 0;
+            if (onDrain) {
+                flushLocked();
+            }
+            if (flowControl && owedRequests > 0 && !closed) {
+                int n = (int) Math.min(Integer.MAX_VALUE, owedRequests);
+                owedRequests -= n;
+                outbox.add(() -> callObserver.request(n));
+            }
+        }
+        emit();
+    }
+
+    /** Sends the pending cumulative ack unless the transport is backed up in on-drain mode. */
+    void flush() {
+        synchronized (this) {
+            flushLocked();
+        }
+        emit();
+    }
+
+    private void flushLocked() {
+        if (closed || pending == 0) {
+            return;
+        }
+        if (onDrain && !callObserver.isReady()) {
+            return;
+        }
+        send();
+    }
+
+    /** Flushes whatever is pending regardless of transport readiness and completes the stream. */
+    void complete() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (pending > 0) {
+                send();
+            }
+            closed = true;
+            outbox.add(out::onCompleted);
+        }
+        emit();
+    }
+
+    synchronized void cancel() {
+        closed = true;
+    }
+
+    /** Ends the stream with {@code error} instead of completing it; later chunks are ignored. */
+    void fail(Throwable error) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            outbox.add(() -> out.onError(error));
+        }
+        emit();
+    }
+
+    private void send() {
+        queue(Ack.newBuilder()
+                .setSeq(pendingSeq)
+                .setOk(true)
+                .setCount((int) pending)
+                .build());
+        pending = 0;
+    }
+
+    private void queue(Ack ack) {
+        metrics.recordAck();
+        outbox.add(() -> {
+            out.onNext(ack);
+            trackQueued();
+        });
+    }
+
+    /**
+     * Runs the queued observer calls outside the monitor. Only one thread drains at a time; a
+     * call queued meanwhile, including one from a re-entrant handler, is run by that thread.
+     */
+    private void emit() {
+        synchronized (this) {
+            if (emitting) {
+                return;
+            }
+            emitting = true;
+        }
+        while (true) {
+            Runnable call;
+            synchronized (this) {
+                call = outbox.poll();
+                if (call == null) {
+                    emitting = false;
+                    return;
+                }
+            }
+            try {
+                call.run();
+            } catch (RuntimeException e) {
+                // The call is gone (e.g. cancelled); nothing queued behind it can be delivered.
+                synchronized (this) {
+                    closed = true;
+                    outbox.clear();
+                    emitting = false;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /** Counts an ack that went out while the transport was above its ready threshold. */
+    private void trackQueued() {
+        if (callObserver != null && !callObserver.isReady()) {
+            synchronized (this) {
+                queuedAcks++;
+                maxDepth = Math.max(maxDepth, pending + queuedAcks);
+            }
+        }
+    }
+
+    private void armTimer() {
+        if (timerArmed || intervalNs <= 0) {
+            return;
+        }
+        if (onDrain && !callObserver.isReady()) {
+            return; // the on-ready handler flushes once the transport drains
+        }
+        timerArmed = true;
+        long delay = intervalNs - (System.nanoTime() - firstPendingNs);
+        Timer.INSTANCE.schedule(this::onTimer, Math.max(0, delay), TimeUnit.NANOSECONDS);
+    }
+
+    private void onTimer() {
+        synchronized (this) {
+            timerArmed = false;
+            if (closed || pending == 0) {
+                return;
+            }
+            if (System.nanoTime() - firstPendingNs >= intervalNs) {
+                flushLocked();
+            } else {
+                armTimer();
+            }
+        }
+        emit();
+    }
+
+    /** Lazily started daemon thread shared by every coalescing stream. */
+    private static final class Timer {
+        static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ack-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
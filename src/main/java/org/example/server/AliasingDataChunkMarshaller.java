@@ -0,0 +1,142 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.Detachable;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.HasByteBuffer;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import org.example.throughput.DataChunk;
+import org.example.throughput.ThroughputServiceGrpc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Inbound {@link DataChunk} marshaller that parses straight out of the transport's buffers.
+ *
+ * <p>When the transport hands over a {@link Detachable} stream that exposes its
+ * {@link HasByteBuffer buffers} (grpc-netty does), the stream is detached, its buffers are
+ * wrapped with {@link UnsafeByteOperations} and parsed with aliasing enabled, so
+ * {@code chunk.getPayload()} is a view of the received frames instead of a fresh 4–8 MB heap
+ * copy. The detached buffers are released by {@link #releaseInterceptor()} right after the
+ * listener's {@code onMessage} returns, so a payload must not be retained past {@code onNext}.
+ * Any other stream (e.g. Helidon's) falls back to the regular protobuf parser.
+ *
+ * <p>Outbound copies are unaffected: grpc-java's framer always copies the serialized message
+ * into transport buffers, whatever backs the payload.
+ */
+final class AliasingDataChunkMarshaller implements MethodDescriptor.Marshaller<DataChunk> {
+    private static final AliasingDataChunkMarshaller INSTANCE = new AliasingDataChunkMarshaller();
+    private static final MethodDescriptor.Marshaller<DataChunk> FALLBACK =
+            ProtoUtils.marshaller(DataChunk.getDefaultInstance());
+    private static final ThreadLocal<InputStream> PENDING_RELEASE = new ThreadLocal<>();
+
+    private AliasingDataChunkMarshaller() {
+    }
+
+    /** Binds {@code service} with this marshaller on the Stream method and the release hook. */
+    static ServerServiceDefinition bind(ThroughputServiceImpl service) {
+        ServerServiceDefinition original = service.bindService();
+        ServerServiceDefinition.Builder b = ServerServiceDefinition.builder(original.getServiceDescriptor().getName());
+        for (ServerMethodDefinition<?, ?> method : original.getMethods()) {
+            b.addMethod(rebind(method));
+        }
+        return ServerInterceptors.intercept(b.build(), releaseInterceptor());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <ReqT, RespT> ServerMethodDefinition<?, ?> rebind(ServerMethodDefinition<ReqT, RespT> method) {
+        MethodDescriptor<ReqT, RespT> desc = method.getMethodDescriptor();
+        if (!desc.getFullMethodName().equals(ThroughputServiceGrpc.getStreamMethod().getFullMethodName())) {
+            return method;
+        }
+        MethodDescriptor<DataChunk, RespT> aliasing = desc.toBuilder(INSTANCE, desc.getResponseMarshaller()).build();
+        return ServerMethodDefinition.create(aliasing, (ServerCallHandler<DataChunk, RespT>) method.getServerCallHandler());
+    }
+
+    @Override
+    public InputStream stream(DataChunk value) {
+        return FALLBACK.stream(value);
+    }
+
+    @Override
+    public DataChunk parse(InputStream stream) {
+        if (!(stream instanceof Detachable detachable)
+                || !(stream instanceof HasByteBuffer hb)
+                || !hb.byteBufferSupported()) {
+            return FALLBACK.parse(stream);
+        }
+        release();
+        InputStream detached = detachable.detach();
+        PENDING_RELEASE.set(detached);
+        try {
+            ByteString frames = ByteString.EMPTY;
+            while (detached.available() > 0) {
+                ByteBuffer buf = ((HasByteBuffer) detached).getByteBuffer();
+                if (buf == null) {
+                    // Mixed buffer types: copy the remainder rather than fail.
+                    frames = frames.concat(ByteString.readFrom(detached));
+                    break;
+                }
+                int n = buf.remaining();
+                frames = frames.concat(UnsafeByteOperations.unsafeWrap(buf));
+                detached.skip(n);
+            }
+            CodedInputStream in = frames.newCodedInput();
+            in.enableAliasing(true);
+            in.setSizeLimit(Integer.MAX_VALUE);
+            return DataChunk.parseFrom(in);
+        } catch (IOException e) {
+            release();
+            throw Status.INTERNAL.withDescription("Invalid DataChunk").withCause(e).asRuntimeException();
+        }
+    }
+
+    /** Frees the buffers detached by the last {@link #parse} on this thread, if any. */
+    static void release() {
+        InputStream pending = PENDING_RELEASE.get();
+        if (pending != null) {
+            PENDING_RELEASE.remove();
+            try {
+                pending.close();
+            } catch (IOException ignored) {
+                // Closing a detached gRPC buffer stream only releases reference counts.
+            }
+        }
+    }
+
+    /** grpc-java parses a request on the thread that then delivers it to {@code onMessage}. */
+    static ServerInterceptor releaseInterceptor() {
+        return new ServerInterceptor() {
+            @Override
+            public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                         Metadata headers,
+                                                                         ServerCallHandler<ReqT, RespT> next) {
+                return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(
+                        next.startCall(call, headers)) {
+                    @Override
+                    public void onMessage(ReqT message) {
+                        try {
+                            super.onMessage(message);
+                        } finally {
+                            release();
+                        }
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,159 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server;
+
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.Status;
+import org.example.throughput.DataChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rebuilds the logical blocks of one stream from their fragments (client {@code --fragment-kb}).
+ *
+ * <p>Fragments of a block arrive in order on one stream, so reassembly is a copy into a buffer
+ * taken from a server-wide {@link Pool} when the first fragment arrives; its size is bounded
+ * by {@code fragments × first fragment size}. The completed block is a {@link DataChunk} whose
+ * payload aliases that buffer: the caller hands it to the handler, inline or on a worker, and
+ * returns the buffer with {@link Block#release()} once the handler's {@code onChunk} has
+ * returned, since handlers do not retain payloads.
+ *
+ * <p>Not thread-safe; one instance per stream, called from {@code onNext}.
+ */
+final class FragmentReassembler {
+    /** Largest block the server reassembles; guards against a bogus fragment count. */
+    static final long MAX_BLOCK_BYTES = 256L * 1024 * 1024;
+
+    private final Pool pool;
+    private byte[] buffer;
+    private int capacity;
+    private int filled;
+    private long seq;
+    private int next;
+    private int fragments;
+
+    FragmentReassembler(Pool pool) {
+        this.pool = pool;
+    }
+
+    /** True when {@code chunk} is one fragment of a larger block. */
+    static boolean isFragment(DataChunk chunk) {
+        return chunk.getFragments() > 1;
+    }
+
+    /**
+     * Appends {@code fragment}; returns the reassembled block after its last fragment, else null.
+     * A fragment out of order, or a block over {@link #MAX_BLOCK_BYTES}, fails the stream.
+     */
+    Block accept(DataChunk fragment) {
+        int index = fragment.getFragment();
+        if (index == 0) {
+            if (buffer != null) {
+                throw invalid("block " + seq + " ended after " + next + " of " + fragments + " fragments");
+            }
+            long capacity = (long) fragment.getFragments() * fragment.getPayload().size();
+            if (capacity > MAX_BLOCK_BYTES) {
+                throw Status.RESOURCE_EXHAUSTED
+                        .withDescription("block of up to " + capacity + " bytes exceeds " + MAX_BLOCK_BYTES)
+                        .asRuntimeException();
+            }
+            this.capacity = (int) capacity;
+            buffer = pool.take(this.capacity);
+            filled = 0;
+            seq = fragment.getSeq();
+            next = 0;
+            fragments = fragment.getFragments();
+        } else if (buffer == null || fragment.getSeq() != seq || index != next
+                || fragment.getFragments() != fragments) {
+            throw invalid("fragment " + index + "/" + fragment.getFragments() + " of block " + fragment.getSeq()
+                    + " out of order");
+        }
+        int size = fragment.getPayload().size();
+        if (filled + size > capacity) {
+            throw invalid("fragment " + index + " of block " + seq + " overflows the block");
+        }
+        fragment.getPayload().copyTo(buffer, filled);
+        filled += size;
+        if (++next < fragments) {
+            return null;
+        }
+        DataChunk block = DataChunk.newBuilder()
+                .setSeq(seq)
+                .setPayload(UnsafeByteOperations.unsafeWrap(buffer, 0, filled))
+                .build();
+        Block done = new Block(block, buffer, pool);
+        buffer = null;
+        return done;
+    }
+
+    /** Returns a half-built block's buffer when the stream ends early. */
+    void abandon() {
+        if (buffer != null) {
+            pool.give(buffer);
+            buffer = null;
+        }
+    }
+
+    private static RuntimeException invalid(String description) {
+        return Status.INVALID_ARGUMENT.withDescription(description).asRuntimeException();
+    }
+
+    /** A reassembled block and the pooled buffer its payload aliases. */
+    record Block(DataChunk chunk, byte[] buffer, Pool pool) {
+        /** Returns the buffer to the pool; the chunk's payload must no longer be read. */
+        void release() {
+            pool.give(buffer);
+        }
+    }
+
+    /**
+     * Reassembly buffers shared by every stream of a server, in power-of-two size classes from
+     * 1 KB to 1 GB: a request is served from its own class (rounded up), so streams with
+     * different block sizes reuse their own buffers instead of evicting each other's. Idle
+     * buffers are kept up to {@code maxIdleBytes} in total.
+     */
+    static final class Pool {
+        private static final int MIN_SHIFT = 10;
+        private static final int MAX_SHIFT = 30;
+
+        private final List<ConcurrentLinkedQueue<byte[]>> idle = new ArrayList<>();
+        private final AtomicLong idleBytes = new AtomicLong();
+        private final long maxIdleBytes;
+
+        Pool(long maxIdleBytes) {
+            this.maxIdleBytes = maxIdleBytes;
+            for (int shift = MIN_SHIFT; shift <= MAX_SHIFT; shift++) {
+                idle.add(new ConcurrentLinkedQueue<>());
+            }
+        }
+
+        /** A buffer of at least {@code minBytes}, rounded up to its size class. */
+        byte[] take(int minBytes) {
+            int shift = Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(1, minBytes) - 1));
+            if (shift > MAX_SHIFT) {
+                return new byte[minBytes];
+            }
+            byte[] b = idle.get(shift - MIN_SHIFT).poll();
+            if (b != null) {
+                idleBytes.addAndGet(-b.length);
+                return b;
+            }
+            return new byte[1 << shift];
+        }
+
+        void give(byte[] b) {
+            // Filed under the largest class it can serve whole.
+            int shift = 31 - Integer.numberOfLeadingZeros(b.length);
+            if (shift < MIN_SHIFT || shift > MAX_SHIFT) {
+                return;
+            }
+            if (idleBytes.addAndGet(b.length) <= maxIdleBytes) {
+                idle.get(shift - MIN_SHIFT).offer(b);
+            } else {
+                idleBytes.addAndGet(-b.length);
+            }
+        }
+    }
+}
@@ -2,6 +2,8 @@
 package org.example.server;
 
 import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.helidon.common.Size;
 import io.helidon.webserver.WebServer;
@@ -9,40 +11,71 @@ import io.helidon.webserver.grpc.GrpcConfig;
 import io.helidon.webserver.grpc.GrpcRouting;
 import io.helidon.webserver.http2.Http2Config;
 
+import io.grpc.ServerInterceptors;
 import io.grpc.ServerServiceDefinition;
-import org.example.throughput.ThroughputServiceGrpc;
+
+import org.example.common.AsyncConsole;
+import org.example.tuning.TuningProfile;
+
+import static org.example.tuning.TuningProfile.Knob.HELIDON_SERVER_BACKLOG;
+import static org.example.tuning.TuningProfile.Knob.HELIDON_SERVER_INITIAL_WINDOW_SIZE;
+import static org.example.tuning.TuningProfile.Knob.HELIDON_SERVER_MAX_BUFFERED_ENTITY_SIZE;
+import static org.example.tuning.TuningProfile.Knob.HELIDON_SERVER_MAX_CONCURRENT_STREAMS;
+import static org.example.tuning.TuningProfile.Knob.HELIDON_SERVER_MAX_FRAME_SIZE;
+import static org.example.tuning.TuningProfile.Knob.HELIDON_SERVER_MAX_READ_BUFFER_SIZE;
+import static org.example.tuning.TuningProfile.Knob.HELIDON_SERVER_TCP_NO_DELAY;
+import static org.example.tuning.TuningProfile.Knob.HELIDON_SERVER_WRITE_QUEUE_LENGTH;
 
 public final class HelidonThroughputServer implements ThroughputServer {
     private final int port;
+    private final ServerOptions options;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private ThroughputServiceImpl service;
+    private ExecutorService executor;
     private WebServer server;
 
     public HelidonThroughputServer(int port) {
+        this(port, ServerOptions.defaults());
+    }
+
+    public HelidonThroughputServer(int port, ServerOptions options) {
         this.port = port;
+        this.options = options;
     }
 
     @Override
     public void start() {
-        ServerServiceDefinition ssd = ThroughputServiceGrpc.bindService(new ThroughputServiceImpl("helidon"));
+        service = new ThroughputServiceImpl("helidon", options);
+        ServerServiceDefinition ssd = ThroughputServiceImpl.definition(service);
+        // Helidon has no gRPC executor setting: callbacks run on the HTTP/2 stream's virtual
+        // thread (default and direct), unless a pool is selected and they are offloaded to it.
+        if (options.executor().pooled()) {
+            executor = options.executor().create("helidon");
+            ssd = ServerInterceptors.intercept(ssd, new OffloadingInterceptor(executor));
+        }
         GrpcRouting.Builder grpc = GrpcRouting.builder().service(ssd);
+        TuningProfile tuning = options.tuning();
         server = WebServer.builder()
                 .port(port)
-                .connectionOptions(b -> b.tcpNoDelay(true))
-                .backlog(8 * 1024)
-                .writeQueueLength(8 * 1024)
+                .connectionOptions(b -> b.tcpNoDelay(tuning.booleanValue(HELIDON_SERVER_TCP_NO_DELAY)))
+                .backlog(tuning.intValue(HELIDON_SERVER_BACKLOG))
+                .writeQueueLength(tuning.intValue(HELIDON_SERVER_WRITE_QUEUE_LENGTH))
                 .addProtocol(GrpcConfig.builder()
                                      .enableCompression(false)
                                      .enableMetrics(false)
-                                     .maxReadBufferSize(32 * 1024 * 1024)
+                                     .maxReadBufferSize(tuning.intValue(HELIDON_SERVER_MAX_READ_BUFFER_SIZE))
                                      .build())
                 .addProtocol(Http2Config.builder()
-                                     .initialWindowSize(32 * 1024 * 1024)
-                                     .maxFrameSize(8 * 1024 * 1024)
-                                     .maxBufferedEntitySize(Size.parse("128 MB"))
+                                     .initialWindowSize(tuning.intValue(HELIDON_SERVER_INITIAL_WINDOW_SIZE))
+                                     .maxFrameSize(tuning.intValue(HELIDON_SERVER_MAX_FRAME_SIZE))
+                                     .maxConcurrentStreams(tuning.longValue(HELIDON_SERVER_MAX_CONCURRENT_STREAMS))
+                                     .maxBufferedEntitySize(Size.create(
+                                             tuning.longValue(HELIDON_SERVER_MAX_BUFFERED_ENTITY_SIZE)))
                                      .build())
                 .addRouting(grpc)
                 .build();
         server.start();
-        System.out.printf("🚀 Helidon server listening on %d%n", port());
+        AsyncConsole.printf("🚀 Helidon server listening on %d%n", port());
     }
 
     @Override
@@ -50,6 +83,9 @@ public final class HelidonThroughputServer implements ThroughputServer {
         while (server != null && server.isRunning()) {
             Thread.sleep(1_000);
         }
+        if (service != null) {
+            close();
+        }
     }
 
     @Override
@@ -73,5 +109,19 @@ public final class HelidonThroughputServer implements ThroughputServer {
         while (server.isRunning() && System.nanoTime() < deadline) {
             Thread.sleep(100);
         }
+        if (!server.isRunning()) {
+            close();
+        }
+    }
+
+    /** Runs once, whichever of {@link #blockUntilShutdown} and {@link #awaitTermination} sees the end first. */
+    private void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        service.close();
+        if (executor != null) {
+            executor.shutdown();
+        }
     }
 }
@@ -0,0 +1,100 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server;
+
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.example.common.AsyncConsole;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.example.tuning.TuningProfile.Knob.NETTY_SERVER_MAX_INBOUND_MESSAGE_SIZE;
+
+/**
+ * grpc-java server on the in-process transport: calls, executors and the service are the same as
+ * on {@link NettyThroughputServer}, but there is no socket, no HTTP/2 framing and no
+ * serialization (protobuf messages are handed over as objects). Only a client in the same JVM
+ * can reach it, by {@link #name()}; it gives the ceiling the gRPC call path allows.
+ */
+public final class InProcessThroughputServer implements ThroughputServer {
+    private final String name;
+    private final ServerOptions options;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private ThroughputServiceImpl service;
+    private ExecutorService executor;
+    private Server server;
+
+    public InProcessThroughputServer(String name) {
+        this(name, ServerOptions.defaults());
+    }
+
+    public InProcessThroughputServer(String name, ServerOptions options) {
+        this.name = name;
+        this.options = options;
+    }
+
+    @Override
+    public void start() throws IOException {
+        service = new ThroughputServiceImpl("inprocess", options);
+        InProcessServerBuilder builder = InProcessServerBuilder.forName(name)
+                .maxInboundMessageSize(options.tuning().intValue(NETTY_SERVER_MAX_INBOUND_MESSAGE_SIZE))
+                .addService(ThroughputServiceImpl.definition(service));
+        ServerExecutor mode = options.executor();
+        if (mode.kind() == ServerExecutor.Kind.DIRECT) {
+            builder.directExecutor();
+        } else if (mode.pooled()) {
+            executor = mode.create("inprocess");
+            builder.executor(executor);
+        }
+        server = builder.build();
+        server.start();
+        AsyncConsole.printf("🚀 In-process server '%s' started%n", name);
+    }
+
+    /** In-process name clients connect to. */
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void blockUntilShutdown() throws InterruptedException {
+        if (server != null) {
+            server.awaitTermination();
+            close();
+        }
+    }
+
+    /** Always 0: the in-process transport has no port. */
+    @Override
+    public int port() {
+        return 0;
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    @Override
+    public void awaitTermination(Duration timeout) throws InterruptedException {
+        if (server != null && server.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            close();
+        }
+    }
+
+    /** Runs once, whichever of {@link #blockUntilShutdown} and {@link #awaitTermination} sees the end first. */
+    private void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        service.close();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
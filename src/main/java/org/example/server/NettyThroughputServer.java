@@ -3,39 +3,99 @@ package org.example.server;
 
 import io.grpc.Server;
 import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import org.example.common.AsyncConsole;
+import org.example.transport.NettyTransport;
+import org.example.tuning.TuningProfile;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.example.tuning.TuningProfile.Knob.NETTY_SERVER_FLOW_CONTROL_WINDOW;
+import static org.example.tuning.TuningProfile.Knob.NETTY_SERVER_MAX_CONCURRENT_CALLS;
+import static org.example.tuning.TuningProfile.Knob.NETTY_SERVER_MAX_INBOUND_MESSAGE_SIZE;
+import static org.example.tuning.TuningProfile.Knob.NETTY_SERVER_MAX_INBOUND_METADATA_SIZE;
+
+/**
+ * grpc-netty server on a TCP port, or on a Unix domain socket ({@link #unixSocket}) to measure the
+ * same Netty/HTTP/2 stack without the TCP/IP path.
+ */
 public final class NettyThroughputServer implements ThroughputServer {
     private final int port;
+    private final Path socket;
+    private final ServerOptions options;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private ThroughputServiceImpl service;
+    private ExecutorService executor;
+    private NettyTransport transport;
     private Server server;
 
     public NettyThroughputServer(int port) {
+        this(port, ServerOptions.defaults());
+    }
+
+    public NettyThroughputServer(int port, ServerOptions options) {
+        this(port, null, options);
+    }
+
+    private NettyThroughputServer(int port, Path socket, ServerOptions options) {
         this.port = port;
+        this.socket = socket;
+        this.options = options;
+    }
+
+    /** Listens on the Unix domain socket {@code socket}, replacing a stale socket file. */
+    public static NettyThroughputServer unixSocket(Path socket, ServerOptions options) {
+        return new NettyThroughputServer(0, socket, options);
     }
 
     @Override
     public void start() throws IOException {
-        server = NettyServerBuilder.forPort(port)
-                .flowControlWindow(32 * 1024 * 1024)
-                .maxInboundMessageSize(32 * 1024 * 1024)
-                .addService(new ThroughputServiceImpl("netty"))
-                .build();
+        NettyServerBuilder base;
+        if (socket != null) {
+            Files.deleteIfExists(socket);
+            transport = NettyTransport.forDomainSocketServer(options.bossThreads(), options.workerThreads());
+            base = NettyServerBuilder.forAddress(NettyTransport.domainSocket(socket));
+        } else {
+            transport = NettyTransport.forServer(options.transport(), options.bossThreads(), options.workerThreads());
+            base = NettyServerBuilder.forPort(port);
+        }
+        service = new ThroughputServiceImpl(socket != null ? "netty-uds" : "netty", options);
+        TuningProfile tuning = options.tuning();
+        NettyServerBuilder builder = transport.configure(base)
+                .flowControlWindow(tuning.intValue(NETTY_SERVER_FLOW_CONTROL_WINDOW))
+                .maxInboundMessageSize(tuning.intValue(NETTY_SERVER_MAX_INBOUND_MESSAGE_SIZE))
+                .maxConcurrentCallsPerConnection(tuning.intValue(NETTY_SERVER_MAX_CONCURRENT_CALLS))
+                .maxInboundMetadataSize(tuning.intValue(NETTY_SERVER_MAX_INBOUND_METADATA_SIZE))
+                .addService(ThroughputServiceImpl.definition(service));
+        ServerExecutor mode = options.executor();
+        if (mode.kind() == ServerExecutor.Kind.DIRECT) {
+            builder.directExecutor();
+        } else if (mode.pooled()) {
+            executor = mode.create("netty");
+            builder.executor(executor);
+        }
+        server = builder.build();
         server.start();
-        System.out.printf("🚀 Netty server listening on %d%n", port());
+        AsyncConsole.printf("🚀 Netty server listening on %s (transport=%s)%n",
+                socket != null ? socket : String.valueOf(port()), transport.describe());
     }
 
     @Override
     public void blockUntilShutdown() throws InterruptedException {
         if (server != null) {
             server.awaitTermination();
+            close();
         }
     }
 
+    /** Bound TCP port; 0 on a Unix domain socket. */
     @Override
     public int port() {
-        return server != null ? server.getPort() : port;
+        return socket != null ? 0 : server != null ? server.getPort() : port;
     }
 
     @Override
@@ -48,7 +108,28 @@ public final class NettyThroughputServer implements ThroughputServer {
     @Override
     public void awaitTermination(Duration timeout) throws InterruptedException {
         if (server != null) {
-            server.awaitTermination(timeout.toMillis(), java.util.concurrent.TimeUnit.MILLISECONDS);
+            if (server.awaitTermination(timeout.toMillis(), java.util.concurrent.TimeUnit.MILLISECONDS)) {
+                close();
+            }
+        }
+    }
+
+    /** Runs once, whichever of {@link #blockUntilShutdown} and {@link #awaitTermination} sees the end first. */
+    private void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        service.close();
+        if (executor != null) {
+            executor.shutdown();
+        }
+        transport.close();
+        if (socket != null) {
+            try {
+                Files.deleteIfExists(socket);
+            } catch (IOException ignored) {
+                // best effort; start() replaces a stale file
+            }
         }
     }
 }
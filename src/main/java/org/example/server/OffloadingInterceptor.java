@@ -0,0 +1,57 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server;
+
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Moves every listener callback of a call onto {@code pool}, one at a time and in order, for
+ * servers that have no executor setting of their own (Helidon). This mirrors what
+ * {@code ServerBuilder.executor} does inside grpc-java: a serializing executor per call on top
+ * of a shared pool.
+ */
+final class OffloadingInterceptor implements ServerInterceptor {
+    private final Executor pool;
+
+    OffloadingInterceptor(Executor pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        Executor serial = new SerialExecutor(pool);
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(call, headers)) {
+            @Override
+            public void onMessage(ReqT message) {
+                serial.execute(() -> super.onMessage(message));
+            }
+
+            @Override
+            public void onHalfClose() {
+                serial.execute(super::onHalfClose);
+            }
+
+            @Override
+            public void onCancel() {
+                serial.execute(super::onCancel);
+            }
+
+            @Override
+            public void onComplete() {
+                serial.execute(super::onComplete);
+            }
+
+            @Override
+            public void onReady() {
+                serial.execute(super::onReady);
+            }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs tasks one at a time, in submission order, on a shared pool, so one stream's chunks keep
+ * their order while different streams run in parallel. A task that throws is reported and
+ * skipped, as in grpc's {@code SerializingExecutor}; the tasks queued behind it still run.
+ */
+final class SerialExecutor implements Executor {
+    private final Executor pool;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    SerialExecutor(Executor pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (scheduled.compareAndSet(false, true)) {
+            pool.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("⚠️  serial task " + task + " failed: " + e);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        // A task added between the last poll and the flag reset must not be stranded.
+        if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+            pool.execute(this::drain);
+        }
+    }
+}
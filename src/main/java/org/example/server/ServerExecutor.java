@@ -0,0 +1,92 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread model for gRPC service callbacks, so Netty and Helidon can be compared on the same one.
+ *
+ * <p>Out of the box grpc-netty runs callbacks on a cached platform pool while Helidon runs them
+ * on the connection's virtual thread; {@link Kind#DEFAULT} keeps each transport's own choice.
+ * The other kinds apply to both servers: {@code direct} runs callbacks inline on the thread that
+ * read the frames, {@code platform} and {@code forkjoin} use a fixed-size pool and
+ * {@code virtual} starts one virtual thread per task.
+ */
+public record ServerExecutor(Kind kind, int threads) {
+    public static final ServerExecutor DEFAULT = new ServerExecutor(Kind.DEFAULT, 0);
+
+    public enum Kind { DEFAULT, DIRECT, PLATFORM, FORKJOIN, VIRTUAL }
+
+    public ServerExecutor {
+        if (threads < 0) {
+            throw new IllegalArgumentException("threads must be >= 0: " + threads);
+        }
+    }
+
+    /**
+     * Parses {@code default}, {@code direct}, {@code platform[:N]}, {@code forkjoin[:N]} or
+     * {@code virtual}; pool sizes default to the number of available processors.
+     */
+    public static ServerExecutor parse(String spec) {
+        String s = spec.trim().toLowerCase(Locale.ROOT);
+        int colon = s.indexOf(':');
+        String name = colon < 0 ? s : s.substring(0, colon);
+        Kind kind = switch (name) {
+            case "default" -> Kind.DEFAULT;
+            case "direct", "inline" -> Kind.DIRECT;
+            case "platform" -> Kind.PLATFORM;
+            case "forkjoin" -> Kind.FORKJOIN;
+            case "virtual" -> Kind.VIRTUAL;
+            default -> throw new IllegalArgumentException("Unknown executor '" + spec
+                    + "', expected default, direct, platform[:N], forkjoin[:N] or virtual");
+        };
+        if (colon >= 0 && kind != Kind.PLATFORM && kind != Kind.FORKJOIN) {
+            throw new IllegalArgumentException("Executor '" + name + "' takes no thread count: " + spec);
+        }
+        int threads = colon < 0 ? 0 : Integer.parseInt(s.substring(colon + 1));
+        return new ServerExecutor(kind, threads);
+    }
+
+    /** True when callbacks leave the transport thread for a pool this class creates. */
+    public boolean pooled() {
+        return kind == Kind.PLATFORM || kind == Kind.FORKJOIN || kind == Kind.VIRTUAL;
+    }
+
+    /** Pool size for {@code platform} / {@code forkjoin}. */
+    public int poolSize() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /** Creates the callback pool; only valid when {@link #pooled()}. The caller shuts it down. */
+    ExecutorService create(String implName) {
+        return switch (kind) {
+            case PLATFORM -> {
+                AtomicInteger n = new AtomicInteger();
+                yield Executors.newFixedThreadPool(poolSize(), r -> {
+                    Thread t = new Thread(r, implName + "-grpc-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            case FORKJOIN -> new ForkJoinPool(poolSize(), pool -> {
+                var t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName(implName + "-grpc-fj-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            }, null, true);
+            case VIRTUAL -> Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(implName + "-grpc-vt-", 0).factory());
+            default -> throw new IllegalStateException("No pool for executor " + describe());
+        };
+    }
+
+    /** Short label used in option summaries and RESULT lines, e.g. {@code platform:8}. */
+    public String describe() {
+        String name = kind.name().toLowerCase(Locale.ROOT);
+        return kind == Kind.PLATFORM || kind == Kind.FORKJOIN ? name + ":" + poolSize() : name;
+    }
+}
@@ -0,0 +1,337 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server;
+
+import org.example.transport.NettyTransport;
+import org.example.tuning.TuningProfile;
+
+import java.util.Locale;
+
+/**
+ * Server-side knobs shared by the Netty and Helidon servers and {@link ThroughputServiceImpl}.
+ * Defaults reproduce the original behaviour: one ack per chunk, sent immediately.
+ */
+public final class ServerOptions {
+    private static final ServerOptions DEFAULTS = builder().build();
+
+    private final int ackEvery;
+    private final long ackIntervalMicros;
+    private final boolean ackOnDrain;
+    private final boolean zeroCopyInbound;
+    private final boolean flowControl;
+    private final int inboundWindow;
+    private final String sinkDir;
+    private final int fsyncEvery;
+    private final long fsyncIntervalMillis;
+    private final long segmentBytes;
+    private final String handler;
+    private final int handlerThreads;
+    private final ServerExecutor executor;
+    private final NettyTransport.Kind transport;
+    private final int bossThreads;
+    private final int workerThreads;
+    private final TuningProfile tuning;
+    private final String results;
+    private final String resultsFormat;
+
+    private ServerOptions(Builder b) {
+        this.ackEvery = b.ackEvery;
+        // A batch that never fills must still be flushed, otherwise a client whose in-flight
+        // window is smaller than ackEvery would wait forever.
+        this.ackIntervalMicros = b.ackEvery > 1 && b.ackIntervalMicros <= 0 ? 1_000 : b.ackIntervalMicros;
+        this.ackOnDrain = b.ackOnDrain;
+        this.zeroCopyInbound = b.zeroCopyInbound;
+        this.flowControl = b.flowControl;
+        this.inboundWindow = b.inboundWindow;
+        this.sinkDir = b.sinkDir;
+        this.fsyncEvery = b.fsyncEvery;
+        // Same reasoning as for acks: a group that never fills must still be committed.
+        this.fsyncIntervalMillis = b.fsyncEvery > 1 && b.fsyncIntervalMillis <= 0 ? 5 : b.fsyncIntervalMillis;
+        this.segmentBytes = b.segmentBytes;
+        // A sink directory on its own keeps meaning "persist", as before handlers existed.
+        this.handler = b.handler != null ? b.handler : b.sinkDir != null ? "persist" : "discard";
+        this.handlerThreads = b.handlerThreads;
+        this.executor = b.executor;
+        this.transport = b.transport;
+        this.bossThreads = b.bossThreads;
+        this.workerThreads = b.workerThreads;
+        this.tuning = b.tuning;
+        this.results = b.results;
+        this.resultsFormat = b.resultsFormat;
+    }
+
+    public static ServerOptions defaults() {
+        return DEFAULTS;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Send one cumulative ack every {@code ackEvery} chunks (1 = per-chunk acks). */
+    public int ackEvery() {
+        return ackEvery;
+    }
+
+    /** Flush a partially filled ack batch after this many microseconds (0 = no timer). */
+    public long ackIntervalMicros() {
+        return ackIntervalMicros;
+    }
+
+    /** Hold acks while the transport is not ready and flush them once the outbound buffer drains. */
+    public boolean ackOnDrain() {
+        return ackOnDrain;
+    }
+
+    /** Parse inbound chunks out of the transport buffers instead of copying payloads to the heap. */
+    public boolean zeroCopyInbound() {
+        return zeroCopyInbound;
+    }
+
+    /**
+     * Request inbound chunks manually, only while the ack path is ready (bounded server memory).
+     * Always on with {@link #handlerThreads()} > 0, so a stream's offload queue never holds more
+     * than {@link #inboundWindow()} chunks.
+     */
+    public boolean flowControl() {
+        return flowControl || handlerThreads > 0;
+    }
+
+    /** Chunks requested ahead of processing when {@link #flowControl()} is on. */
+    public int inboundWindow() {
+        return inboundWindow;
+    }
+
+    /** Directory of the durable segment log, or null to discard payloads after counting them. */
+    public String sinkDir() {
+        return sinkDir;
+    }
+
+    /** {@link org.example.server.handler.ChunkHandlers built-in handler} run for every chunk. */
+    public String handler() {
+        return handler;
+    }
+
+    /** Worker threads the handler is offloaded to (0 = inline on the transport thread). */
+    public int handlerThreads() {
+        return handlerThreads;
+    }
+
+    /** Thread model for gRPC callbacks (see {@link ServerExecutor}). */
+    public ServerExecutor executor() {
+        return executor;
+    }
+
+    /** Netty socket transport (ignored by Helidon). */
+    public NettyTransport.Kind transport() {
+        return transport;
+    }
+
+    /** Netty boss event-loop threads (0 = Netty default). */
+    public int bossThreads() {
+        return bossThreads;
+    }
+
+    /** Netty worker event-loop threads (0 = Netty default, 2 × CPUs). */
+    public int workerThreads() {
+        return workerThreads;
+    }
+
+    /** HTTP/2 and gRPC settings of the server. */
+    public TuningProfile tuning() {
+        return tuning;
+    }
+
+    /** File (or {@code -} for stdout) every finished server-side run is appended to; null for none. */
+    public String results() {
+        return results;
+    }
+
+    /** {@code jsonl} or {@code csv}; null to follow the {@link #results()} file extension. */
+    public String resultsFormat() {
+        return resultsFormat;
+    }
+
+    /** Group commit: fsync once this many chunks are pending (1 = per chunk). */
+    public int fsyncEvery() {
+        return fsyncEvery;
+    }
+
+    /** Group commit: fsync once the oldest pending chunk is this old (0 = no timer). */
+    public long fsyncIntervalMillis() {
+        return fsyncIntervalMillis;
+    }
+
+    public long segmentBytes() {
+        return segmentBytes;
+    }
+
+    /** True when any coalescing policy is active. */
+    public boolean coalesceAcks() {
+        return ackEvery > 1 || ackIntervalMicros > 0 || ackOnDrain;
+    }
+
+    public String describe() {
+        String acks = !coalesceAcks() ? "acks=per-chunk"
+                : String.format(Locale.ROOT, "acks=cumulative(every=%d, interval=%dus, onDrain=%s)",
+                        ackEvery, ackIntervalMicros, ackOnDrain);
+        String flow = flowControl() ? String.format(Locale.ROOT, "manual(window=%d)", inboundWindow) : "auto";
+        String run = handlerThreads == 0 ? "inline" : handlerThreads + " workers";
+        String sink = sinkDir == null ? ""
+                : String.format(Locale.ROOT, ", sink=%s(fsync every=%d, interval=%dms, segment=%dMB)",
+                        sinkDir, fsyncEvery, fsyncIntervalMillis, segmentBytes / (1024 * 1024));
+        return acks + ", inbound=" + (zeroCopyInbound ? "zero-copy" : "copy") + ", flow=" + flow
+                + ", executor=" + executor.describe() + ", handler=" + handler + "(" + run + ")" + sink
+                + ", profile=" + tuning.describe();
+    }
+
+    public static final class Builder {
+        private int ackEvery = 1;
+        private long ackIntervalMicros;
+        private boolean ackOnDrain;
+        private boolean zeroCopyInbound;
+        private boolean flowControl;
+        private int inboundWindow = 8;
+        private String sinkDir;
+        private int fsyncEvery = 1;
+        private long fsyncIntervalMillis;
+        private long segmentBytes = 1024L * 1024 * 1024;
+        private String handler;
+        private int handlerThreads;
+        private ServerExecutor executor = ServerExecutor.DEFAULT;
+        private NettyTransport.Kind transport = NettyTransport.Kind.AUTO;
+        private int bossThreads;
+        private int workerThreads;
+        private TuningProfile tuning = TuningProfile.defaults();
+        private String results;
+        private String resultsFormat;
+
+        private Builder() {
+        }
+
+        public Builder ackEvery(int ackEvery) {
+            if (ackEvery < 1) {
+                throw new IllegalArgumentException("ackEvery must be >= 1: " + ackEvery);
+            }
+            this.ackEvery = ackEvery;
+            return this;
+        }
+
+        public Builder ackIntervalMicros(long ackIntervalMicros) {
+            if (ackIntervalMicros < 0) {
+                throw new IllegalArgumentException("ackIntervalMicros must be >= 0: " + ackIntervalMicros);
+            }
+            this.ackIntervalMicros = ackIntervalMicros;
+            return this;
+        }
+
+        public Builder ackOnDrain(boolean ackOnDrain) {
+            this.ackOnDrain = ackOnDrain;
+            return this;
+        }
+
+        public Builder zeroCopyInbound(boolean zeroCopyInbound) {
+            this.zeroCopyInbound = zeroCopyInbound;
+            return this;
+        }
+
+        public Builder flowControl(boolean flowControl) {
+            this.flowControl = flowControl;
+            return this;
+        }
+
+        public Builder inboundWindow(int inboundWindow) {
+            if (inboundWindow < 1) {
+                throw new IllegalArgumentException("inboundWindow must be >= 1: " + inboundWindow);
+            }
+            this.inboundWindow = inboundWindow;
+            return this;
+        }
+
+        public Builder sinkDir(String sinkDir) {
+            this.sinkDir = sinkDir;
+            return this;
+        }
+
+        public Builder fsyncEvery(int fsyncEvery) {
+            if (fsyncEvery < 1) {
+                throw new IllegalArgumentException("fsyncEvery must be >= 1: " + fsyncEvery);
+            }
+            this.fsyncEvery = fsyncEvery;
+            return this;
+        }
+
+        public Builder fsyncIntervalMillis(long fsyncIntervalMillis) {
+            if (fsyncIntervalMillis < 0) {
+                throw new IllegalArgumentException("fsyncIntervalMillis must be >= 0: " + fsyncIntervalMillis);
+            }
+            this.fsyncIntervalMillis = fsyncIntervalMillis;
+            return this;
+        }
+
+        public Builder segmentBytes(long segmentBytes) {
+            if (segmentBytes < 1024 * 1024) {
+                throw new IllegalArgumentException("segmentBytes must be >= 1 MB: " + segmentBytes);
+            }
+            this.segmentBytes = segmentBytes;
+            return this;
+        }
+
+        public Builder handler(String handler) {
+            this.handler = handler;
+            return this;
+        }
+
+        public Builder handlerThreads(int handlerThreads) {
+            if (handlerThreads < 0) {
+                throw new IllegalArgumentException("handlerThreads must be >= 0: " + handlerThreads);
+            }
+            this.handlerThreads = handlerThreads;
+            return this;
+        }
+
+        public Builder executor(ServerExecutor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder transport(NettyTransport.Kind transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public Builder bossThreads(int bossThreads) {
+            if (bossThreads < 0) {
+                throw new IllegalArgumentException("bossThreads must be >= 0: " + bossThreads);
+            }
+            this.bossThreads = bossThreads;
+            return this;
+        }
+
+        public Builder workerThreads(int workerThreads) {
+            if (workerThreads < 0) {
+                throw new IllegalArgumentException("workerThreads must be >= 0: " + workerThreads);
+            }
+            this.workerThreads = workerThreads;
+            return this;
+        }
+
+        public Builder tuning(TuningProfile tuning) {
+            this.tuning = tuning;
+            return this;
+        }
+
+        public Builder results(String results) {
+            this.results = results;
+            return this;
+        }
+
+        public Builder resultsFormat(String resultsFormat) {
+            this.resultsFormat = resultsFormat;
+            return this;
+        }
+
+        public ServerOptions build() {
+            return new ServerOptions(this);
+        }
+    }
+}
@@ -1,79 +1,558 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.example.server;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import org.example.common.CostMeter;
+import org.example.common.MetricsReporter;
 import org.example.common.Pretty;
+import org.example.common.StreamMetrics;
+import org.example.results.RunRecord;
+import org.example.results.RunRecordWriter;
+import org.example.server.handler.ChunkHandler;
+import org.example.server.handler.ChunkHandlers;
+import org.example.storage.SegmentLog;
 import org.example.throughput.Ack;
 import org.example.throughput.DataChunk;
+import org.example.throughput.SubscribeRequest;
 import org.example.throughput.ThroughputServiceGrpc;
+import org.example.transport.H2FrameTap;
+import org.example.tuning.TuningProfile;
 
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Shared streaming service implementation for both Netty and Helidon servers.
- * Handles per-second reporting and ACKs each received chunk.
+ * Registers each stream with the shared {@link MetricsReporter}, runs the configured
+ * {@link ChunkHandler} on every chunk, and ACKs processed chunks, either one by one or
+ * coalesced into cumulative acks (see {@link ServerOptions}).
+ *
+ * <p>The handler runs inline on the transport thread, or, with {@code handlerThreads > 0}, on
+ * a shared worker pool through a per-stream {@link SerialExecutor} that keeps chunks in order.
+ *
+ * <p>Fragmented blocks (client {@code --fragment-kb}) are reassembled by a per-stream
+ * {@link FragmentReassembler} into pooled buffers; the handler and the ack see one chunk per
+ * block, and every fragment but the last only counts bytes and, with flow control, requests
+ * the next message.
+ *
+ * <p>{@link #submit} and {@link #subscribe} are the unary and server-streaming shapes of the
+ * same workload: a submit is one chunk acked by the call's response, and a subscription pushes
+ * chunks to the client instead of receiving them.
+ *
+ * <p>Every finished run prints a summary and, with {@link ServerOptions#results()}, appends a
+ * {@link RunRecord} of the server's view: a stream, a subscription, or a run of submits.
  */
-public final class ThroughputServiceImpl extends ThroughputServiceGrpc.ThroughputServiceImplBase {
+public final class ThroughputServiceImpl extends ThroughputServiceGrpc.ThroughputServiceImplBase
+        implements AutoCloseable {
+    private static final long REASSEMBLY_POOL_BYTES = 128L * 1024 * 1024;
+    private static final int MAX_PUSH_BYTES = 64 * 1024 * 1024;
+    private static final long SUBMIT_IDLE_NS = TimeUnit.SECONDS.toNanos(1);
+
     private final String implName;
+    private final ServerOptions options;
+    private final ChunkHandler handler;
+    private final ExecutorService workers;
+    private final FragmentReassembler.Pool blocks = new FragmentReassembler.Pool(REASSEMBLY_POOL_BYTES);
+    private Unary unary;
 
     public ThroughputServiceImpl(String implName) {
+        this(implName, ServerOptions.defaults());
+    }
+
+    public ThroughputServiceImpl(String implName, ServerOptions options) {
         this.implName = implName;
+        this.options = options;
+        this.handler = ChunkHandlers.create(options.handler(),
+                options.sinkDir() != null ? Path.of(options.sinkDir()) : null,
+                new SegmentLog.Policy(options.fsyncEvery(), options.fsyncIntervalMillis(), options.segmentBytes()));
+        this.workers = options.handlerThreads() > 0 ? newWorkerPool(options.handlerThreads()) : null;
     }
 
+    private static ExecutorService newWorkerPool(int threads) {
+        AtomicInteger n = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "chunk-worker-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Service definition for {@code service}, with the zero-copy inbound path when enabled. */
+    static ServerServiceDefinition definition(ThroughputServiceImpl service) {
+        return service.options.zeroCopyInbound() ? AliasingDataChunkMarshaller.bind(service) : service.bindService();
+    }
+
+    /** Stops the worker pool and closes the handler (e.g. syncs the segment log). */
     @Override
-    public StreamObserver<DataChunk> stream(StreamObserver<Ack> out) {
+    public void close() {
+        if (workers != null) {
+            workers.shutdown();
+        }
+        Unary u;
+        synchronized (this) {
+            u = unary;
+            unary = null;
+        }
+        if (u != null) {
+            u.end();
+        }
+        handler.close();
+    }
+
+    /** Appends one finished run to {@link ServerOptions#results()}; the server measures no latency. */
+    private void record(String rpc, long messages, int sizeBytes, long acks, double seconds, CostMeter.Cost cost) {
+        if (options.results() == null) {
+            return;
+        }
+        String transport = implName.startsWith("netty")
+                ? options.transport().name().toLowerCase(Locale.ROOT) : implName;
+        RunRecord record = new RunRecord(Instant.now(), implName, transport, sizeBytes, messages, messages, acks,
+                seconds, null, 0, new RunRecord.Latency(0, 0, 0, 0, 0, 0), RunRecord.Cost.of(cost, messages),
+                RunRecord.Steady.of(0, List.of()), List.of(), config(rpc), RunRecord.Environment.current(),
+                H2FrameTap.ConnectionReport.none());
+        RunRecordWriter.open(options.results(), options.resultsFormat()).append(record);
+    }
+
+    private Map<String, String> config(String rpc) {
+        Map<String, String> config = new LinkedHashMap<>();
+        config.put("side", "server");
+        config.put("rpc", rpc);
+        config.put("ackEvery", String.valueOf(options.ackEvery()));
+        config.put("ackIntervalMicros", String.valueOf(options.ackIntervalMicros()));
+        config.put("ackOnDrain", String.valueOf(options.ackOnDrain()));
+        config.put("zeroCopy", String.valueOf(options.zeroCopyInbound()));
+        config.put("flowControl", String.valueOf(options.flowControl()));
+        config.put("inboundWindow", String.valueOf(options.inboundWindow()));
+        config.put("handler", options.handler());
+        config.put("handlerThreads", String.valueOf(options.handlerThreads()));
+        config.put("executor", options.executor().describe());
+        config.put("profile", options.tuning().describe());
+        for (TuningProfile.Knob k : TuningProfile.Knob.values()) {
+            config.put(k.key(), options.tuning().value(k));
+        }
+        return config;
+    }
+
+    /**
+     * Unary shape: one chunk per call, acked by the response. Calls are grouped into runs: the
+     * first call after an idle second opens a handler session and a metrics entry, and the run
+     * ends, with its summary, HANDLER_RESULT line and record, once no call has been in flight
+     * for {@link #SUBMIT_IDLE_NS}. Stateful sessions take their calls one at a time; the lock
+     * covers the handler only, and responses are written after it is released.
+     */
+    @Override
+    public void submit(DataChunk chunk, StreamObserver<Ack> out) {
+        Unary u = beginCall();
+        u.lastSize.set(chunk.getPayload().size());
+        u.metrics.record(chunk.getPayload().size());
+        Reply reply = new Reply(out, u);
+        try {
+            if (handler.statelessSessions()) {
+                u.session.onChunk(chunk, reply);
+            } else {
+                synchronized (u) {
+                    u.session.onChunk(chunk, reply);
+                }
+            }
+        } catch (RuntimeException e) {
+            reply.fail(Status.INTERNAL.withDescription(handler.name() + " handler failed")
+                    .withCause(e).asRuntimeException());
+        }
+        reply.release();
+    }
+
+    /** The current run, opened if there is none, with this call counted as in flight. */
+    private synchronized Unary beginCall() {
+        Unary u = unary;
+        if (u == null) {
+            u = new Unary();
+            unary = u;
+            IdleTimer.INSTANCE.schedule(() -> endIfIdle(u), SUBMIT_IDLE_NS, TimeUnit.NANOSECONDS);
+        }
+        u.inFlight++;
+        return u;
+    }
+
+    private void endIfIdle(Unary u) {
+        long waitNs;
+        synchronized (this) {
+            if (unary != u) {
+                return;
+            }
+            waitNs = u.inFlight > 0 ? SUBMIT_IDLE_NS : u.lastActiveNs + SUBMIT_IDLE_NS - System.nanoTime();
+            if (waitNs <= 0) {
+                unary = null;
+            }
+        }
+        if (waitNs > 0) {
+            IdleTimer.INSTANCE.schedule(() -> endIfIdle(u), waitNs, TimeUnit.NANOSECONDS);
+        } else {
+            u.end();
+        }
+    }
+
+    /** One run of submits: its handler session, metrics and cost. */
+    private final class Unary {
+        final StreamMetrics metrics = MetricsReporter.shared().register("server", implName);
+        final ChunkHandler.Session session = handler.openSession(implName);
         final long startedNs = System.nanoTime();
-        final AtomicLong totalBytes = new AtomicLong();
-        final AtomicLong totalMsgs = new AtomicLong();
-        final AtomicLong lastBytes = new AtomicLong();
-        final AtomicLong lastMsgs = new AtomicLong();
-        final AtomicLong lastTime = new AtomicLong(System.nanoTime());
+        final CostMeter cost = CostMeter.start();
         final AtomicLong lastSize = new AtomicLong();
+        // Guarded by the service.
+        int inFlight;
+        long lastActiveNs = startedNs;
+
+        void callDone() {
+            synchronized (ThroughputServiceImpl.this) {
+                inFlight--;
+                lastActiveNs = System.nanoTime();
+            }
+        }
+
+        /** Ends the session and reports the run; its time stops at the last answered call. */
+        void end() {
+            long lastNs;
+            synchronized (ThroughputServiceImpl.this) {
+                lastNs = inFlight > 0 ? System.nanoTime() : lastActiveNs;
+            }
+            double sec = (lastNs - startedNs) / 1_000_000_000.0;
+            session.onEnd(error -> {
+                CostMeter.Cost spent = cost.stop();
+                metrics.close();
+                Pretty.summary("server", implName, metrics.totalMessages(), lastSize.get(),
+                        metrics.totalBytes(), metrics.totalAcks(), sec, null, spent);
+                record("submit", metrics.totalMessages(), (int) lastSize.get(), metrics.totalAcks(), sec, spent);
+            });
+        }
+    }
+
+    /**
+     * Acks of one submit call. Outcomes reported while the handler still runs are held and
+     * written by {@link #release()}, so the response is never written under the session lock;
+     * later ones (e.g. after an fsync) are written at once.
+     */
+    private static final class Reply implements ChunkHandler.Acks {
+        private final StreamObserver<Ack> out;
+        private final Unary run;
+        private boolean held = true;
+        private boolean answered;
+        private Ack ack;
+        private Throwable error;
+
+        Reply(StreamObserver<Ack> out, Unary run) {
+            this.out = out;
+            this.run = run;
+        }
+
+        @Override
+        public void ok(long seq) {
+            answer(Ack.newBuilder().setSeq(seq).setOk(true).build(), null);
+        }
+
+        @Override
+        public void echo(long seq, ByteString payload) {
+            answer(Ack.newBuilder().setSeq(seq).setOk(true).setPayload(payload).build(), null);
+        }
+
+        @Override
+        public void fail(Throwable error) {
+            answer(null, error);
+        }
+
+        private void answer(Ack a, Throwable e) {
+            synchronized (this) {
+                if (answered) {
+                    return;
+                }
+                answered = true;
+                if (held) {
+                    ack = a;
+                    error = e;
+                    return;
+                }
+            }
+            send(a, e);
+        }
+
+        /** The handler has returned: writes an outcome it already reported. */
+        void release() {
+            Ack a;
+            Throwable e;
+            synchronized (this) {
+                held = false;
+                if (!answered) {
+                    return;
+                }
+                a = ack;
+                e = error;
+            }
+            send(a, e);
+        }
 
-        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, implName + "-server-reporter");
+        private void send(Ack a, Throwable e) {
+            if (e != null) {
+                out.onError(e);
+            } else {
+                out.onNext(a);
+                out.onCompleted();
+                run.metrics.recordAck();
+            }
+            run.callDone();
+        }
+    }
+
+    /** Lazily started daemon thread that ends idle submit runs. */
+    private static final class IdleTimer {
+        static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "submit-idle");
             t.setDaemon(true);
             return t;
         });
-        reporter.scheduleAtFixedRate(() -> {
-            long now = System.nanoTime();
-            long dt = now - lastTime.getAndSet(now);
-            long bytes = totalBytes.get();
-            long deltaBytes = bytes - lastBytes.getAndSet(bytes);
-            long deltaMsgs = totalMsgs.get() - lastMsgs.getAndSet(totalMsgs.get());
-            double sec = dt / 1_000_000_000.0;
-            double mbps = sec > 0 ? (deltaBytes / (1024.0 * 1024.0)) / sec : 0.0;
-            Pretty.tick("server", implName,
-                    (System.nanoTime() - startedNs) / 1_000_000_000L,
-                    mbps,
-                    deltaMsgs,
-                    deltaBytes / (1024.0 * 1024.0));
-        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Server-streaming shape: pushes {@code count} chunks of {@code sizeBytes} (0 = until the
+     * client cancels), writing only while the call is ready so HTTP/2 flow control paces the
+     * server. Every chunk carries the same zero-filled payload; no handler runs.
+     */
+    @Override
+    public void subscribe(SubscribeRequest request, StreamObserver<DataChunk> out) {
+        // size_bytes is a uint32: values past 2^31 - 1 arrive as negative ints.
+        long sizeBytes = Integer.toUnsignedLong(request.getSizeBytes());
+        if (sizeBytes > MAX_PUSH_BYTES) {
+            out.onError(Status.INVALID_ARGUMENT
+                    .withDescription("size_bytes " + sizeBytes + " exceeds " + MAX_PUSH_BYTES)
+                    .asRuntimeException());
+            return;
+        }
+        new Push((ServerCallStreamObserver<DataChunk>) out, request).start();
+    }
+
+    /** One subscription; {@link #run} is the on-ready handler. */
+    private final class Push implements Runnable {
+        private final ServerCallStreamObserver<DataChunk> call;
+        private final long count;
+        private final ByteString payload;
+        private final long startedNs = System.nanoTime();
+        private final CostMeter cost = CostMeter.start();
+        private final StreamMetrics metrics = MetricsReporter.shared().register("server", implName);
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile boolean done;
+        private long seq;
+
+        Push(ServerCallStreamObserver<DataChunk> call, SubscribeRequest request) {
+            this.call = call;
+            this.count = request.getCount();
+            this.payload = UnsafeByteOperations.unsafeWrap(new byte[request.getSizeBytes()]);
+        }
+
+        void start() {
+            // Both handlers must be set before subscribe() returns.
+            call.setOnCancelHandler(this::cancelled);
+            call.setOnReadyHandler(this);
+            run();
+        }
+
+        @Override
+        public synchronized void run() {
+            try {
+                while (!done && call.isReady() && (count == 0 || seq < count)) {
+                    call.onNext(DataChunk.newBuilder().setSeq(seq).setPayload(payload).build());
+                    metrics.record(payload.size());
+                    seq++;
+                }
+            } catch (StatusRuntimeException e) {
+                // Cancelled between the check and the write.
+                cancelled();
+                return;
+            }
+            if (!done && count > 0 && seq == count) {
+                done = true;
+                call.onCompleted();
+                finish();
+            }
+        }
+
+        private void cancelled() {
+            done = true;
+            finish();
+        }
+
+        private void finish() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            double sec = (System.nanoTime() - startedNs) / 1_000_000_000.0;
+            CostMeter.Cost spent = cost.stop();
+            metrics.close();
+            Pretty.summary("server", implName, metrics.totalMessages(), payload.size(),
+                    metrics.totalBytes(), 0, sec, null, spent);
+            record("subscribe", metrics.totalMessages(), payload.size(), 0, sec, spent);
+        }
+    }
+
+    @Override
+    public StreamObserver<DataChunk> stream(StreamObserver<Ack> out) {
+        final long startedNs = System.nanoTime();
+        final CostMeter cost = CostMeter.start();
+        final StreamMetrics metrics = MetricsReporter.shared().register("server", implName);
+        final AtomicLong lastSize = new AtomicLong();
+        final AckCoalescer acks = new AckCoalescer(out, options, metrics);
+        final ChunkHandler.Session session = handler.openSession(implName);
+        final Executor serial = workers != null ? new SerialExecutor(workers) : null;
+        final FragmentReassembler reassembler = new FragmentReassembler(blocks);
+        // Set on the first handler failure or client cancel; later chunks, queued or not, never
+        // reach the session.
+        final AtomicBoolean failed = new AtomicBoolean();
+        final ChunkHandler.Acks sessionAcks = new ChunkHandler.Acks() {
+            @Override
+            public void ok(long seq) {
+                acks.onChunk(seq);
+            }
+
+            @Override
+            public void echo(long seq, ByteString payload) {
+                acks.onEcho(seq, payload);
+            }
+
+            @Override
+            public void fail(Throwable error) {
+                failed.set(true);
+                acks.fail(error);
+            }
+        };
 
         return new StreamObserver<>() {
             @Override
             public void onNext(DataChunk chunk) {
+                if (failed.get()) {
+                    return;
+                }
                 int sz = chunk.getPayload().size();
+                if (FragmentReassembler.isFragment(chunk)) {
+                    onFragment(chunk, sz);
+                    return;
+                }
                 lastSize.set(sz);
-                totalBytes.addAndGet(sz);
-                totalMsgs.incrementAndGet();
-                out.onNext(Ack.newBuilder().setSeq(chunk.getSeq()).setOk(true).build());
+                metrics.record(sz);
+                if (serial == null) {
+                    handle(chunk);
+                    return;
+                }
+                // The payload may alias transport buffers that are released when onNext returns.
+                DataChunk owned = options.zeroCopyInbound()
+                        ? chunk.toBuilder().setPayload(ByteString.copyFrom(chunk.getPayload().asReadOnlyByteBuffer())).build()
+                        : chunk;
+                serial.execute(() -> handle(owned));
+            }
+
+            private void onFragment(DataChunk fragment, int sz) {
+                FragmentReassembler.Block block;
+                try {
+                    block = reassembler.accept(fragment);
+                } catch (RuntimeException e) {
+                    acks.fail(e);
+                    return;
+                }
+                if (block == null) {
+                    metrics.record(sz, 0);
+                    acks.onFragment();
+                    return;
+                }
+                lastSize.set(block.chunk().getPayload().size());
+                metrics.record(sz, 1);
+                if (serial == null) {
+                    try {
+                        handle(block.chunk());
+                    } finally {
+                        block.release();
+                    }
+                    return;
+                }
+                serial.execute(() -> {
+                    try {
+                        handle(block.chunk());
+                    } finally {
+                        block.release();
+                    }
+                });
+            }
+
+            private void handle(DataChunk chunk) {
+                if (failed.get()) {
+                    return;
+                }
+                try {
+                    session.onChunk(chunk, sessionAcks);
+                } catch (RuntimeException e) {
+                    failed.set(true);
+                    acks.fail(Status.INTERNAL.withDescription(handler.name() + " handler failed")
+                            .withCause(e).asRuntimeException());
+                }
             }
 
             @Override
             public void onError(Throwable t) {
-                reporter.shutdownNow();
+                failed.set(true);
+                acks.cancel();
+                metrics.close();
+                // Behind any queued chunks, which now skip the session, so nothing touches the
+                // session or the reassembly buffer after it ends.
+                afterQueued(() -> {
+                    reassembler.abandon();
+                    session.onEnd(error -> { });
+                });
             }
 
             @Override
             public void onCompleted() {
+                afterQueued(() -> {
+                    reassembler.abandon();
+                    session.onEnd(error -> {
+                        if (error != null) {
+                            acks.fail(error);
+                            metrics.close();
+                            return;
+                        }
+                        finish();
+                    });
+                });
+            }
+
+            private void afterQueued(Runnable task) {
+                if (serial == null) {
+                    task.run();
+                } else {
+                    serial.execute(task);
+                }
+            }
+
+            private void finish() {
                 double sec = (System.nanoTime() - startedNs) / 1_000_000_000.0;
-                Pretty.summary("server", implName, totalMsgs.get(), lastSize.get(), totalBytes.get(), sec);
-                out.onCompleted();
-                reporter.shutdown();
+                CostMeter.Cost spent = cost.stop();
+                acks.complete();
+                metrics.close();
+                Pretty.summary("server", implName, metrics.totalMessages(), lastSize.get(),
+                        metrics.totalBytes(), metrics.totalAcks(), sec, null, spent);
+                record("stream", metrics.totalMessages(), (int) lastSize.get(), metrics.totalAcks(), sec, spent);
             }
         };
     }
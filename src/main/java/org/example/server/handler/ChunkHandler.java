@@ -0,0 +1,75 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server.handler;
+
+import com.google.protobuf.ByteString;
+import org.example.throughput.DataChunk;
+
+/**
+ * Server workload run for every received chunk, between the transport and the ack.
+ *
+ * <p>The server opens one {@link Session} per stream. Calls on a session never overlap and
+ * arrive in seq order. They run either inline on the transport thread or on a worker pool,
+ * serialized per stream. A session reports each chunk through {@link Acks}, either before
+ * {@link Session#onChunk} returns or later from another thread, as the persist handler does
+ * after an fsync.
+ *
+ * <p>Inline sessions may see payloads that alias transport buffers (server {@code --zero-copy}).
+ * Such a payload is only valid until {@code onChunk} returns. Offloaded sessions always get a
+ * private copy. Reassembled fragmented blocks are pooled either way: their payload is reused
+ * once {@code onChunk} returns, so no session may retain a payload past that point.
+ */
+public interface ChunkHandler extends AutoCloseable {
+
+    /** Short name used on the command line and in result lines. */
+    String name();
+
+    /** Creates the per-stream side of the handler; {@code implName} labels result lines. */
+    Session openSession(String implName);
+
+    /**
+     * True when sessions keep no state, so concurrent unary calls may share one session without
+     * being serialized. Stateful sessions (digests, the segment log) see their calls in order.
+     */
+    default boolean statelessSessions() {
+        return false;
+    }
+
+    /** Releases shared resources (files, pools) once the server has stopped. */
+    @Override
+    default void close() {
+    }
+
+    /** Per-stream handler state. */
+    interface Session {
+
+        /** Processes one chunk and reports it through {@code acks} exactly once. */
+        void onChunk(DataChunk chunk, Acks acks);
+
+        /**
+         * Runs after the last chunk has been handed to {@link #onChunk}. It must call
+         * {@code done} once every chunk is reported, e.g. after a final fsync. It may print a
+         * result line.
+         */
+        default void onEnd(Done done) {
+            done.ended(null);
+        }
+    }
+
+    /** Where a session reports processed chunks; one instance per stream. */
+    interface Acks {
+        /** The chunk is processed; ack it (possibly coalesced). */
+        void ok(long seq);
+
+        /** The chunk is processed; ack it individually, carrying {@code payload} back. */
+        void echo(long seq, ByteString payload);
+
+        /** Processing failed; the stream ends with {@code error}. */
+        void fail(Throwable error);
+    }
+
+    /** Completion of {@link Session#onEnd}; {@code error} is null on success. */
+    @FunctionalInterface
+    interface Done {
+        void ended(Throwable error);
+    }
+}
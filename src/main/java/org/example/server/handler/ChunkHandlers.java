@@ -0,0 +1,44 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server.handler;
+
+import org.example.storage.SegmentLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/** Built-in {@link ChunkHandler}s by name. */
+public final class ChunkHandlers {
+    /** Names accepted by {@link #create}. */
+    public static final List<String> NAMES = List.of("discard", "crc32c", "sha384", "persist", "echo");
+
+    private ChunkHandlers() {
+    }
+
+    /**
+     * Creates the named handler. {@code sinkDir} and {@code policy} are only used by
+     * {@code persist}, which requires a sink directory.
+     */
+    public static ChunkHandler create(String name, Path sinkDir, SegmentLog.Policy policy) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "discard" -> new DiscardHandler();
+            case "crc32c" -> DigestHandler.crc32c();
+            case "sha384" -> DigestHandler.sha384();
+            case "echo" -> new EchoHandler();
+            case "persist" -> {
+                if (sinkDir == null) {
+                    throw new IllegalArgumentException("persist handler needs a sink directory (--sink <dir>)");
+                }
+                try {
+                    yield new PersistHandler(SegmentLog.open(sinkDir, policy));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot open segment log in " + sinkDir, e);
+                }
+            }
+            default -> throw new IllegalArgumentException(
+                    "Unknown handler '" + name + "', expected one of " + NAMES);
+        };
+    }
+}
@@ -0,0 +1,101 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server.handler;
+
+import org.example.common.Pretty;
+import org.example.throughput.DataChunk;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * CPU-bound handlers: fold every payload of a stream into a running checksum or digest before
+ * acking it, reading the payload's buffers in place. The final value goes on a HANDLER_RESULT line.
+ */
+final class DigestHandler implements ChunkHandler {
+    private final String name;
+    private final Supplier<Digest> digests;
+
+    private DigestHandler(String name, Supplier<Digest> digests) {
+        this.name = name;
+        this.digests = digests;
+    }
+
+    static DigestHandler crc32c() {
+        return new DigestHandler("crc32c", () -> {
+            CRC32C crc = new CRC32C();
+            return new Digest() {
+                @Override
+                public void update(ByteBuffer payload) {
+                    crc.update(payload);
+                }
+
+                @Override
+                public String value() {
+                    return String.format(Locale.ROOT, "%08x", crc.getValue());
+                }
+            };
+        });
+    }
+
+    static DigestHandler sha384() {
+        return new DigestHandler("sha384", () -> {
+            MessageDigest md;
+            try {
+                md = MessageDigest.getInstance("SHA-384");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-384 is a required JDK algorithm", e);
+            }
+            return new Digest() {
+                @Override
+                public void update(ByteBuffer payload) {
+                    md.update(payload);
+                }
+
+                @Override
+                public String value() {
+                    return HexFormat.of().formatHex(md.digest());
+                }
+            };
+        });
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Session openSession(String implName) {
+        Digest digest = digests.get();
+        return new Session() {
+            private long chunks;
+
+            @Override
+            public void onChunk(DataChunk chunk, Acks acks) {
+                for (ByteBuffer b : chunk.getPayload().asReadOnlyByteBufferList()) {
+                    digest.update(b);
+                }
+                chunks++;
+                acks.ok(chunk.getSeq());
+            }
+
+            @Override
+            public void onEnd(Done done) {
+                Pretty.handlerResultLine(implName, name, chunks, digest.value());
+                done.ended(null);
+            }
+        };
+    }
+
+    /** Not thread-safe; one per stream. */
+    private interface Digest {
+        void update(ByteBuffer payload);
+
+        String value();
+    }
+}
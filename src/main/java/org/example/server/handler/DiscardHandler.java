@@ -0,0 +1,24 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server.handler;
+
+import org.example.throughput.DataChunk;
+
+/** The original behaviour: count the chunk (done by the service) and ack it. */
+final class DiscardHandler implements ChunkHandler {
+    private static final Session SESSION = (chunk, acks) -> acks.ok(chunk.getSeq());
+
+    @Override
+    public String name() {
+        return "discard";
+    }
+
+    @Override
+    public Session openSession(String implName) {
+        return SESSION;
+    }
+
+    @Override
+    public boolean statelessSessions() {
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server.handler;
+
+/**
+ * Sends every payload back in its ack, doubling the bytes on the wire. Echo acks are never
+ * coalesced. The ack is written before {@code onChunk} returns, so aliased payloads are safe.
+ */
+final class EchoHandler implements ChunkHandler {
+    private static final Session SESSION = (chunk, acks) -> acks.echo(chunk.getSeq(), chunk.getPayload());
+
+    @Override
+    public String name() {
+        return "echo";
+    }
+
+    @Override
+    public Session openSession(String implName) {
+        return SESSION;
+    }
+
+    @Override
+    public boolean statelessSessions() {
+        return true;
+    }
+}
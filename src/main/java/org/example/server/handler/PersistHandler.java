@@ -0,0 +1,78 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server.handler;
+
+import io.grpc.Status;
+import org.example.common.LatencyHistogram;
+import org.example.common.Pretty;
+import org.example.storage.SegmentLog;
+import org.example.throughput.DataChunk;
+
+/**
+ * Appends every chunk to a {@link SegmentLog} shared by all streams and acks it only once the
+ * group commit covering it is durable. The stream ends after a final fsync barrier and prints a
+ * DURABLE_RESULT line with durable MB/s and the fsync latencies seen during the stream.
+ */
+final class PersistHandler implements ChunkHandler {
+    private final SegmentLog log;
+
+    PersistHandler(SegmentLog log) {
+        this.log = log;
+    }
+
+    @Override
+    public String name() {
+        return "persist";
+    }
+
+    @Override
+    public Session openSession(String implName) {
+        long startedNs = System.nanoTime();
+        long[] fsyncsAtStart = new long[LatencyHistogram.buckets()];
+        log.fsyncLatency().copyInto(fsyncsAtStart);
+        return new Session() {
+            private long chunks;
+            private long bytes;
+
+            @Override
+            public void onChunk(DataChunk chunk, Acks acks) {
+                long seq = chunk.getSeq();
+                chunks++;
+                bytes += chunk.getPayload().size();
+                // Written before onChunk returns (aliased payloads stay valid); acked once durable.
+                log.append(seq, chunk.getPayload(), error -> {
+                    if (error == null) {
+                        acks.ok(seq);
+                    } else {
+                        acks.fail(dataLoss(error));
+                    }
+                });
+            }
+
+            @Override
+            public void onEnd(Done done) {
+                log.whenDurable(error -> {
+                    if (error != null) {
+                        done.ended(dataLoss(error));
+                        return;
+                    }
+                    double sec = (System.nanoTime() - startedNs) / 1_000_000_000.0;
+                    long[] fsyncs = new long[LatencyHistogram.buckets()];
+                    log.fsyncLatency().copyInto(fsyncs);
+                    LatencyHistogram.subtract(fsyncs, fsyncsAtStart);
+                    Pretty.durableResultLine(implName, chunks, bytes, sec, fsyncs,
+                            log.policy().everyChunks(), log.policy().everyMillis());
+                    done.ended(null);
+                });
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        log.close();
+    }
+
+    private static RuntimeException dataLoss(Throwable error) {
+        return Status.DATA_LOSS.withDescription("fsync failed").withCause(error).asRuntimeException();
+    }
+}
@@ -0,0 +1,359 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.storage;
+
+import com.google.protobuf.ByteString;
+import org.example.common.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of received chunks, split into fixed-size segment files, with group commit.
+ *
+ * <p>Each record is {@code [int length][long seq][payload]}, written with one gathered
+ * {@link FileChannel#write(ByteBuffer[])} straight from the payload's own buffers. Appends from
+ * every stream are serialized under one lock. A single {@code log-syncer} thread calls
+ * {@link FileChannel#force} once {@link Policy#everyChunks} records are pending, once the oldest
+ * pending record is {@link Policy#everyMillis} old, or when {@link #whenDurable} asks for it.
+ * It then runs the callbacks of every record the fsync covered, in append order. Appends keep
+ * going while an fsync is in progress, so concurrent streams share fsyncs. A newly created
+ * segment's directory entry is fsynced along with its first records, before any of them is
+ * reported durable.
+ */
+public final class SegmentLog implements AutoCloseable {
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+    /** Invoked once the record (or barrier) is on disk; {@code error} is null on success. */
+    @FunctionalInterface
+    public interface Callback {
+        void durable(Throwable error);
+    }
+
+    /** Group-commit policy: fsync every {@code everyChunks} records or every {@code everyMillis} ms. */
+    public record Policy(int everyChunks, long everyMillis, long segmentBytes) {
+        public Policy {
+            if (everyChunks < 1) {
+                throw new IllegalArgumentException("everyChunks must be >= 1: " + everyChunks);
+            }
+            if (everyMillis < 0) {
+                throw new IllegalArgumentException("everyMillis must be >= 0: " + everyMillis);
+            }
+            if (segmentBytes < HEADER_BYTES) {
+                throw new IllegalArgumentException("segmentBytes too small: " + segmentBytes);
+            }
+        }
+
+    }
+
+    private final Path dir;
+    private final Policy policy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition();
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    private final LatencyHistogram fsyncLatency = new LatencyHistogram();
+    private final Thread syncer;
+
+    // Guarded by lock.
+    private FileChannel current;
+    private long segmentIndex;
+    private long position;
+    private final List<FileChannel> retired = new ArrayList<>();
+    private Callback[] pending = new Callback[64];
+    private Callback[] spare = new Callback[64];
+    private int pendingCount;
+    private long pendingChunks;
+    private long firstPendingNs;
+    private boolean forceRequested;
+    private boolean closed;
+    private boolean drained;
+    private boolean dirDirty = true;
+    private Throwable syncerFailure;
+    private long fsyncs;
+
+    private SegmentLog(Path dir, Policy policy) throws IOException {
+        this.dir = dir;
+        this.policy = policy;
+        Files.createDirectories(dir);
+        this.segmentIndex = nextSegmentIndex(dir);
+        this.current = openSegment(segmentIndex);
+        this.syncer = new Thread(this::syncLoop, "log-syncer");
+        this.syncer.setDaemon(true);
+        this.syncer.start();
+    }
+
+    public static SegmentLog open(Path dir, Policy policy) throws IOException {
+        return new SegmentLog(dir, policy);
+    }
+
+    public Policy policy() {
+        return policy;
+    }
+
+    /** fsync durations so far; snapshot with {@link LatencyHistogram#copyInto} to diff intervals. */
+    public LatencyHistogram fsyncLatency() {
+        return fsyncLatency;
+    }
+
+    public long fsyncs() {
+        lock.lock();
+        try {
+            return fsyncs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends one record and returns once it is written to the page cache; {@code onDurable}
+     * runs on the syncer thread after the covering fsync. The payload is not retained.
+     */
+    public void append(long seq, ByteString payload, Callback onDurable) {
+        List<ByteBuffer> parts = payload.asReadOnlyByteBufferList();
+        ByteBuffer[] srcs = new ByteBuffer[parts.size() + 1];
+        for (int i = 0; i < parts.size(); i++) {
+            srcs[i + 1] = parts.get(i);
+        }
+        long recordBytes = HEADER_BYTES + (long) payload.size();
+        lock.lock();
+        try {
+            if (closed || syncerFailure != null) {
+                throw new IllegalStateException("Segment log is closed", syncerFailure);
+            }
+            if (position > 0 && position + recordBytes > policy.segmentBytes()) {
+                roll();
+            }
+            header.clear();
+            header.putInt(payload.size()).putLong(seq).flip();
+            srcs[0] = header;
+            long remaining = recordBytes;
+            while (remaining > 0) {
+                remaining -= current.write(srcs);
+            }
+            position += recordBytes;
+            if (pendingChunks++ == 0) {
+                firstPendingNs = System.nanoTime();
+            }
+            addPending(onDurable);
+            // An idle syncer waits without a timeout, so the first record must start its clock.
+            if (pendingChunks >= policy.everyChunks() || (pendingChunks == 1 && policy.everyMillis() > 0)) {
+                work.signal();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Append to " + dir + " failed", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code callback} once everything appended so far is durable, forcing an fsync now.
+     * After {@link #close} the syncer's last fsync already covered every append, so the callback
+     * runs right away on the calling thread, with the error that stopped the syncer if any.
+     */
+    public void whenDurable(Callback callback) {
+        Throwable failure;
+        lock.lock();
+        try {
+            if (!drained) {
+                addPending(callback);
+                forceRequested = true;
+                work.signal();
+                return;
+            }
+            failure = syncerFailure;
+        } finally {
+            lock.unlock();
+        }
+        callback.durable(failure);
+    }
+
+    /** Syncs and runs every outstanding callback, then closes all segments. */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            forceRequested = true;
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            syncer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            current.force(false);
+            current.close();
+        } catch (IOException ignored) {
+            // Nothing is waiting on this sync any more.
+        }
+    }
+
+    private void addPending(Callback callback) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingCount++] = callback;
+    }
+
+    private void roll() throws IOException {
+        retired.add(current);
+        current = openSegment(++segmentIndex);
+        position = 0;
+        dirDirty = true;
+    }
+
+    private boolean due(long now) {
+        return pendingCount > 0 && (forceRequested
+                || pendingChunks >= policy.everyChunks()
+                || (policy.everyMillis() > 0
+                        && now - firstPendingNs >= TimeUnit.MILLISECONDS.toNanos(policy.everyMillis())));
+    }
+
+    private void syncLoop() {
+        List<FileChannel> toForce = new ArrayList<>();
+        while (true) {
+            Callback[] batch;
+            int n;
+            int retiredCount = 0;
+            boolean syncDir = false;
+            Throwable stopped = null;
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                while (!due(now) && !(closed && pendingCount == 0)) {
+                    if (pendingCount == 0 || policy.everyMillis() == 0) {
+                        work.await();
+                    } else {
+                        work.awaitNanos(firstPendingNs + TimeUnit.MILLISECONDS.toNanos(policy.everyMillis()) - now);
+                    }
+                    now = System.nanoTime();
+                }
+                if (pendingCount == 0) {
+                    drained = true;
+                    return; // closed and drained
+                }
+                batch = pending;
+                n = pendingCount;
+                if (spare.length < batch.length) {
+                    spare = new Callback[batch.length];
+                }
+                pending = spare;
+                spare = batch;
+                pendingCount = 0;
+                pendingChunks = 0;
+                forceRequested = false;
+                toForce.clear();
+                toForce.addAll(retired);
+                retiredCount = retired.size();
+                retired.clear();
+                toForce.add(current);
+                syncDir = dirDirty;
+                dirDirty = false;
+            } catch (InterruptedException e) {
+                // No fsync will run again: fail what is waiting instead of stranding it.
+                stopped = new InterruptedIOException("log-syncer for " + dir + " was interrupted");
+                syncerFailure = stopped;
+                drained = true;
+                batch = pending;
+                n = pendingCount;
+                pendingCount = 0;
+            } finally {
+                lock.unlock();
+            }
+            if (stopped != null) {
+                complete(batch, n, stopped);
+                return;
+            }
+
+            Throwable error = null;
+            long t0 = System.nanoTime();
+            try {
+                for (FileChannel ch : toForce) {
+                    ch.force(false);
+                }
+                if (syncDir) {
+                    syncDirectory();
+                }
+            } catch (IOException e) {
+                error = e;
+                if (syncDir) {
+                    lock.lock();
+                    try {
+                        dirDirty = true;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+            fsyncLatency.record(System.nanoTime() - t0);
+            for (int i = 0; i < retiredCount; i++) {
+                try {
+                    toForce.get(i).close();
+                } catch (IOException ignored) {
+                    // Already forced; a failed close loses nothing.
+                }
+            }
+            lock.lock();
+            try {
+                fsyncs++;
+            } finally {
+                lock.unlock();
+            }
+            complete(batch, n, error);
+        }
+    }
+
+    private static void complete(Callback[] batch, int n, Throwable error) {
+        for (int i = 0; i < n; i++) {
+            Callback cb = batch[i];
+            batch[i] = null;
+            try {
+                cb.durable(error);
+            } catch (RuntimeException e) {
+                // One broken stream must not stop acks for the others.
+            }
+        }
+    }
+
+    /** Makes new segment files' directory entries durable, so a crash cannot drop a whole segment. */
+    private void syncDirectory() throws IOException {
+        try (FileChannel d = FileChannel.open(dir, StandardOpenOption.READ)) {
+            d.force(true);
+        }
+    }
+
+    private FileChannel openSegment(long index) throws IOException {
+        Path file = dir.resolve(String.format(Locale.ROOT, "segment-%020d.log", index));
+        return FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static long nextSegmentIndex(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith("segment-") && name.endsWith(".log"))
+                    .mapToLong(name -> Long.parseLong(name.substring("segment-".length(), name.length() - 4)))
+                    .max()
+                    .orElse(-1) + 1;
+        }
+    }
+}
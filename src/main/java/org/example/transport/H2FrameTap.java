@@ -0,0 +1,535 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.transport;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * {@link ImpairmentProxy.Tap} that decodes the HTTP/2 frames of every proxied h2c connection in
+ * both directions and keeps flow-control and framing statistics, so a stall can be read as "the
+ * connection window sat at 0 for 4.2 s" instead of from a packet capture. Bytes are only
+ * observed; the proxy forwards them unchanged.
+ *
+ * <p>Statistics are kept per sender: {@code up} is client → server DATA together with the
+ * WINDOW_UPDATEs the server sends to credit it, {@code down} the reverse. Send windows are
+ * replayed from the frames (initial 65,535 bytes, SETTINGS_INITIAL_WINDOW_SIZE applied to open
+ * streams when seen) and the time a window spends at or below zero is counted as blocked. A
+ * stream window stops counting once its sender ends or resets the stream. Times are taken when
+ * the proxy reads the bytes, before any {@link Impairment} is applied.
+ *
+ * <p>A stream both sides have ended, or that was reset, is evicted: its blocked time is folded
+ * into the direction totals and, for the first {@value #MAX_CLOSED_REPORTS} per connection, its
+ * {@link StreamReport} is kept. Frames that arrive for an evicted stream (e.g. a late
+ * WINDOW_UPDATE) only update connection-level counters, so a run of many short calls keeps
+ * constant memory.
+ *
+ * <p>Connections that do not start with the h2 client preface are passed through and reported
+ * with {@code h2=false}.
+ */
+public final class H2FrameTap implements ImpairmentProxy.Tap {
+    private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int DEFAULT_WINDOW = 65_535;
+    private static final int MAX_CLOSED_REPORTS = 1024;
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final int DATA = 0x0;
+    private static final int HEADERS = 0x1;
+    private static final int RST_STREAM = 0x3;
+    private static final int SETTINGS = 0x4;
+    private static final int GOAWAY = 0x7;
+    private static final int WINDOW_UPDATE = 0x8;
+    private static final int FLAG_END_STREAM = 0x1;
+    private static final int FLAG_ACK = 0x1;
+    private static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+
+    private final Consumer<ConnectionReport> onClose;
+    private final List<Conn> conns = new ArrayList<>();
+
+    public H2FrameTap() {
+        this(null);
+    }
+
+    /** {@code onClose} (may be null) receives each connection's final report on the proxy thread. */
+    public H2FrameTap(Consumer<ConnectionReport> onClose) {
+        this.onClose = onClose;
+    }
+
+    @Override
+    public synchronized ImpairmentProxy.Tap.Observer open(long connection) {
+        Conn c = new Conn(connection);
+        conns.add(c);
+        return c;
+    }
+
+    /** Report of every connection seen so far; open connections are reported as of now. */
+    public List<ConnectionReport> connections() {
+        List<Conn> snapshot;
+        synchronized (this) {
+            snapshot = List.copyOf(conns);
+        }
+        long now = System.nanoTime();
+        List<ConnectionReport> reports = new ArrayList<>(snapshot.size());
+        for (Conn c : snapshot) {
+            reports.add(c.report(now));
+        }
+        return reports;
+    }
+
+    /** All connections folded into one report with id 0 and no per-stream detail. */
+    public ConnectionReport total() {
+        List<Conn> snapshot;
+        synchronized (this) {
+            snapshot = List.copyOf(conns);
+        }
+        long now = System.nanoTime();
+        Flow up = new Flow();
+        Flow down = new Flow();
+        boolean h2 = false;
+        int streams = 0;
+        long rsts = 0;
+        long goaways = 0;
+        long goawayError = 0;
+        for (Conn c : snapshot) {
+            synchronized (c) {
+                h2 |= c.h2;
+                streams += c.opened;
+                rsts += c.rstStreams;
+                goaways += c.goaways;
+                goawayError = c.goaways > 0 ? c.goawayError : goawayError;
+                up.merge(c.up, c.streams.values(), true, now);
+                down.merge(c.down, c.streams.values(), false, now);
+            }
+        }
+        return new ConnectionReport(0, h2, up.stats(now), down.stats(now), streams, rsts, goaways, goawayError,
+                List.of());
+    }
+
+    /** One direction's framing and flow control; see the class comment for what "up" and "down" cover. */
+    public record DirectionStats(long dataFrames, long dataBytes, int dataSizeMin, int dataSizeP50,
+                                 int dataSizeP90, int dataSizeMax, long windowUpdates, long connWindowUpdates,
+                                 long windowIncrementBytes, double wuGapMeanMs, double wuGapMaxMs,
+                                 double connZeroWindowMs, double streamZeroWindowMs, long minConnWindow) {
+    }
+
+    /** One stream's DATA volume and send-window history per direction. */
+    public record StreamReport(int id, long upBytes, long downBytes, long upFrames, long downFrames,
+                               double upZeroWindowMs, double downZeroWindowMs, long minUpWindow,
+                               long minDownWindow, boolean reset) {
+    }
+
+    public record ConnectionReport(long id, boolean h2, DirectionStats up, DirectionStats down, int streams,
+                                   long rstStreams, long goaways, long goawayError, List<StreamReport> perStream) {
+
+        /** A report with every counter at zero, for runs without a tap. */
+        public static ConnectionReport none() {
+            DirectionStats zero = new DirectionStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+            return new ConnectionReport(0, false, zero, zero, 0, 0, 0, 0, List.of());
+        }
+    }
+
+    // ── Decoding ─────────────────────────────────────────────────────────────
+
+    private final class Conn implements ImpairmentProxy.Tap.Observer {
+        private final long id;
+        private final Flow up = new Flow();
+        private final Flow down = new Flow();
+        private final Decoder fromClient = new Decoder(true);
+        private final Decoder fromServer = new Decoder(false);
+        private final Map<Integer, Stream> streams = new HashMap<>();
+        private final List<StreamReport> closedReports = new ArrayList<>();
+        /** Highest stream id opened so far, by initiator (index {@code sid & 1}); lower unknown ids are evicted. */
+        private final int[] lastOpened = new int[2];
+        private int opened;
+        private int prefaceSeen;
+        private boolean h2 = true;
+        private long rstStreams;
+        private long goaways;
+        private long goawayError;
+        private boolean closed;
+        private long closedNs;
+
+        Conn(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public synchronized void onBytes(boolean upstream, ByteBuffer data, long nowNs) {
+            if (!h2) {
+                return;
+            }
+            if (upstream && prefaceSeen < PREFACE.length) {
+                while (data.hasRemaining() && prefaceSeen < PREFACE.length) {
+                    if (data.get() != PREFACE[prefaceSeen++]) {
+                        h2 = false;
+                        return;
+                    }
+                }
+            }
+            (upstream ? fromClient : fromServer).feed(data, nowNs);
+        }
+
+        @Override
+        public void onClose(long nowNs) {
+            ConnectionReport report;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                closedNs = nowNs;
+                up.conn.freeze(nowNs);
+                down.conn.freeze(nowNs);
+                for (Stream s : streams.values()) {
+                    s.up.freeze(nowNs);
+                    s.down.freeze(nowNs);
+                }
+                report = report(nowNs);
+            }
+            if (onClose != null) {
+                onClose.accept(report);
+            }
+        }
+
+        synchronized ConnectionReport report(long nowNs) {
+            long at = closed ? closedNs : nowNs;
+            TreeMap<Integer, StreamReport> bySid = new TreeMap<>();
+            closedReports.forEach(r -> bySid.put(r.id(), r));
+            streams.forEach((sid, s) -> bySid.put(sid, s.report(sid, at)));
+            Flow upTotal = new Flow();
+            Flow downTotal = new Flow();
+            upTotal.merge(up, streams.values(), true, at);
+            downTotal.merge(down, streams.values(), false, at);
+            return new ConnectionReport(id, h2, upTotal.stats(at), downTotal.stats(at), opened,
+                    rstStreams, goaways, goawayError, List.copyOf(bySid.values()));
+        }
+
+        /** The live stream {@code sid}, opened on first sight; null once it has been evicted. */
+        private Stream stream(int sid) {
+            Stream s = streams.get(sid);
+            if (s != null || sid <= lastOpened[sid & 1]) {
+                return s;
+            }
+            lastOpened[sid & 1] = sid;
+            opened++;
+            s = new Stream(up.initialStreamWindow, down.initialStreamWindow);
+            streams.put(sid, s);
+            return s;
+        }
+
+        /** Evicts {@code s} once both senders are done with it, keeping its totals. */
+        private void evictIfDone(int sid, Stream s, long now) {
+            if (!s.up.frozen || !s.down.frozen) {
+                return;
+            }
+            streams.remove(sid);
+            up.streamBlockedNs += s.up.blockedNs(now);
+            down.streamBlockedNs += s.down.blockedNs(now);
+            if (closedReports.size() < MAX_CLOSED_REPORTS) {
+                closedReports.add(s.report(sid, now));
+            }
+        }
+
+        /** Applies one complete frame; {@code fromClient} is true for client → server frames. */
+        private void onFrame(boolean fromClient, int type, int flags, int sid, int length, byte[] payload,
+                             long now) {
+            Flow sender = fromClient ? up : down;
+            Flow peer = fromClient ? down : up;
+            switch (type) {
+                case DATA -> {
+                    sender.onData(length);
+                    sender.conn.add(-length, now);
+                    Stream s = stream(sid);
+                    if (s == null) {
+                        return;
+                    }
+                    Window w = fromClient ? s.up : s.down;
+                    w.add(-length, now);
+                    if (fromClient) {
+                        s.upBytes += length;
+                        s.upFrames++;
+                    } else {
+                        s.downBytes += length;
+                        s.downFrames++;
+                    }
+                    if ((flags & FLAG_END_STREAM) != 0) {
+                        w.freeze(now);
+                        evictIfDone(sid, s, now);
+                    }
+                }
+                case HEADERS -> {
+                    Stream s = stream(sid);
+                    if (s != null && (flags & FLAG_END_STREAM) != 0) {
+                        (fromClient ? s.up : s.down).freeze(now);
+                        evictIfDone(sid, s, now);
+                    }
+                }
+                case RST_STREAM -> {
+                    rstStreams++;
+                    Stream s = stream(sid);
+                    if (s != null) {
+                        s.reset = true;
+                        s.up.freeze(now);
+                        s.down.freeze(now);
+                        evictIfDone(sid, s, now);
+                    }
+                }
+                case SETTINGS -> {
+                    if ((flags & FLAG_ACK) != 0) {
+                        return;
+                    }
+                    for (int i = 0; i + 6 <= payload.length; i += 6) {
+                        int key = ((payload[i] & 0xff) << 8) | (payload[i + 1] & 0xff);
+                        if (key == SETTINGS_INITIAL_WINDOW_SIZE) {
+                            // The receiver's setting sizes the peer's stream send windows.
+                            long value = int32(payload, i + 2) & 0xffffffffL;
+                            long delta = value - peer.initialStreamWindow;
+                            peer.initialStreamWindow = value;
+                            for (Stream s : streams.values()) {
+                                (fromClient ? s.down : s.up).add(delta, now);
+                            }
+                        }
+                    }
+                }
+                case GOAWAY -> {
+                    goaways++;
+                    if (payload.length >= 8) {
+                        goawayError = int32(payload, 4) & 0xffffffffL;
+                    }
+                }
+                case WINDOW_UPDATE -> {
+                    if (payload.length < 4) {
+                        return;
+                    }
+                    long increment = int32(payload, 0) & 0x7fffffffL;
+                    peer.onWindowUpdate(sid == 0, increment, now);
+                    if (sid == 0) {
+                        peer.conn.add(increment, now);
+                    } else {
+                        Stream s = stream(sid);
+                        if (s != null) {
+                            (fromClient ? s.down : s.up).add(increment, now);
+                        }
+                    }
+                }
+                default -> {
+                    // PRIORITY, PUSH_PROMISE, PING, CONTINUATION: framing only
+                }
+            }
+        }
+
+        /** Incremental frame parser for one direction; only small control payloads are buffered. */
+        private final class Decoder {
+            private final boolean fromClient;
+            private final byte[] header = new byte[9];
+            private int headerFill;
+            private int length;
+            private int type;
+            private int flags;
+            private int sid;
+            private int remaining = -1;
+            private byte[] payload;
+            private int payloadFill;
+
+            Decoder(boolean fromClient) {
+                this.fromClient = fromClient;
+            }
+
+            void feed(ByteBuffer data, long now) {
+                while (data.hasRemaining()) {
+                    if (remaining < 0) {
+                        int n = Math.min(header.length - headerFill, data.remaining());
+                        data.get(header, headerFill, n);
+                        headerFill += n;
+                        if (headerFill < header.length) {
+                            return;
+                        }
+                        headerFill = 0;
+                        length = ((header[0] & 0xff) << 16) | ((header[1] & 0xff) << 8) | (header[2] & 0xff);
+                        type = header[3] & 0xff;
+                        flags = header[4] & 0xff;
+                        sid = int32(header, 5) & 0x7fffffff;
+                        remaining = length;
+                        int keep = kept(type, length);
+                        payload = keep == 0 ? EMPTY : new byte[keep];
+                        payloadFill = 0;
+                    } else {
+                        int n = Math.min(remaining, data.remaining());
+                        int keep = Math.min(n, payload.length - payloadFill);
+                        data.get(payload, payloadFill, keep);
+                        payloadFill += keep;
+                        data.position(data.position() + n - keep);
+                        remaining -= n;
+                    }
+                    if (remaining == 0) {
+                        remaining = -1;
+                        onFrame(fromClient, type, flags, sid, length, payload, now);
+                    }
+                }
+            }
+
+            /** Payload bytes worth keeping: control frames only, GOAWAY without its debug data. */
+            private static int kept(int type, int length) {
+                return switch (type) {
+                    case RST_STREAM, WINDOW_UPDATE -> Math.min(length, 4);
+                    case GOAWAY -> Math.min(length, 8);
+                    case SETTINGS -> Math.min(length, 6 * 64);
+                    default -> 0;
+                };
+            }
+        }
+    }
+
+    private static final class Stream {
+        private final Window up;
+        private final Window down;
+        private long upBytes;
+        private long downBytes;
+        private long upFrames;
+        private long downFrames;
+        private boolean reset;
+
+        Stream(long upInitial, long downInitial) {
+            this.up = new Window(upInitial);
+            this.down = new Window(downInitial);
+        }
+
+        StreamReport report(int sid, long now) {
+            return new StreamReport(sid, upBytes, downBytes, upFrames, downFrames,
+                    millis(up.blockedNs(now)), millis(down.blockedNs(now)), up.min, down.min, reset);
+        }
+    }
+
+    /** One sender's DATA framing, the WINDOW_UPDATEs crediting it, and its connection send window. */
+    private static final class Flow {
+        private final Window conn = new Window(DEFAULT_WINDOW);
+        private final TreeMap<Integer, Long> dataSizes = new TreeMap<>();
+        private long initialStreamWindow = DEFAULT_WINDOW;
+        private long dataFrames;
+        private long dataBytes;
+        private long windowUpdates;
+        private long connWindowUpdates;
+        private long incrementBytes;
+        private long lastUpdateNs;
+        private long gapSumNs;
+        private long gapMaxNs;
+        private long gaps;
+        private long streamBlockedNs;
+
+        void onData(int length) {
+            dataFrames++;
+            dataBytes += length;
+            dataSizes.merge(length, 1L, Long::sum);
+        }
+
+        void onWindowUpdate(boolean connection, long increment, long now) {
+            windowUpdates++;
+            if (connection) {
+                connWindowUpdates++;
+            }
+            incrementBytes += increment;
+            if (lastUpdateNs != 0) {
+                long gap = now - lastUpdateNs;
+                gapSumNs += gap;
+                gapMaxNs = Math.max(gapMaxNs, gap);
+                gaps++;
+            }
+            lastUpdateNs = now;
+        }
+
+        /** Adds {@code other}'s counters and the blocked time of its streams' windows in this direction. */
+        void merge(Flow other, Iterable<Stream> streams, boolean up, long now) {
+            dataFrames += other.dataFrames;
+            dataBytes += other.dataBytes;
+            other.dataSizes.forEach((size, count) -> dataSizes.merge(size, count, Long::sum));
+            windowUpdates += other.windowUpdates;
+            connWindowUpdates += other.connWindowUpdates;
+            incrementBytes += other.incrementBytes;
+            gapSumNs += other.gapSumNs;
+            gapMaxNs = Math.max(gapMaxNs, other.gapMaxNs);
+            gaps += other.gaps;
+            streamBlockedNs += other.streamBlockedNs;
+            conn.blockedNs += other.conn.blockedNs(now);
+            conn.min = Math.min(conn.min, other.conn.min);
+            for (Stream s : streams) {
+                streamBlockedNs += (up ? s.up : s.down).blockedNs(now);
+            }
+        }
+
+        DirectionStats stats(long now) {
+            return new DirectionStats(dataFrames, dataBytes,
+                    dataSizes.isEmpty() ? 0 : dataSizes.firstKey(), sizeAt(50), sizeAt(90),
+                    dataSizes.isEmpty() ? 0 : dataSizes.lastKey(),
+                    windowUpdates, connWindowUpdates, incrementBytes,
+                    gaps == 0 ? 0 : millis(gapSumNs / gaps), millis(gapMaxNs),
+                    millis(conn.blockedNs(now)), millis(streamBlockedNs), conn.min);
+        }
+
+        private int sizeAt(double percentile) {
+            long rank = (long) Math.ceil(dataFrames * percentile / 100.0);
+            long seen = 0;
+            for (Map.Entry<Integer, Long> e : dataSizes.entrySet()) {
+                seen += e.getValue();
+                if (seen >= rank) {
+                    return e.getKey();
+                }
+            }
+            return 0;
+        }
+    }
+
+    /** A replayed send window and how long it has been at or below zero. */
+    private static final class Window {
+        private long value;
+        private long min;
+        private long blockedSinceNs = -1;
+        private long blockedNs;
+        private boolean frozen;
+
+        Window(long initial) {
+            this.value = initial;
+            this.min = initial;
+        }
+
+        void add(long delta, long now) {
+            value += delta;
+            min = Math.min(min, value);
+            if (frozen) {
+                return;
+            }
+            if (value <= 0 && blockedSinceNs < 0) {
+                blockedSinceNs = now;
+            } else if (value > 0 && blockedSinceNs >= 0) {
+                blockedNs += now - blockedSinceNs;
+                blockedSinceNs = -1;
+            }
+        }
+
+        /** Stops counting blocked time: the sender has nothing more to send. */
+        void freeze(long now) {
+            if (blockedSinceNs >= 0) {
+                blockedNs += now - blockedSinceNs;
+                blockedSinceNs = -1;
+            }
+            frozen = true;
+        }
+
+        long blockedNs(long now) {
+            return blockedNs + (blockedSinceNs >= 0 ? now - blockedSinceNs : 0);
+        }
+    }
+
+    private static int int32(byte[] b, int off) {
+        return ((b[off] & 0xff) << 24) | ((b[off + 1] & 0xff) << 16) | ((b[off + 2] & 0xff) << 8) | (b[off + 3] & 0xff);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
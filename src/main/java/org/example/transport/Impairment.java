@@ -0,0 +1,197 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.transport;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * Network impairment applied by {@link ImpairmentProxy} to one direction of a TCP connection:
+ * the knobs of {@code tc qdisc ... netem} (delay, jitter, loss, rate) plus segment stalls and
+ * connection resets. {@link #none()} forwards bytes untouched.
+ *
+ * <p>The proxy sees a byte stream, not packets, so loss cannot drop data. A "lost" segment is
+ * instead held back for one retransmission timeout, which is what the receiving application
+ * observes when TCP recovers a dropped packet.
+ */
+public final class Impairment {
+    private static final Impairment NONE = builder().build();
+
+    private final int latencyMs;
+    private final int jitterMs;
+    private final double lossPercent;
+    private final long bandwidthKbps;
+    private final long stallEveryBytes;
+    private final int stallMs;
+    private final long resetAfterBytes;
+    private final long maxQueuedBytes;
+
+    private Impairment(Builder b) {
+        this.latencyMs = b.latencyMs;
+        this.jitterMs = b.jitterMs;
+        this.lossPercent = b.lossPercent;
+        this.bandwidthKbps = b.bandwidthKbps;
+        this.stallEveryBytes = b.stallEveryBytes;
+        this.stallMs = b.stallMs;
+        this.resetAfterBytes = b.resetAfterBytes;
+        this.maxQueuedBytes = b.maxQueuedBytes;
+    }
+
+    public static Impairment none() {
+        return NONE;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** One-way delay added to every segment. */
+    public int latencyMs() {
+        return latencyMs;
+    }
+
+    /** Uniform ± variation of the delay; segments still arrive in order, as TCP delivers them. */
+    public int jitterMs() {
+        return jitterMs;
+    }
+
+    /** Share of segments that pay a retransmission timeout (see the class comment). */
+    public double lossPercent() {
+        return lossPercent;
+    }
+
+    /** Link rate in kilobits per second (0 = unlimited). */
+    public long bandwidthKbps() {
+        return bandwidthKbps;
+    }
+
+    /** Pause the direction for {@link #stallMs()} after every this many bytes (0 = never). */
+    public long stallEveryBytes() {
+        return stallEveryBytes;
+    }
+
+    public int stallMs() {
+        return stallMs;
+    }
+
+    /** Reset (RST) the whole connection once this direction has carried this many bytes (0 = never). */
+    public long resetAfterBytes() {
+        return resetAfterBytes;
+    }
+
+    /** Bytes queued in the proxy before it stops reading from the sender (the netem queue limit). */
+    public long maxQueuedBytes() {
+        return maxQueuedBytes;
+    }
+
+    /**
+     * Retransmission timeout charged for a lost segment: Linux's 200 ms minimum, or two round
+     * trips when the configured delay is longer.
+     */
+    long retransmitMs() {
+        return Math.max(200, 4L * latencyMs);
+    }
+
+    /** True when the impairment changes anything. */
+    public boolean active() {
+        return latencyMs > 0 || jitterMs > 0 || lossPercent > 0 || bandwidthKbps > 0
+                || stallEveryBytes > 0 || resetAfterBytes > 0;
+    }
+
+    public String describe() {
+        if (!active()) {
+            return "none";
+        }
+        StringJoiner d = new StringJoiner(" ");
+        if (latencyMs > 0 || jitterMs > 0) {
+            d.add(jitterMs > 0 ? "delay=" + latencyMs + "±" + jitterMs + "ms" : "delay=" + latencyMs + "ms");
+        }
+        if (lossPercent > 0) {
+            d.add(String.format(Locale.ROOT, "loss=%.1f%%", lossPercent));
+        }
+        if (bandwidthKbps > 0) {
+            d.add("rate=" + bandwidthKbps + "kbit");
+        }
+        if (stallEveryBytes > 0) {
+            d.add("stall=" + stallMs + "ms/" + stallEveryBytes + "B");
+        }
+        if (resetAfterBytes > 0) {
+            d.add("reset@" + resetAfterBytes + "B");
+        }
+        return d.toString();
+    }
+
+    public static final class Builder {
+        private int latencyMs;
+        private int jitterMs;
+        private double lossPercent;
+        private long bandwidthKbps;
+        private long stallEveryBytes;
+        private int stallMs;
+        private long resetAfterBytes;
+        private long maxQueuedBytes = 64L * 1024 * 1024;
+
+        private Builder() {
+        }
+
+        public Builder latencyMs(int latencyMs) {
+            if (latencyMs < 0) {
+                throw new IllegalArgumentException("latencyMs must be >= 0: " + latencyMs);
+            }
+            this.latencyMs = latencyMs;
+            return this;
+        }
+
+        public Builder jitterMs(int jitterMs) {
+            if (jitterMs < 0) {
+                throw new IllegalArgumentException("jitterMs must be >= 0: " + jitterMs);
+            }
+            this.jitterMs = jitterMs;
+            return this;
+        }
+
+        public Builder lossPercent(double lossPercent) {
+            if (lossPercent < 0 || lossPercent > 100) {
+                throw new IllegalArgumentException("lossPercent must be in [0, 100]: " + lossPercent);
+            }
+            this.lossPercent = lossPercent;
+            return this;
+        }
+
+        public Builder bandwidthKbps(long bandwidthKbps) {
+            if (bandwidthKbps < 0) {
+                throw new IllegalArgumentException("bandwidthKbps must be >= 0: " + bandwidthKbps);
+            }
+            this.bandwidthKbps = bandwidthKbps;
+            return this;
+        }
+
+        public Builder stall(long everyBytes, int stallMs) {
+            if (everyBytes < 0 || stallMs < 0) {
+                throw new IllegalArgumentException("stall bytes and ms must be >= 0: " + everyBytes + ", " + stallMs);
+            }
+            this.stallEveryBytes = everyBytes;
+            this.stallMs = stallMs;
+            return this;
+        }
+
+        public Builder resetAfterBytes(long resetAfterBytes) {
+            if (resetAfterBytes < 0) {
+                throw new IllegalArgumentException("resetAfterBytes must be >= 0: " + resetAfterBytes);
+            }
+            this.resetAfterBytes = resetAfterBytes;
+            return this;
+        }
+
+        public Builder maxQueuedBytes(long maxQueuedBytes) {
+            if (maxQueuedBytes < 64 * 1024) {
+                throw new IllegalArgumentException("maxQueuedBytes must be >= 64 KiB: " + maxQueuedBytes);
+            }
+            this.maxQueuedBytes = maxQueuedBytes;
+            return this;
+        }
+
+        public Impairment build() {
+            return new Impairment(this);
+        }
+    }
+}
@@ -0,0 +1,439 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-JVM TCP proxy that applies an {@link Impairment} to each direction of every connection it
+ * forwards, so the chaos and stall scenarios otherwise driven by {@code tc netem} on a Kind
+ * node can run between a client and a server in the same process.
+ *
+ * <p>One selector thread accepts, connects, reads and writes; the upstream connect is
+ * non-blocking, so a slow or unreachable target never stalls other connections. Every read becomes a segment with a due
+ * time: it leaves the (optionally rate-limited) link after the segments before it, then pays
+ * the delay, jitter, stall and loss penalties. Due times never decrease within a direction, so
+ * bytes arrive in order. When a direction has {@link Impairment#maxQueuedBytes()} queued the
+ * proxy stops reading from its sender, and TCP flow control pushes back on the peer as a full
+ * netem queue would. A half-close is forwarded after the data before it; a reset closes both
+ * sockets with {@code SO_LINGER 0}, so both peers see RST.
+ *
+ * <p>An optional {@link Tap} sees every byte as it is read, before any impairment, without
+ * changing what is forwarded.
+ */
+public final class ImpairmentProxy implements AutoCloseable {
+    private static final int READ_BYTES = 64 * 1024;
+    private static final int CONNECT_TIMEOUT_MS = 5_000;
+
+    /** Read-only observer of the proxied byte streams; called on the proxy thread. */
+    public interface Tap {
+        Observer open(long connection);
+
+        interface Observer {
+            /** {@code data} holds the bytes just read; {@code upstream} is client → server. */
+            void onBytes(boolean upstream, ByteBuffer data, long nowNs);
+
+            void onClose(long nowNs);
+        }
+    }
+
+    private final InetSocketAddress target;
+    private final Impairment upstream;
+    private final Impairment downstream;
+    private final Tap tap;
+    private final Selector selector;
+    private final ServerSocketChannel listener;
+    private final Thread loop;
+    private final List<Connection> connections = new ArrayList<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private volatile boolean running = true;
+
+    private ImpairmentProxy(InetSocketAddress listen, InetSocketAddress target, Impairment upstream,
+                            Impairment downstream, Tap tap) throws IOException {
+        this.target = target;
+        this.upstream = upstream;
+        this.downstream = downstream;
+        this.tap = tap;
+        this.selector = Selector.open();
+        this.listener = ServerSocketChannel.open();
+        listener.bind(listen);
+        listener.configureBlocking(false);
+        listener.register(selector, SelectionKey.OP_ACCEPT);
+        this.loop = new Thread(this::run, "impairment-proxy");
+        loop.setDaemon(true);
+        loop.start();
+    }
+
+    /**
+     * Listens on an ephemeral localhost port and forwards to {@code target}; {@code upstream}
+     * applies to client → server bytes, {@code downstream} to server → client bytes.
+     */
+    public static ImpairmentProxy start(InetSocketAddress target, Impairment upstream, Impairment downstream)
+            throws IOException {
+        return new ImpairmentProxy(new InetSocketAddress("localhost", 0), target, upstream, downstream, null);
+    }
+
+    /** Listens on {@code listen} and reports every connection to {@code tap} (may be null). */
+    public static ImpairmentProxy start(InetSocketAddress listen, InetSocketAddress target, Impairment upstream,
+                                        Impairment downstream, Tap tap) throws IOException {
+        return new ImpairmentProxy(listen, target, upstream, downstream, tap);
+    }
+
+    /** Forwards unimpaired from an ephemeral localhost port to {@code target}, reporting to {@code tap}. */
+    public static ImpairmentProxy tap(InetSocketAddress target, Tap tap) throws IOException {
+        return start(new InetSocketAddress("localhost", 0), target, Impairment.none(), Impairment.none(), tap);
+    }
+
+    public int port() {
+        return listener.socket().getLocalPort();
+    }
+
+    /** Connections accepted so far. */
+    public long connections() {
+        return accepted.get();
+    }
+
+    /** Connections reset by {@link Impairment#resetAfterBytes()}. */
+    public long resets() {
+        return resets.get();
+    }
+
+    public String describe() {
+        return "up[" + upstream.describe() + "] down[" + downstream.describe() + "]";
+    }
+
+    /**
+     * Stops the proxy thread, which closes the connections and the selector it owns on its way
+     * out; if it has not stopped within 5 s that cleanup is left to it and reported.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            loop.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (loop.isAlive()) {
+            System.err.println("⚠️  impairment proxy thread did not stop within 5 s; "
+                    + "its connections close when it does");
+        }
+        listener.close();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                long now = System.nanoTime();
+                long nextDueNs = Long.MAX_VALUE;
+                for (Iterator<Connection> it = connections.iterator(); it.hasNext(); ) {
+                    Connection c = it.next();
+                    if (!c.closed) {
+                        nextDueNs = Math.min(nextDueNs, c.pump(now));
+                    }
+                    if (c.closed) {
+                        it.remove();
+                    }
+                }
+                if (nextDueNs == Long.MAX_VALUE) {
+                    selector.select();
+                } else {
+                    long waitNs = nextDueNs - System.nanoTime();
+                    if (waitNs > 0) {
+                        // Round up: a segment due in under 1 ms must not turn into a selectNow spin.
+                        selector.select((waitNs + 999_999) / 1_000_000);
+                    } else {
+                        selector.selectNow();
+                    }
+                }
+                for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); ) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.attachment() instanceof Connection c && !c.closed) {
+                        c.onReady(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("⚠️  impairment proxy stopped: " + e);
+            }
+        } finally {
+            for (Connection c : connections) {
+                c.close(false);
+            }
+            connections.clear();
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // nothing left to release
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client = listener.accept();
+        if (client == null) {
+            return;
+        }
+        SocketChannel server = SocketChannel.open();
+        boolean connected;
+        try {
+            server.configureBlocking(false);
+            connected = server.connect(target);
+        } catch (IOException e) {
+            unreachable(e);
+            server.close();
+            client.close();
+            return;
+        }
+        long id = accepted.incrementAndGet();
+        connections.add(new Connection(client, server, connected, tap != null ? tap.open(id) : null));
+    }
+
+    private void unreachable(IOException e) {
+        System.err.println("⚠️  impairment proxy cannot reach " + target + ": " + e);
+    }
+
+    /**
+     * One proxied connection: a client and a server socket and a pipe for each direction. Until
+     * the server socket finishes connecting, only {@code OP_CONNECT} is selected and the client
+     * is not read.
+     */
+    private final class Connection {
+        private final SocketChannel client;
+        private final SocketChannel server;
+        private final SelectionKey clientKey;
+        private final SelectionKey serverKey;
+        private final Pipe up;
+        private final Pipe down;
+        private final Tap.Observer observer;
+        private final long connectDeadlineNs;
+        private boolean connecting;
+        private boolean closed;
+
+        Connection(SocketChannel client, SocketChannel server, boolean connected, Tap.Observer observer)
+                throws IOException {
+            this.client = client;
+            this.server = server;
+            this.observer = observer;
+            this.connecting = !connected;
+            this.connectDeadlineNs = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONNECT_TIMEOUT_MS);
+            client.configureBlocking(false);
+            for (SocketChannel ch : List.of(client, server)) {
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+            this.up = new Pipe(client, server, upstream, true);
+            this.down = new Pipe(server, client, downstream, false);
+            this.clientKey = client.register(selector, connecting ? 0 : SelectionKey.OP_READ, this);
+            this.serverKey = server.register(selector, connecting ? SelectionKey.OP_CONNECT : SelectionKey.OP_READ, this);
+        }
+
+        void onReady(SelectionKey key) {
+            try {
+                long now = System.nanoTime();
+                if (connecting) {
+                    // pump() switches both keys to reads and writes on the next turn.
+                    if (key == serverKey && key.isConnectable() && server.finishConnect()) {
+                        connecting = false;
+                    }
+                    return;
+                }
+                boolean fromClient = key == clientKey;
+                if (key.isReadable()) {
+                    (fromClient ? up : down).read(now);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    (fromClient ? down : up).write(now);
+                }
+            } catch (IOException e) {
+                if (connecting) {
+                    unreachable(e);
+                }
+                close(false);
+            }
+        }
+
+        /** Writes every due segment and returns the next due time (MAX_VALUE when idle or blocked). */
+        long pump(long now) {
+            if (connecting) {
+                if (now - connectDeadlineNs >= 0) {
+                    unreachable(new IOException("connect timed out after " + CONNECT_TIMEOUT_MS + " ms"));
+                    close(false);
+                    return Long.MAX_VALUE;
+                }
+                return connectDeadlineNs;
+            }
+            try {
+                long next = Math.min(up.write(now), down.write(now));
+                if (up.finished() && down.finished()) {
+                    close(false);
+                    return Long.MAX_VALUE;
+                }
+                clientKey.interestOps((up.reading() ? SelectionKey.OP_READ : 0)
+                        | (down.blocked ? SelectionKey.OP_WRITE : 0));
+                serverKey.interestOps((down.reading() ? SelectionKey.OP_READ : 0)
+                        | (up.blocked ? SelectionKey.OP_WRITE : 0));
+                return next;
+            } catch (IOException e) {
+                close(false);
+                return Long.MAX_VALUE;
+            }
+        }
+
+        void close(boolean reset) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (observer != null) {
+                observer.onClose(System.nanoTime());
+            }
+            for (SocketChannel ch : List.of(client, server)) {
+                try {
+                    if (reset) {
+                        ch.setOption(StandardSocketOptions.SO_LINGER, 0);
+                    }
+                    ch.close();
+                } catch (IOException ignored) {
+                    // already gone
+                }
+            }
+        }
+
+        /** One direction: reads from {@code from}, queues timed segments, writes them to {@code to}. */
+        private final class Pipe {
+            private final SocketChannel from;
+            private final SocketChannel to;
+            private final Impairment impairment;
+            private final boolean upstream;
+            private final ArrayDeque<Segment> queue = new ArrayDeque<>();
+            private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BYTES);
+            private long queuedBytes;
+            private long linkFreeNs;
+            private long lastDueNs;
+            private long sinceStall;
+            private long carried;
+            private boolean eof;
+            private boolean shutdown;
+            private boolean blocked;
+
+            Pipe(SocketChannel from, SocketChannel to, Impairment impairment, boolean upstream) {
+                this.from = from;
+                this.to = to;
+                this.impairment = impairment;
+                this.upstream = upstream;
+            }
+
+            boolean reading() {
+                return !eof && queuedBytes < impairment.maxQueuedBytes();
+            }
+
+            boolean finished() {
+                return shutdown;
+            }
+
+            void read(long now) throws IOException {
+                while (reading()) {
+                    readBuffer.clear();
+                    int n = from.read(readBuffer);
+                    if (n == 0) {
+                        return;
+                    }
+                    if (n < 0) {
+                        eof = true;
+                        queue.add(new Segment(null, Math.max(now, lastDueNs)));
+                        return;
+                    }
+                    readBuffer.flip();
+                    if (observer != null) {
+                        observer.onBytes(upstream, readBuffer.asReadOnlyBuffer(), now);
+                    }
+                    ByteBuffer data = ByteBuffer.allocate(n).put(readBuffer).flip();
+                    queue.add(new Segment(data, dueNs(now, n)));
+                    queuedBytes += n;
+                    carried += n;
+                    if (impairment.resetAfterBytes() > 0 && carried >= impairment.resetAfterBytes()) {
+                        resets.incrementAndGet();
+                        close(true);
+                        return;
+                    }
+                }
+            }
+
+            private long dueNs(long now, int n) {
+                long departNs = Math.max(now, linkFreeNs);
+                if (impairment.bandwidthKbps() > 0) {
+                    departNs += n * 8_000_000L / impairment.bandwidthKbps();
+                }
+                sinceStall += n;
+                if (impairment.stallEveryBytes() > 0 && sinceStall >= impairment.stallEveryBytes()) {
+                    sinceStall = 0;
+                    departNs += TimeUnit.MILLISECONDS.toNanos(impairment.stallMs());
+                }
+                linkFreeNs = departNs;
+                long delayMs = impairment.latencyMs();
+                if (impairment.jitterMs() > 0) {
+                    delayMs = Math.max(0, delayMs + random.nextInt(-impairment.jitterMs(), impairment.jitterMs() + 1));
+                }
+                if (impairment.lossPercent() > 0 && random.nextDouble() * 100 < impairment.lossPercent()) {
+                    delayMs += impairment.retransmitMs();
+                }
+                lastDueNs = Math.max(lastDueNs, departNs + TimeUnit.MILLISECONDS.toNanos(delayMs));
+                return lastDueNs;
+            }
+
+            long write(long now) throws IOException {
+                blocked = false;
+                Segment head;
+                while ((head = queue.peek()) != null) {
+                    if (head.dueNs() > now) {
+                        return head.dueNs();
+                    }
+                    if (head.data() == null) {
+                        queue.poll();
+                        if (!shutdown) {
+                            shutdown = true;
+                            to.shutdownOutput();
+                        }
+                        continue;
+                    }
+                    int before = head.data().remaining();
+                    to.write(head.data());
+                    queuedBytes -= before - head.data().remaining();
+                    if (head.data().hasRemaining()) {
+                        blocked = true;
+                        return Long.MAX_VALUE;
+                    }
+                    queue.poll();
+                }
+                return Long.MAX_VALUE;
+            }
+        }
+    }
+
+    /** Bytes due at {@code dueNs}; null data marks the sender's half-close. */
+    private record Segment(ByteBuffer data, long dueNs) {
+    }
+}
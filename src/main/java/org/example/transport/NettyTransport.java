@@ -0,0 +1,178 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.transport;
+
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.Channel;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.ServerChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Socket transport and event-loop groups for the grpc-netty server and client.
+ *
+ * <p>{@code auto} with no group sizes leaves grpc-netty's own choice untouched (native epoll
+ * when it loads, NIO otherwise). Any other setting makes this class create the groups itself:
+ * {@code nio} forces the JDK selector transport, {@code epoll} the native transport shipped in
+ * grpc-netty-shaded. {@code io_uring} is accepted but grpc-netty-shaded does not bundle an
+ * io_uring transport (the unshaded incubator one cannot be plugged into shaded Netty), so it
+ * falls back like {@code auto}. {@link #active()} always names the transport actually in use.
+ *
+ * <p>The {@code forDomainSocket*} variants run gRPC over a Unix domain socket with epoll's
+ * domain-socket channels: same Netty pipeline and HTTP/2 codec, no TCP/IP stack. They need the
+ * native epoll transport (Linux).
+ */
+public final class NettyTransport implements AutoCloseable {
+    public enum Kind { AUTO, NIO, EPOLL, IO_URING }
+
+    private final Kind requested;
+    private final boolean epoll;
+    private final boolean custom;
+    private final boolean domain;
+    private final EventLoopGroup boss;
+    private final EventLoopGroup workers;
+
+    private NettyTransport(Kind requested, boolean epoll, boolean custom, boolean domain, EventLoopGroup boss,
+                           EventLoopGroup workers) {
+        this.requested = requested;
+        this.epoll = epoll;
+        this.custom = custom;
+        this.domain = domain;
+        this.boss = boss;
+        this.workers = workers;
+    }
+
+    /** Parses {@code auto}, {@code nio}, {@code epoll} or {@code io_uring} (also {@code iouring}). */
+    public static Kind parse(String spec) {
+        return switch (spec.trim().toLowerCase(Locale.ROOT)) {
+            case "auto" -> Kind.AUTO;
+            case "nio" -> Kind.NIO;
+            case "epoll" -> Kind.EPOLL;
+            case "io_uring", "iouring", "io-uring" -> Kind.IO_URING;
+            default -> throw new IllegalArgumentException(
+                    "Unknown transport '" + spec + "', expected auto, nio, epoll or io_uring");
+        };
+    }
+
+    /** Server transport; group sizes of 0 use Netty's defaults (1 boss, 2 × CPU workers). */
+    public static NettyTransport forServer(Kind kind, int bossThreads, int workerThreads) {
+        boolean epoll = useEpoll(kind);
+        if (kind == Kind.AUTO && bossThreads == 0 && workerThreads == 0) {
+            return new NettyTransport(kind, epoll, false, false, null, null);
+        }
+        return new NettyTransport(kind, epoll, true, false,
+                group(epoll, Math.max(1, bossThreads), "netty-boss"),
+                group(epoll, workerThreads, "netty-worker"));
+    }
+
+    /** Client transport shared by every channel of a run; 0 threads uses Netty's default. */
+    public static NettyTransport forClient(Kind kind, int workerThreads) {
+        boolean epoll = useEpoll(kind);
+        if (kind == Kind.AUTO && workerThreads == 0) {
+            return new NettyTransport(kind, epoll, false, false, null, null);
+        }
+        return new NettyTransport(kind, epoll, true, false, null, group(epoll, workerThreads, "netty-client"));
+    }
+
+    /** Unix-domain-socket server transport; group sizes as for {@link #forServer}. */
+    public static NettyTransport forDomainSocketServer(int bossThreads, int workerThreads) {
+        requireEpoll();
+        return new NettyTransport(Kind.EPOLL, true, true, true,
+                group(true, Math.max(1, bossThreads), "netty-boss"),
+                group(true, workerThreads, "netty-worker"));
+    }
+
+    /** Unix-domain-socket client transport shared by every channel of a run. */
+    public static NettyTransport forDomainSocketClient(int workerThreads) {
+        requireEpoll();
+        return new NettyTransport(Kind.EPOLL, true, true, true, null, group(true, workerThreads, "netty-client"));
+    }
+
+    /** Address of the socket file at {@code path}. */
+    public static SocketAddress domainSocket(Path path) {
+        return new DomainSocketAddress(path.toAbsolutePath().toString());
+    }
+
+    private static void requireEpoll() {
+        if (!Epoll.isAvailable()) {
+            throw new IllegalStateException("Unix domain sockets need the native epoll transport (Linux): "
+                    + Epoll.unavailabilityCause());
+        }
+    }
+
+    private static boolean useEpoll(Kind kind) {
+        if (kind == Kind.NIO) {
+            return false;
+        }
+        if (kind == Kind.IO_URING) {
+            System.err.printf("⚠️  io_uring is not bundled with grpc-netty-shaded; using %s%n",
+                    Epoll.isAvailable() ? "epoll" : "nio");
+        } else if (kind == Kind.EPOLL && !Epoll.isAvailable()) {
+            System.err.println("⚠️  epoll unavailable (" + Epoll.unavailabilityCause() + "); using nio");
+        }
+        return Epoll.isAvailable();
+    }
+
+    private static EventLoopGroup group(boolean epoll, int threads, String name) {
+        ThreadFactory factory = new DefaultThreadFactory(name, true);
+        return epoll ? new EpollEventLoopGroup(threads, factory) : new NioEventLoopGroup(threads, factory);
+    }
+
+    public NettyServerBuilder configure(NettyServerBuilder builder) {
+        if (!custom) {
+            return builder;
+        }
+        Class<? extends ServerChannel> type = domain ? EpollServerDomainSocketChannel.class
+                : epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+        return builder.channelType(type).bossEventLoopGroup(boss).workerEventLoopGroup(workers);
+    }
+
+    public NettyChannelBuilder configure(NettyChannelBuilder builder) {
+        if (!custom) {
+            return builder;
+        }
+        Class<? extends Channel> type = domain ? EpollDomainSocketChannel.class
+                : epoll ? EpollSocketChannel.class : NioSocketChannel.class;
+        return builder.channelType(type).eventLoopGroup(workers);
+    }
+
+    /** Transport in use: {@code epoll}, {@code nio} or {@code uds}. */
+    public String active() {
+        return domain ? "uds" : epoll ? "epoll" : "nio";
+    }
+
+    /** e.g. {@code epoll} or {@code nio (requested io_uring)}. */
+    public String describe() {
+        if (domain) {
+            return "uds (epoll)";
+        }
+        String name = requested.name().toLowerCase(Locale.ROOT);
+        return requested == Kind.AUTO || name.equals(active()) ? active() : active() + " (requested " + name + ")";
+    }
+
+    /** Shuts down the groups this transport created, once the server or channels are closed. */
+    @Override
+    public void close() {
+        if (boss != null) {
+            boss.shutdownGracefully();
+        }
+        if (workers != null) {
+            workers.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.tuning;
+
+import org.example.common.AsyncConsole;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Searches {@link TuningProfile} settings for the highest throughput at one payload size.
+ *
+ * <p>The search runs a coarse grid over every {@link Dimension} (each value list is a handful of
+ * powers of two), then hill-climbs from the best grid point: each step probes every dimension at
+ * half and double its current value and moves to the best neighbour, until no neighbour beats
+ * the current point by more than {@value #MIN_GAIN_PCT}% or {@code maxSteps} is reached. Every
+ * probe is cached by point, so a revisited point costs nothing, and every probe becomes one row
+ * of the throughput surface written by {@link #writeCsv}.
+ */
+public final class AutoTuner {
+    private static final double MIN_GAIN_PCT = 2.0;
+
+    /** One tuned setting: its grid values and the bounds the hill-climb may not leave. */
+    public record Dimension(TuningProfile.Knob knob, long min, long max, List<Long> grid) {
+    }
+
+    /** Outcome of one measured burst; {@code error} is null when the burst completed. */
+    public record Sample(double mbps, double p99Micros, String error) {
+    }
+
+    /** Runs one measured burst with {@code profile}. */
+    @FunctionalInterface
+    public interface Probe {
+        Sample run(TuningProfile profile) throws Exception;
+    }
+
+    /** A probed point of the surface. */
+    public record Row(String phase, Map<TuningProfile.Knob, Long> point, Sample sample, String profile) {
+    }
+
+    private final List<Dimension> dimensions;
+    private final String baseFile;
+    private final String baseOverrides;
+    private final Probe probe;
+    private final Map<Map<TuningProfile.Knob, Long>, Row> cache = new HashMap<>();
+    private final List<Row> rows = new ArrayList<>();
+
+    /**
+     * @param baseFile      profile file the tuned values are layered on (null for defaults)
+     * @param baseOverrides {@code --set} overrides applied before the tuned values (may be null)
+     */
+    public AutoTuner(List<Dimension> dimensions, String baseFile, String baseOverrides, Probe probe) {
+        this.dimensions = List.copyOf(dimensions);
+        this.baseFile = baseFile;
+        this.baseOverrides = baseOverrides;
+        this.probe = probe;
+    }
+
+    /** Powers of two from {@code from} to {@code to} inclusive, multiplying by {@code step}. */
+    public static List<Long> powers(long from, long to, int step) {
+        List<Long> values = new ArrayList<>();
+        for (long v = from; v <= to; v *= step) {
+            values.add(v);
+        }
+        return values;
+    }
+
+    /** Runs the grid and the hill-climb and returns the best row. */
+    public Row run(int maxSteps) throws Exception {
+        Row best = null;
+        for (Map<TuningProfile.Knob, Long> point : gridPoints()) {
+            best = better(best, measure("grid", point));
+        }
+        if (best == null) {
+            throw new IllegalStateException("Every grid point failed; see the errors above");
+        }
+        for (int step = 1; step <= maxSteps; step++) {
+            Row current = best;
+            Row next = current;
+            for (Dimension d : dimensions) {
+                long v = current.point().get(d.knob());
+                for (long candidate : new long[] {v / 2, v * 2}) {
+                    if (candidate < d.min() || candidate > d.max()) {
+                        continue;
+                    }
+                    Map<TuningProfile.Knob, Long> neighbour = new EnumMap<>(current.point());
+                    neighbour.put(d.knob(), candidate);
+                    next = better(next, measure("climb-" + step, neighbour));
+                }
+            }
+            if (next == current || next.sample().mbps() < current.sample().mbps() * (1 + MIN_GAIN_PCT / 100)) {
+                break;
+            }
+            best = next;
+        }
+        return best;
+    }
+
+    private List<Map<TuningProfile.Knob, Long>> gridPoints() {
+        List<Map<TuningProfile.Knob, Long>> points = new ArrayList<>();
+        points.add(new EnumMap<>(TuningProfile.Knob.class));
+        for (Dimension d : dimensions) {
+            List<Map<TuningProfile.Knob, Long>> expanded = new ArrayList<>(points.size() * d.grid().size());
+            for (Map<TuningProfile.Knob, Long> p : points) {
+                for (long v : d.grid()) {
+                    Map<TuningProfile.Knob, Long> q = new EnumMap<>(TuningProfile.Knob.class);
+                    q.putAll(p);
+                    q.put(d.knob(), v);
+                    expanded.add(q);
+                }
+            }
+            points = expanded;
+        }
+        return points;
+    }
+
+    private static Row better(Row best, Row candidate) {
+        if (candidate.sample().error() != null) {
+            return best;
+        }
+        return best == null || candidate.sample().mbps() > best.sample().mbps() ? candidate : best;
+    }
+
+    private Row measure(String phase, Map<TuningProfile.Knob, Long> point) throws Exception {
+        Row cached = cache.get(point);
+        if (cached != null) {
+            return cached;
+        }
+        TuningProfile profile = profile(point);
+        AsyncConsole.printf(Locale.ROOT, "🔧 [%s %d] %s%n", phase, rows.size() + 1, overrides(point));
+        Sample sample;
+        try {
+            sample = probe.run(profile);
+        } catch (Exception e) {
+            sample = new Sample(0, 0, e.getClass().getSimpleName());
+        }
+        Row row = new Row(phase, Collections.unmodifiableMap(new EnumMap<>(point)), sample, profile.describe());
+        cache.put(row.point(), row);
+        rows.add(row);
+        return row;
+    }
+
+    /** The base profile with {@code point} layered on top. */
+    public TuningProfile profile(Map<TuningProfile.Knob, Long> point) throws IOException {
+        String tuned = overrides(point);
+        String all = baseOverrides == null || baseOverrides.isBlank() ? tuned : baseOverrides + "," + tuned;
+        return TuningProfile.load(baseFile, all);
+    }
+
+    /** {@code --set} form of {@code point}, in dimension order. */
+    public String overrides(Map<TuningProfile.Knob, Long> point) {
+        StringJoiner set = new StringJoiner(",");
+        for (Dimension d : dimensions) {
+            Long v = point.get(d.knob());
+            if (v != null) {
+                set.add(d.knob().key() + "=" + v);
+            }
+        }
+        return set.toString();
+    }
+
+    /** Every probed point, one row each: phase, the tuned values, then mbps, p99Us, error, profile. */
+    public void writeCsv(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            StringJoiner header = new StringJoiner(",");
+            header.add("phase");
+            dimensions.forEach(d -> header.add(d.knob().key()));
+            header.add("mbps").add("p99Us").add("error").add("profile");
+            out.println(header);
+            for (Row r : rows) {
+                StringJoiner line = new StringJoiner(",");
+                line.add(r.phase());
+                dimensions.forEach(d -> line.add(String.valueOf(r.point().get(d.knob()))));
+                line.add(String.format(Locale.ROOT, "%.2f", r.sample().mbps()))
+                        .add(String.format(Locale.ROOT, "%.0f", r.sample().p99Micros()))
+                        .add(r.sample().error() == null ? "" : r.sample().error())
+                        .add(r.profile());
+                out.println(line);
+            }
+        }
+    }
+
+    /** Writes every effective setting of {@code best} as a profile file usable with {@code --profile}. */
+    public void writeProfile(Path file, Row best, String comment) throws IOException {
+        TuningProfile profile = profile(best.point());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("# " + comment);
+            out.printf(Locale.ROOT, "# %.2f MB/s, p99 %.0f us, tuned: %s%n",
+                    best.sample().mbps(), best.sample().p99Micros(), overrides(best.point()));
+            for (TuningProfile.Knob k : TuningProfile.Knob.values()) {
+                out.println(k.key() + "=" + profile.value(k));
+            }
+        }
+    }
+
+    public List<Row> rows() {
+        return List.copyOf(rows);
+    }
+}
@@ -0,0 +1,204 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.tuning;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.StringJoiner;
+import java.util.zip.CRC32;
+
+/**
+ * HTTP/2 and gRPC settings of both servers and both clients, so a configuration can be swept
+ * without rebuilding and every result can be tied to the settings that produced it.
+ *
+ * <p>A profile starts from the built-in {@link Knob} defaults (the values previously hard-coded
+ * in the servers and clients), is overlaid with an optional properties file
+ * ({@code --profile <file>}) and then with {@code key=value} overrides ({@code --set}). Sizes
+ * accept {@code KB}/{@code MB}/{@code GB} suffixes. {@link #describe()} yields
+ * {@code <name>@<hash>}, where the hash covers every effective value, so two runs with the same
+ * label really ran the same settings.
+ */
+public final class TuningProfile {
+    private static final TuningProfile DEFAULTS = new TuningProfile("default", new EnumMap<>(Knob.class));
+
+    /** Every tunable setting, keyed as in the profile file. */
+    public enum Knob {
+        NETTY_SERVER_FLOW_CONTROL_WINDOW("netty.server.flowControlWindow", "32MB"),
+        NETTY_SERVER_MAX_INBOUND_MESSAGE_SIZE("netty.server.maxInboundMessageSize", "32MB"),
+        NETTY_SERVER_MAX_CONCURRENT_CALLS("netty.server.maxConcurrentCallsPerConnection", "2147483647"),
+        NETTY_SERVER_MAX_INBOUND_METADATA_SIZE("netty.server.maxInboundMetadataSize", "8KB"),
+        HELIDON_SERVER_INITIAL_WINDOW_SIZE("helidon.server.initialWindowSize", "32MB"),
+        HELIDON_SERVER_MAX_FRAME_SIZE("helidon.server.maxFrameSize", "8MB"),
+        HELIDON_SERVER_MAX_CONCURRENT_STREAMS("helidon.server.maxConcurrentStreams", "8192"),
+        HELIDON_SERVER_MAX_BUFFERED_ENTITY_SIZE("helidon.server.maxBufferedEntitySize", "128MB"),
+        HELIDON_SERVER_MAX_READ_BUFFER_SIZE("helidon.server.maxReadBufferSize", "32MB"),
+        HELIDON_SERVER_WRITE_QUEUE_LENGTH("helidon.server.writeQueueLength", "8192"),
+        HELIDON_SERVER_BACKLOG("helidon.server.backlog", "8192"),
+        HELIDON_SERVER_TCP_NO_DELAY("helidon.server.tcpNoDelay", "true"),
+        NETTY_CLIENT_FLOW_CONTROL_WINDOW("netty.client.flowControlWindow", "32MB"),
+        NETTY_CLIENT_MAX_INBOUND_MESSAGE_SIZE("netty.client.maxInboundMessageSize", "32MB"),
+        HELIDON_CLIENT_INITIAL_WINDOW_SIZE("helidon.client.initialWindowSize", "2MB"),
+        HELIDON_CLIENT_MAX_FRAME_SIZE("helidon.client.maxFrameSize", "2MB"),
+        HELIDON_CLIENT_INIT_BUFFER_SIZE("helidon.client.initBufferSize", "2MB");
+
+        private final String key;
+        private final String defaultValue;
+
+        Knob(String key, String defaultValue) {
+            this.key = key;
+            this.defaultValue = defaultValue;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public String defaultValue() {
+            return defaultValue;
+        }
+
+        static Knob forKey(String key) {
+            for (Knob k : values()) {
+                if (k.key.equals(key)) {
+                    return k;
+                }
+            }
+            throw new IllegalArgumentException("Unknown tuning key '" + key + "'");
+        }
+    }
+
+    private final String name;
+    private final Map<Knob, String> overrides;
+
+    private TuningProfile(String name, Map<Knob, String> overrides) {
+        this.name = name;
+        this.overrides = overrides;
+    }
+
+    /** The built-in settings. */
+    public static TuningProfile defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Loads {@code file} (null for none) over the defaults, then applies {@code overrides}, a
+     * comma-separated {@code key=value} list (null or empty for none).
+     */
+    public static TuningProfile load(String file, String overrides) throws IOException {
+        Map<Knob, String> values = new EnumMap<>(Knob.class);
+        String name = "default";
+        if (file != null) {
+            Path path = Path.of(file);
+            Properties props = new Properties();
+            try (Reader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                props.load(in);
+            }
+            for (String key : props.stringPropertyNames()) {
+                put(values, key, props.getProperty(key));
+            }
+            name = path.getFileName().toString().replaceFirst("\\.properties$", "");
+        }
+        if (overrides != null && !overrides.isBlank()) {
+            for (String pair : overrides.split(",")) {
+                int eq = pair.indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("Expected key=value in --set: " + pair);
+                }
+                put(values, pair.substring(0, eq), pair.substring(eq + 1));
+            }
+            name += "+set";
+        }
+        return new TuningProfile(name, values);
+    }
+
+    private static void put(Map<Knob, String> values, String key, String value) {
+        Knob knob = Knob.forKey(key.trim());
+        String v = value.trim();
+        if (isBoolean(knob.defaultValue)) {
+            if (!isBoolean(v)) {
+                throw new IllegalArgumentException(knob.key + " expects true or false: " + value);
+            }
+        } else {
+            parseSize(knob, v);
+        }
+        values.put(knob, v);
+    }
+
+    private static boolean isBoolean(String value) {
+        return value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false");
+    }
+
+    public String value(Knob knob) {
+        return overrides.getOrDefault(knob, knob.defaultValue);
+    }
+
+    /** A size or count; {@code KB}, {@code MB} and {@code GB} suffixes are binary multiples. */
+    public long longValue(Knob knob) {
+        return parseSize(knob, value(knob));
+    }
+
+    /** {@link #longValue} narrowed to an int, for builder methods that take one. */
+    public int intValue(Knob knob) {
+        long v = longValue(knob);
+        if (v > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(knob.key + " does not fit in an int: " + v);
+        }
+        return (int) v;
+    }
+
+    public boolean booleanValue(Knob knob) {
+        return Boolean.parseBoolean(value(knob));
+    }
+
+    private static long parseSize(Knob knob, String value) {
+        String v = value.trim().toUpperCase(Locale.ROOT);
+        long unit = 1;
+        if (v.endsWith("KB")) {
+            unit = 1024;
+        } else if (v.endsWith("MB")) {
+            unit = 1024 * 1024;
+        } else if (v.endsWith("GB")) {
+            unit = 1024 * 1024 * 1024;
+        }
+        if (unit > 1) {
+            v = v.substring(0, v.length() - 2).trim();
+        }
+        try {
+            long n = Long.parseLong(v) * unit;
+            if (n < 0) {
+                throw new IllegalArgumentException(knob.key + " must be >= 0: " + value);
+            }
+            return n;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(knob.key + " expects a number or size: " + value, e);
+        }
+    }
+
+    /**
+     * {@code <name>@<crc32 of every effective value>}, e.g. {@code default@4623978d}. Values are
+     * normalized first, so {@code 32MB} and {@code 33554432} hash alike.
+     */
+    public String describe() {
+        CRC32 crc = new CRC32();
+        for (Knob k : Knob.values()) {
+            String v = isBoolean(k.defaultValue) ? String.valueOf(booleanValue(k)) : String.valueOf(longValue(k));
+            crc.update((k.key + "=" + v + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return String.format(Locale.ROOT, "%s@%08x", name, crc.getValue());
+    }
+
+    /** Every effective setting as {@code key=value} pairs, overridden ones included. */
+    public String settings() {
+        StringJoiner all = new StringJoiner(" ");
+        for (Knob k : Knob.values()) {
+            all.add(k.key + "=" + value(k));
+        }
+        return all.toString();
+    }
+}
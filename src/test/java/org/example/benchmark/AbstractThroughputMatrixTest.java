@@ -1,6 +1,7 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.example.benchmark;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -8,10 +9,14 @@ import java.util.List;
 import java.util.Locale;
 import java.util.stream.Stream;
 
+import org.example.client.ClientOptions;
 import org.example.client.HelidonThroughputClient;
+import org.example.client.InProcessThroughputClient;
 import org.example.client.NettyThroughputClient;
+import org.example.client.RunResult;
 import org.example.client.ThroughputClient;
 import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestMethodOrder;
@@ -24,10 +29,21 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 @TestMethodOrder(MethodOrderer.DisplayName.class)
 abstract class AbstractThroughputMatrixTest {
-    protected enum Impl { NETTY, HELIDON }
+    /**
+     * NETTY and HELIDON run against each other over TCP. INPROCESS (grpc-java in-process transport)
+     * and UDS (grpc-netty over a Unix domain socket) only pair with themselves and only where the
+     * server runs in the test JVM ({@link #localTransports()}): they are the no-network baselines.
+     */
+    protected enum Impl {
+        NETTY, HELIDON, INPROCESS, UDS;
+
+        boolean local() {
+            return this == INPROCESS || this == UDS;
+        }
+    }
 
-    protected record Result(Impl server, Impl client, long messages, int payloadBytes,
-                            double seconds, double mbps) { }
+    protected record Result(Impl server, Impl client, String executor, long messages, int payloadBytes,
+                            double seconds, double mbps, double p99Micros) { }
 
     protected static final long MESSAGE_COUNT = 1_000;
 
@@ -39,39 +55,68 @@ abstract class AbstractThroughputMatrixTest {
     protected static final int SIZE_4MB   = 4096 * 1024;
     protected static final int SIZE_8MB   = 8192 * 1024;
 
+    // Server executor modes (see ServerExecutor), e.g. -Dbench.executors=default,direct,platform,forkjoin,virtual
+    protected static final List<String> EXECUTORS =
+            List.of(System.getProperty("bench.executors", "default").split(","));
+
     private final List<Result> results = Collections.synchronizedList(new ArrayList<>());
 
     protected abstract ServerHandle startServer(Impl impl) throws Exception;
 
+    /** Starts a server whose gRPC callbacks run on {@code executor}; only {@code default} unless overridden. */
+    protected ServerHandle startServer(Impl impl, String executor) throws Exception {
+        Assumptions.assumeTrue("default".equals(executor),
+                summaryLabel() + " only runs the default executor, not " + executor);
+        return startServer(impl);
+    }
+
+    /** True when {@link #startServer(Impl)} can start the in-process and Unix-domain-socket servers. */
+    protected boolean localTransports() {
+        return false;
+    }
+
+    /** For the local transports {@code host} is the in-process name or the socket path. */
     protected ThroughputClient createClient(Impl impl, String host, int port) {
         return switch (impl) {
             case NETTY -> new NettyThroughputClient(host, port);
             case HELIDON -> new HelidonThroughputClient("http://" + host + ":" + port);
+            case INPROCESS -> new InProcessThroughputClient(host);
+            case UDS -> NettyThroughputClient.unixSocket(Path.of(host), ClientOptions.defaults());
         };
     }
 
     protected static Stream<Arguments> combinations() {
-        return Stream.of(Impl.NETTY, Impl.HELIDON)
+        Stream<Arguments> tcp = Stream.of(Impl.NETTY, Impl.HELIDON)
                 .flatMap(server -> Stream.of(Impl.NETTY, Impl.HELIDON)
-                        .flatMap(client -> Stream.of(
-                                        SIZE_5KB, SIZE_50KB, SIZE_500KB, SIZE_1MB, SIZE_2MB, SIZE_4MB, SIZE_8MB)
-                                .map(size -> Arguments.of(server, client, size))));
+                        .flatMap(client -> sizes(server, client)));
+        Stream<Arguments> local = Stream.of(Impl.INPROCESS, Impl.UDS).flatMap(impl -> sizes(impl, impl));
+        return Stream.concat(tcp, local);
+    }
+
+    private static Stream<Arguments> sizes(Impl server, Impl client) {
+        return EXECUTORS.stream()
+                .flatMap(executor -> Stream.of(
+                                SIZE_5KB, SIZE_50KB, SIZE_500KB, SIZE_1MB, SIZE_2MB, SIZE_4MB, SIZE_8MB)
+                        .map(size -> Arguments.of(server, client, executor.trim(), size)));
     }
 
-    @ParameterizedTest(name = "{0} server ↔ {1} client [{2} bytes]")
+    @ParameterizedTest(name = "{0} server ({2}) ↔ {1} client [{3} bytes]")
     @MethodSource("combinations")
-    void clientServerMatrix(Impl serverImpl, Impl clientImpl, int payloadBytes) throws Exception {
-        try (ServerHandle handle = startServer(serverImpl)) {
-            assertTrue(handle.port() > 0, "Server port should be assigned");
+    void clientServerMatrix(Impl serverImpl, Impl clientImpl, String executor, int payloadBytes) throws Exception {
+        Assumptions.assumeTrue(!serverImpl.local() || localTransports(),
+                summaryLabel() + " has no " + serverImpl + " server");
+        try (ServerHandle handle = startServer(serverImpl, executor)) {
+            assertTrue(handle.port() > 0 || serverImpl.local(), "Server port should be assigned");
 
             ThroughputClient client = createClient(clientImpl, handle.host(), handle.port());
             long started = System.nanoTime();
-            client.run(MESSAGE_COUNT, payloadBytes);
+            RunResult run = client.run(MESSAGE_COUNT, payloadBytes);
             double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
             double totalBytes = MESSAGE_COUNT * (double) payloadBytes;
             double mbps = seconds > 0 ? (totalBytes / (1024.0 * 1024.0)) / seconds : 0.0;
 
-            results.add(new Result(serverImpl, clientImpl, MESSAGE_COUNT, payloadBytes, seconds, mbps));
+            results.add(new Result(serverImpl, clientImpl, executor, MESSAGE_COUNT, payloadBytes, seconds, mbps,
+                    run.p99Micros()));
         }
     }
 
@@ -80,24 +125,27 @@ abstract class AbstractThroughputMatrixTest {
         if (results.isEmpty()) {
             return;
         }
-        System.out.println("══════════════════════════════════════════════════════════════");
+        System.out.println("══════════════════════════════════════════════════════════════════════════════════");
         System.out.printf(" Integration test throughput summary (%s)%n", summaryLabel());
-        System.out.println("   server   client   payloadKB   messages   duration(s)   MB/s");
-        System.out.println("--------------------------------------------------------------");
+        System.out.println("   server   client   executor     payloadKB   messages   duration(s)   MB/s    p99(µs)");
+        System.out.println("----------------------------------------------------------------------------------");
         results.stream()
                 .sorted(Comparator
                         .comparing(Result::server)
                         .thenComparing(Result::client)
+                        .thenComparing(Result::executor)
                         .thenComparing(Result::payloadBytes))
                 .forEach(r -> System.out.printf(Locale.ROOT,
-                        " %7s %8s %10.1f %10d %12.3f %8.2f%n",
+                        " %7s %8s   %-12s %9.1f %10d %12.3f %8.2f %10.0f%n",
                         r.server(),
                         r.client(),
+                        r.executor(),
                         r.payloadBytes() / 1024.0,
                         r.messages(),
                         r.seconds(),
-                        r.mbps()));
-        System.out.println("══════════════════════════════════════════════════════════════");
+                        r.mbps(),
+                        r.p99Micros()));
+        System.out.println("══════════════════════════════════════════════════════════════════════════════════");
     }
 
     protected String summaryLabel() {
@@ -21,15 +21,21 @@ class DockerizedThroughputIntegrationTest extends AbstractThroughputMatrixTest {
 
     @Override
     protected ServerHandle startServer(Impl impl) throws Exception {
+        return startServer(impl, "default");
+    }
+
+    @Override
+    protected ServerHandle startServer(Impl impl, String executor) throws Exception {
         assumeDocker();
         Path installDir = installDistDirectory();
         Assumptions.assumeTrue(Files.isDirectory(installDir), "Application distribution not found at " + installDir);
 
         int containerPort = impl == Impl.NETTY ? 50051 : 50052;
         String command = String.format(Locale.ROOT,
-                "/app/bin/helidon-vs-netty-benchmark-capacity server %s %d",
+                "/app/bin/helidon-vs-netty-benchmark-capacity server %s %d --executor %s",
                 impl.name().toLowerCase(Locale.ROOT),
-                containerPort);
+                containerPort,
+                executor);
 
         GenericContainer<?> container = new GenericContainer<>(BASE_IMAGE)
                 .withWorkingDirectory("/app")
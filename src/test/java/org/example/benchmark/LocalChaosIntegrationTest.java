@@ -0,0 +1,238 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.benchmark;
+
+import io.grpc.StatusRuntimeException;
+import org.example.benchmark.KindChaosIntegrationTest.ChaosProfile;
+import org.example.benchmark.KindChaosIntegrationTest.Impl;
+import org.example.benchmark.KindStallConnectionsMatrixTest.LatencyProfile;
+import org.example.client.HelidonThroughputClient;
+import org.example.client.NettyThroughputClient;
+import org.example.client.RunResult;
+import org.example.client.StallTestRunner;
+import org.example.client.ThroughputClient;
+import org.example.server.HelidonThroughputServer;
+import org.example.server.NettyThroughputServer;
+import org.example.server.ThroughputServer;
+import org.example.transport.Impairment;
+import org.example.transport.ImpairmentProxy;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the chaos matrix of {@link KindChaosIntegrationTest} and the stall matrix of
+ * {@link KindStallConnectionsMatrixTest} inside the test JVM: both servers run locally and every
+ * client connects through an {@link ImpairmentProxy} that applies the same profiles tc-netem
+ * applies on the Kind node. No cluster, Docker or root is needed.
+ *
+ * <p>As with netem on the server pod's veth, the impairment applies to the client → server
+ * direction only; acks travel back unimpaired. The proxy models loss as a retransmission delay,
+ * which is what TCP turns a dropped packet into (see {@link Impairment}).
+ *
+ * <pre>
+ *   ./gradlew test -PincludeChaos --tests org.example.benchmark.LocalChaosIntegrationTest
+ *   ./gradlew test -PincludeStall --tests org.example.benchmark.LocalChaosIntegrationTest
+ * </pre>
+ *
+ * <p>Tunable via system properties:
+ * <ul>
+ *   <li>{@code chaos.local.messages} — messages per chaos run (default 20)
+ *   <li>{@code chaos.local.payloads} — comma-separated payloadKB list (default 5,50,500,1024)
+ *   <li>{@code chaos.local.timeoutSec} — per-run timeout before a run counts as TIMEOUT (default 180)
+ *   <li>{@code stall.local.messages} — messages per stall cell (default 10)
+ *   <li>{@code stall.local.payloads} — comma-separated payloadKB list (default 1024,2048,4090)
+ * </ul>
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LocalChaosIntegrationTest {
+
+    // ── Inner types ──────────────────────────────────────────────────────────
+
+    record ChaosResult(ChaosProfile profile, Impl serverImpl, Impl clientImpl,
+                       int payloadKb, double mbps, double p99Micros, String errorCode) {
+    }
+
+    record StallResult(LatencyProfile profile, Impl serverImpl, Impl clientImpl, int payloadKb,
+                       int stalls, int total) {
+        double stallRate() {
+            return total == 0 ? 0.0 : 100.0 * stalls / total;
+        }
+    }
+
+    // ── Matrix parameters (tunable via system properties) ────────────────────
+
+    static final long  CHAOS_MESSAGES = Long.getLong("chaos.local.messages", 20);
+    static final int[] CHAOS_PAYLOADS = parsePayloads(System.getProperty("chaos.local.payloads", "5,50,500,1024"));
+    static final long  RUN_TIMEOUT_SEC = Long.getLong("chaos.local.timeoutSec", 180);
+    static final int   STALL_MESSAGES = Integer.getInteger("stall.local.messages", 10);
+    static final int[] STALL_PAYLOADS = parsePayloads(System.getProperty("stall.local.payloads", "1024,2048,4090"));
+
+    // ── State ────────────────────────────────────────────────────────────────
+
+    private final Map<Impl, ThroughputServer> servers = new EnumMap<>(Impl.class);
+
+    @BeforeAll
+    void startServers() throws Exception {
+        Logger.getLogger("io.helidon").setLevel(Level.OFF);
+        servers.put(Impl.NETTY, new NettyThroughputServer(0));
+        servers.put(Impl.HELIDON, new HelidonThroughputServer(0));
+        for (ThroughputServer server : servers.values()) {
+            server.start();
+        }
+    }
+
+    @AfterAll
+    void stopServers() throws Exception {
+        for (ThroughputServer server : servers.values()) {
+            server.stop();
+            server.awaitTermination(Duration.ofSeconds(10));
+        }
+    }
+
+    // ── Chaos matrix ─────────────────────────────────────────────────────────
+
+    @Test
+    @Tag("chaos")
+    void runChaosMatrix() throws Exception {
+        List<ChaosResult> results = new ArrayList<>();
+        for (ChaosProfile profile : KindChaosIntegrationTest.PROFILES) {
+            Impairment impairment = Impairment.builder()
+                    .latencyMs(profile.latencyMs())
+                    .jitterMs(profile.jitterMs())
+                    .lossPercent(profile.lossPercent())
+                    .bandwidthKbps(profile.bandwidthKbps())
+                    .build();
+            System.out.printf("%n── Profile %s (%s) ──%n", profile.name(), impairment.describe());
+            for (Impl serverImpl : Impl.values()) {
+                try (ImpairmentProxy proxy = proxyTo(serverImpl, impairment)) {
+                    for (Impl clientImpl : Impl.values()) {
+                        for (int payloadKb : CHAOS_PAYLOADS) {
+                            ChaosResult result = runClient(profile, proxy, serverImpl, clientImpl, payloadKb);
+                            System.out.printf(Locale.ROOT,
+                                    "  %s server / %s client / %d KB → %.2f MB/s p99 %.0f µs %s%n",
+                                    serverImpl, clientImpl, payloadKb, result.mbps(), result.p99Micros(),
+                                    result.errorCode());
+                            results.add(result);
+                        }
+                    }
+                }
+            }
+        }
+        printChaosSummary(results);
+        assertTrue(results.stream().filter(r -> !r.profile().hasChoas()).allMatch(r -> "OK".equals(r.errorCode())),
+                "every BASELINE run should complete");
+    }
+
+    private ChaosResult runClient(ChaosProfile profile, ImpairmentProxy proxy, Impl serverImpl, Impl clientImpl,
+                                  int payloadKb) throws InterruptedException {
+        ThroughputClient client = switch (clientImpl) {
+            case NETTY -> new NettyThroughputClient("localhost", proxy.port());
+            case HELIDON -> new HelidonThroughputClient("http://localhost:" + proxy.port());
+        };
+        ExecutorService runner = Executors.newSingleThreadExecutor();
+        try {
+            Future<RunResult> run = runner.submit(() -> client.run(CHAOS_MESSAGES, payloadKb * 1024));
+            RunResult r = run.get(RUN_TIMEOUT_SEC, TimeUnit.SECONDS);
+            return new ChaosResult(profile, serverImpl, clientImpl, payloadKb, r.mbps(), r.p99Micros(), "OK");
+        } catch (TimeoutException e) {
+            return new ChaosResult(profile, serverImpl, clientImpl, payloadKb, 0, 0, "TIMEOUT");
+        } catch (ExecutionException e) {
+            String code = e.getCause() instanceof StatusRuntimeException sre
+                    ? sre.getStatus().getCode().name() : e.getCause().getClass().getSimpleName();
+            return new ChaosResult(profile, serverImpl, clientImpl, payloadKb, 0, 0, code);
+        } finally {
+            runner.shutdownNow();
+        }
+    }
+
+    // ── Stall matrix ─────────────────────────────────────────────────────────
+
+    @Test
+    @Tag("stall")
+    void measureStallMatrixUnderLatency() throws Exception {
+        List<StallResult> results = new ArrayList<>();
+        for (LatencyProfile profile : KindStallConnectionsMatrixTest.PROFILES) {
+            Impairment impairment = Impairment.builder().latencyMs(profile.latencyMs()).build();
+            System.out.printf("%n── Latency profile %s (%s) ──%n", profile.name(), impairment.describe());
+            for (Impl serverImpl : Impl.values()) {
+                try (ImpairmentProxy proxy = proxyTo(serverImpl, impairment)) {
+                    for (Impl clientImpl : Impl.values()) {
+                        for (int payloadKb : STALL_PAYLOADS) {
+                            int stalls = StallTestRunner.run(clientImpl.name().toLowerCase(Locale.ROOT),
+                                    "http://localhost:" + proxy.port(), STALL_MESSAGES, payloadKb);
+                            results.add(new StallResult(profile, serverImpl, clientImpl, payloadKb,
+                                    stalls, STALL_MESSAGES));
+                        }
+                    }
+                }
+            }
+        }
+        printStallSummary(results);
+    }
+
+    // ── Helpers ──────────────────────────────────────────────────────────────
+
+    private ImpairmentProxy proxyTo(Impl serverImpl, Impairment upstream) throws Exception {
+        InetSocketAddress target = new InetSocketAddress("localhost", servers.get(serverImpl).port());
+        return ImpairmentProxy.start(target, upstream, Impairment.none());
+    }
+
+    private static void printChaosSummary(List<ChaosResult> results) {
+        System.out.println();
+        System.out.println("══════════════════════════════════════════════════════════════════════════════");
+        System.out.println(" Local chaos summary (impairment proxy)");
+        System.out.printf(Locale.ROOT, " %-14s  %-8s  %-8s  %9s  %8s  %10s  %s%n",
+                "profile", "server", "client", "payloadKB", "MB/s", "p99(µs)", "error");
+        System.out.println("──────────────────────────────────────────────────────────────────────────────");
+        results.stream()
+                .sorted(Comparator.comparing((ChaosResult r) -> r.profile().name())
+                        .thenComparing(ChaosResult::serverImpl)
+                        .thenComparing(ChaosResult::clientImpl)
+                        .thenComparingInt(ChaosResult::payloadKb))
+                .forEach(r -> System.out.printf(Locale.ROOT, " %-14s  %-8s  %-8s  %9d  %8.2f  %10.0f  %s%n",
+                        r.profile().name(), r.serverImpl(), r.clientImpl(), r.payloadKb(), r.mbps(),
+                        r.p99Micros(), "OK".equals(r.errorCode()) ? "" : "⚠ " + r.errorCode()));
+        System.out.println("══════════════════════════════════════════════════════════════════════════════");
+    }
+
+    private static void printStallSummary(List<StallResult> results) {
+        System.out.println();
+        System.out.println("══════════════════════════════════════════════════════════════════════════════");
+        System.out.println(" Local stall summary (impairment proxy)");
+        System.out.printf(Locale.ROOT, " %-10s  %-8s  %-8s  %9s  %13s%n",
+                "profile", "server", "client", "payloadKB", "stalls");
+        System.out.println("──────────────────────────────────────────────────────────────────────────────");
+        results.forEach(r -> System.out.printf(Locale.ROOT, " %-10s  %-8s  %-8s  %9d  %3d/%-3d (%3.0f%%)%n",
+                r.profile().name(), r.serverImpl(), r.clientImpl(), r.payloadKb(),
+                r.stalls(), r.total(), r.stallRate()));
+        System.out.println("══════════════════════════════════════════════════════════════════════════════");
+    }
+
+    private static int[] parsePayloads(String csv) {
+        return Arrays.stream(csv.split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim()))
+                .toArray();
+    }
+}
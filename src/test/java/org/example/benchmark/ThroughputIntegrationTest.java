@@ -1,29 +1,60 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.example.benchmark;
 
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
 import org.example.server.HelidonThroughputServer;
+import org.example.server.InProcessThroughputServer;
 import org.example.server.NettyThroughputServer;
+import org.example.server.ServerExecutor;
+import org.example.server.ServerOptions;
 import org.example.server.ThroughputServer;
-import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Assumptions;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 
 class ThroughputIntegrationTest extends AbstractThroughputMatrixTest {
 
     @Override
     protected ServerHandle startServer(Impl impl) throws Exception {
+        return startServer(impl, "default");
+    }
+
+    @Override
+    protected ServerHandle startServer(Impl impl, String executor) throws Exception {
+        ServerOptions options = ServerOptions.builder().executor(ServerExecutor.parse(executor)).build();
+        String host = "localhost";
+        if (impl == Impl.INPROCESS) {
+            host = "throughput-" + System.nanoTime();
+        } else if (impl == Impl.UDS) {
+            Assumptions.assumeTrue(Epoll.isAvailable(), "Unix domain sockets need native epoll");
+            host = Files.createTempDirectory("throughput-uds").resolve("server.sock").toString();
+        }
         ThroughputServer server = switch (impl) {
-            case NETTY -> new NettyThroughputServer(0);
-            case HELIDON -> new HelidonThroughputServer(0);
+            case NETTY -> new NettyThroughputServer(0, options);
+            case HELIDON -> new HelidonThroughputServer(0, options);
+            case INPROCESS -> new InProcessThroughputServer(host, options);
+            case UDS -> NettyThroughputServer.unixSocket(Path.of(host), options);
         };
         server.start();
         int port = server.port();
-        return new ServerHandle("localhost", port, () -> {
+        String address = host;
+        return new ServerHandle(host, port, () -> {
             server.stop();
             server.awaitTermination(Duration.ofSeconds(10));
+            if (impl == Impl.UDS) {
+                Files.deleteIfExists(Path.of(address));
+                Files.deleteIfExists(Path.of(address).getParent());
+            }
         });
     }
 
+    @Override
+    protected boolean localTransports() {
+        return true;
+    }
+
     @Override
     protected String summaryLabel() {
         return "local JVM servers";
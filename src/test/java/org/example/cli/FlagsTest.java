@@ -0,0 +1,54 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlagsTest {
+
+    @Test
+    void switchBeforePositionalsLeavesThemInPlace() {
+        Flags flags = Flags.parse(new String[] {"--ack-on-drain", "netty", "100", "65536"});
+        assertTrue(flags.getBoolean("ack-on-drain"));
+        assertEquals(3, flags.size());
+        assertEquals("netty", flags.arg(0));
+        assertEquals("65536", flags.arg(2));
+    }
+
+    @Test
+    void valuedOptionsAndPositionalsInAnyOrder() {
+        Flags flags = Flags.parse(new String[] {"--ack-every", "32", "server", "--handler=sha384", "netty", "9090"});
+        assertEquals(32, flags.getInt("ack-every", 1));
+        assertEquals("sha384", flags.get("handler", null));
+        assertEquals(3, flags.size());
+        assertEquals("9090", flags.arg(2));
+    }
+
+    @Test
+    void valuedOptionWithoutValueIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Flags.parse(new String[] {"server", "--sink"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> Flags.parse(new String[] {"--sink", "--flow-control", "server"}));
+    }
+
+    @Test
+    void switchAcceptsExplicitFalse() {
+        Flags flags = Flags.parse(new String[] {"--zero-copy=false", "server"});
+        assertFalse(flags.getBoolean("zero-copy"));
+        assertFalse(flags.getBoolean("h2-tap"));
+    }
+
+    @Test
+    void durationsTakeUnits() {
+        Flags flags = Flags.parse(new String[] {"--warmup", "500ms", "--duration", "2m", "--x", "1.5"});
+        assertEquals(Duration.ofMillis(500), flags.getDuration("warmup", Duration.ZERO));
+        assertEquals(Duration.ofMinutes(2), flags.getDuration("duration", Duration.ZERO));
+        assertEquals(Duration.ofMillis(1500), flags.getDuration("x", Duration.ZERO));
+    }
+}
@@ -0,0 +1,87 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.client;
+
+import org.example.common.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CapacitySearchTest {
+    private static final double SLO_MICROS = 10_000;
+    private static final int MB = 1024 * 1024;
+
+    /** A server that keeps up, within the SLO, with any offered rate up to {@code capacityMbps}. */
+    private static CapacitySearch.Probe server(double capacityMbps) {
+        return offeredMbps -> {
+            LatencyHistogram latency = new LatencyHistogram();
+            boolean keepsUp = offeredMbps <= capacityMbps;
+            latency.record(keepsUp ? 1_000_000 : 50_000_000);
+            // 1000 messages of 1 MB in 1000 / offered seconds: achieved == offered.
+            return new RunResult("fake", MB, 1000, 1000, 1000, 1000 / offeredMbps, null, List.of(),
+                    0, latency);
+        };
+    }
+
+    private static long count(List<CapacitySearch.Step> curve, String phase) {
+        return curve.stream().filter(s -> s.phase().equals(phase)).count();
+    }
+
+    @Test
+    void rampsThenConvergesWithinFivePercentBelowTheCapacity() throws Exception {
+        CapacitySearch.Result r = new CapacitySearch(server(300), SLO_MICROS, 0.98).run(10, 4096);
+        assertTrue(r.saturated());
+        assertTrue(r.capacityMbps() <= 300, "capacity " + r.capacityMbps());
+        assertTrue(r.capacityMbps() >= 300 * 0.95, "capacity " + r.capacityMbps());
+        // 10, 20, 40, 80, 160 pass and 320 fails.
+        assertEquals(6, count(r.curve(), "ramp"));
+        assertTrue(count(r.curve(), "search") <= 8);
+        assertEquals(1_000, r.p99Micros(), 100);
+    }
+
+    @Test
+    void everyRateUpToTheLimitPassingIsNotSaturated() throws Exception {
+        CapacitySearch.Result r = new CapacitySearch(server(10_000), SLO_MICROS, 0.98).run(10, 100);
+        assertFalse(r.saturated());
+        assertEquals(80, r.capacityMbps(), 1e-9);
+        assertEquals(4, r.curve().size());
+        assertEquals(0, count(r.curve(), "search"));
+    }
+
+    @Test
+    void failingFirstStepSearchesBelowIt() throws Exception {
+        CapacitySearch.Result r = new CapacitySearch(server(3), SLO_MICROS, 0.98).run(10, 4096);
+        assertTrue(r.saturated());
+        assertEquals(1, count(r.curve(), "ramp"));
+        assertTrue(r.capacityMbps() <= 3 && r.capacityMbps() >= 3 * 0.95, "capacity " + r.capacityMbps());
+    }
+
+    @Test
+    void searchStopsAfterItsStepLimit() throws Exception {
+        // Nothing passes, so the bracket [0, rate] never narrows to 5 %: only the step limit ends it.
+        CapacitySearch.Result r = new CapacitySearch(server(0), SLO_MICROS, 0.98).run(10, 4096);
+        assertEquals(0, r.capacityMbps(), 1e-9);
+        assertTrue(r.saturated());
+        assertEquals(1, count(r.curve(), "ramp"));
+        assertEquals(8, count(r.curve(), "search"));
+        assertEquals(10 / 256.0, r.curve().get(r.curve().size() - 1).offeredMbps(), 1e-9);
+    }
+
+    @Test
+    void probeErrorsAndShortDeliveryFailTheStep() throws Exception {
+        CapacitySearch.Result thrown = new CapacitySearch(offeredMbps -> {
+            throw new IllegalStateException("server gone");
+        }, SLO_MICROS, 0.98).run(10, 4096);
+        assertEquals(0, thrown.capacityMbps(), 1e-9);
+        assertEquals("IllegalStateException", thrown.curve().get(0).error());
+
+        // Within the SLO but only 90 % of the offered rate delivered.
+        CapacitySearch.Result slow = new CapacitySearch(offeredMbps -> new RunResult("fake", MB, 1000, 900, 900,
+                1000 / offeredMbps, null, List.of(), 0, new LatencyHistogram()), SLO_MICROS, 0.98).run(10, 4096);
+        assertFalse(slow.curve().get(0).pass());
+        assertEquals(0, slow.capacityMbps(), 1e-9);
+    }
+}
@@ -0,0 +1,124 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.client;
+
+import org.example.common.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InFlightWindowTest {
+    private static final int MB = 1024 * 1024;
+    private static final ClientOptions FIXED = ClientOptions.builder()
+            .windowMode(ClientOptions.WindowMode.FIXED)
+            .build();
+
+    @Test
+    void fixedWindowAdmitsLegacyMessageCount() throws Exception {
+        // 1 MB messages: min(4, 32 MB / 1 MB) = 4 in flight.
+        InFlightWindow window = new InFlightWindow(FIXED, MB);
+        for (long seq = 0; seq < 4; seq++) {
+            assertTrue(window.acquire(seq, 1, TimeUnit.SECONDS), "seq " + seq);
+        }
+        assertFalse(window.acquire(4, 50, TimeUnit.MILLISECONDS), "a fifth message must not fit");
+        window.onAck(0, 1, null);
+        assertTrue(window.acquire(4, 1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void largeMessagesRunOneAtATime() throws Exception {
+        InFlightWindow window = new InFlightWindow(FIXED, 4 * MB);
+        assertTrue(window.acquire(0, 1, TimeUnit.SECONDS));
+        assertFalse(window.acquire(1, 50, TimeUnit.MILLISECONDS));
+        assertEquals(1, InFlightWindow.legacyMaxInFlight(4 * MB, 4 * MB));
+    }
+
+    @Test
+    void cumulativeAckReleasesAndRecordsEveryCoveredSeq() throws Exception {
+        InFlightWindow window = new InFlightWindow(FIXED, MB);
+        for (long seq = 0; seq < 4; seq++) {
+            assertTrue(window.acquire(seq, 1, TimeUnit.SECONDS));
+        }
+        LatencyHistogram latency = new LatencyHistogram();
+        window.onAck(3, 4, latency);
+        assertEquals(4, latency.count());
+        for (long seq = 4; seq < 8; seq++) {
+            assertTrue(window.acquire(seq, 50, TimeUnit.MILLISECONDS), "window should be empty again: " + seq);
+        }
+    }
+
+    @Test
+    void sendStampsSurviveRingWrapAround() throws Exception {
+        // Four messages per round on an eight-slot ring: every slot is reused every second round.
+        // Each round is stamped further in the past than the next, so a stale slot would show up
+        // as at least 100 ms of extra latency.
+        InFlightWindow window = new InFlightWindow(FIXED, MB);
+        long seq = 0;
+        for (int round = 0; round < 20; round++) {
+            long ageNs = TimeUnit.MILLISECONDS.toNanos(1_000 - 50L * round);
+            long stamp = System.nanoTime() - ageNs;
+            for (int k = 0; k < 4; k++) {
+                assertTrue(window.acquireAt(seq++, stamp, 1, TimeUnit.SECONDS));
+            }
+            LatencyHistogram latency = new LatencyHistogram();
+            window.onAck(seq - 1, 4, latency);
+            assertEquals(4, latency.count());
+            assertTrue(latency.valueAtPercentile(0) >= ageNs, "round " + round + " recorded too little");
+            assertTrue(latency.maxNs() < ageNs + TimeUnit.MILLISECONDS.toNanos(40),
+                    "round " + round + " read a stale send stamp: " + latency.maxNs());
+        }
+    }
+
+    @Test
+    void openLoopLatencyCountsTimeSpentBehindSchedule() throws Exception {
+        // Coordinated-omission correction: a message that waits for window space is timed from
+        // its scheduled send time, not from when the window finally let it go.
+        ClientOptions openLoop = ClientOptions.builder()
+                .rateMsgsPerSec(1_000)
+                .windowMaxBytes(MB)
+                .build();
+        InFlightWindow window = new InFlightWindow(openLoop, MB);
+        long scheduled = System.nanoTime();
+        assertTrue(window.acquireAt(0, scheduled, 1, TimeUnit.SECONDS));
+        CompletableFuture<Void> lateAck = CompletableFuture.runAsync(() -> {
+            sleep(100);
+            window.onAck(0, 1, null);
+        });
+        assertTrue(window.acquireAt(1, scheduled, 5, TimeUnit.SECONDS));
+        lateAck.get(1, TimeUnit.SECONDS);
+        LatencyHistogram latency = new LatencyHistogram();
+        window.onAck(1, 1, latency);
+        assertTrue(latency.maxNs() >= TimeUnit.MILLISECONDS.toNanos(100),
+                "the 100 ms spent waiting for the window must be in the latency: " + latency.maxNs());
+    }
+
+    @Test
+    void abortWakesABlockedSender() throws Exception {
+        InFlightWindow window = new InFlightWindow(FIXED, 4 * MB);
+        assertTrue(window.acquire(0, 1, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> {
+            try {
+                return window.acquire(1, 30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(blocked.isDone(), "the sender should wait for window space");
+        window.abort();
+        assertTrue(blocked.get(1, TimeUnit.SECONDS), "abort returns true so the sender sees the stream error");
+        assertTrue(window.acquire(2, 1, TimeUnit.MILLISECONDS), "an aborted window never blocks");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncConsoleTest {
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+    @AfterEach
+    void restoreStdout() {
+        AsyncConsole.redirect(null);
+    }
+
+    private void capture() {
+        AsyncConsole.redirect(new PrintStream(captured, true, StandardCharsets.UTF_8));
+    }
+
+    /** Captured lines starting with {@code prefix}; other tests' reporters may share the console. */
+    private List<String> lines(String prefix) {
+        return Stream.of(captured.toString(StandardCharsets.UTF_8).split("\n"))
+                .filter(l -> l.startsWith(prefix))
+                .toList();
+    }
+
+    private static Thread writer() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("async-console"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void concurrentProducersKeepTheirOwnOrderAndLoseNothing() throws InterruptedException {
+        capture();
+        int producers = 8;
+        int perProducer = 5_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    AsyncConsole.print("p " + id + " " + i + "\n");
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        AsyncConsole.flush();
+
+        int[] next = new int[producers];
+        for (String line : lines("p ")) {
+            String[] parts = line.split(" ");
+            int id = Integer.parseInt(parts[1]);
+            assertEquals(next[id], Integer.parseInt(parts[2]), "producer " + id + " out of order");
+            next[id]++;
+        }
+        for (int p = 0; p < producers; p++) {
+            assertEquals(perProducer, next[p], "producer " + p);
+        }
+    }
+
+    @Test
+    void fullRingDropsOffersAndBlocksPrintsUntilThereIsRoom() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        // Holds the writer inside its first write, as a stalled terminal would.
+        OutputStream stalled = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writing.countDown();
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                captured.write(b, off, len);
+            }
+        };
+        AsyncConsole.redirect(new PrintStream(stalled, true, StandardCharsets.UTF_8));
+        AsyncConsole.print("first\n");
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        long droppedBefore = AsyncConsole.dropped();
+        int accepted = 0;
+        while (AsyncConsole.offer("tick " + accepted + "\n")) {
+            accepted++;
+            assertTrue(accepted < 1_000_000, "the ring never filled");
+        }
+        assertFalse(AsyncConsole.offer("dropped too\n"));
+        assertEquals(2, AsyncConsole.dropped() - droppedBefore);
+
+        CountDownLatch printed = new CountDownLatch(1);
+        Thread blocked = new Thread(() -> {
+            AsyncConsole.print("RESULT must not be lost\n");
+            printed.countDown();
+        });
+        blocked.start();
+        assertFalse(printed.await(100, TimeUnit.MILLISECONDS), "print returned while the ring was full");
+
+        unblock.countDown();
+        assertTrue(printed.await(5, TimeUnit.SECONDS));
+        blocked.join();
+        AsyncConsole.flush();
+        assertEquals(List.of("first"), lines("first"));
+        List<String> ticks = lines("tick ");
+        assertEquals(accepted, ticks.size());
+        for (int i = 0; i < accepted; i++) {
+            assertEquals("tick " + i, ticks.get(i));
+        }
+        assertEquals(List.of("RESULT must not be lost"), lines("RESULT"));
+        assertEquals(1, lines("⚠️  console full: 2 tick line(s) dropped").size());
+    }
+
+    @Test
+    void idleWriterParksWithoutATimeoutAndWakesForTheNextLine() throws InterruptedException {
+        capture();
+        AsyncConsole.print("before\n");
+        AsyncConsole.flush();
+        Thread writer = writer();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, writer.getState());
+
+        AsyncConsole.print("after\n");
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!captured.toString(StandardCharsets.UTF_8).contains("after") && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(List.of("after"), lines("after"));
+    }
+}
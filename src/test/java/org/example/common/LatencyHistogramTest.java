@@ -0,0 +1,119 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    @Test
+    void smallValuesAreExact() {
+        for (long v = 0; v < 128; v++) {
+            assertEquals(v, LatencyHistogram.index(v));
+            assertEquals(v, LatencyHistogram.highestEquivalentValue((int) v));
+        }
+    }
+
+    @Test
+    void bucketBoundsStayWithinRelativeError() {
+        int previous = -1;
+        for (int bit = 7; bit < 40; bit++) {
+            long base = 1L << bit;
+            for (long v : new long[] {base - 1, base, base + 1, base + base / 3, 2 * base - 1}) {
+                int index = LatencyHistogram.index(v);
+                long upper = LatencyHistogram.highestEquivalentValue(index);
+                assertTrue(upper >= v, "bucket of " + v + " ends below it at " + upper);
+                assertTrue(upper - v <= v / 64, "bucket of " + v + " is too wide: " + upper);
+                assertTrue(index >= previous, "index must not decrease at " + v);
+                previous = index;
+            }
+        }
+        // Neighbouring buckets tile the range without gaps.
+        for (int i = 0; i < LatencyHistogram.buckets() - 1; i++) {
+            long upper = LatencyHistogram.highestEquivalentValue(i);
+            assertEquals(i + 1, LatencyHistogram.index(upper + 1), "gap after bucket " + i);
+        }
+        assertEquals(LatencyHistogram.buckets() - 1, LatencyHistogram.index(MAX_VALUE));
+    }
+
+    @Test
+    void recordClampsOutOfRangeValues() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(-5);
+        h.record(Long.MAX_VALUE);
+        assertEquals(2, h.count());
+        assertEquals(MAX_VALUE, h.maxNs());
+        assertEquals(0, h.valueAtPercentile(50));
+        assertEquals(MAX_VALUE, h.valueAtPercentile(100));
+    }
+
+    @Test
+    void percentilesOfUniformSamples() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            h.record(i * 1_000);
+        }
+        assertEquals(0, new LatencyHistogram().valueAtPercentile(99));
+        assertPercentile(h, 50, 50_000_000L);
+        assertPercentile(h, 99, 99_000_000L);
+        assertPercentile(h, 99.9, 99_900_000L);
+        assertPercentile(h, 100, 100_000_000L);
+        assertEquals(100_000_000L, h.maxNs());
+    }
+
+    @Test
+    void mergeAddsCountsAndKeepsMax() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        for (long i = 1; i <= 1_000; i++) {
+            a.record(i * 1_000);
+            b.record((i + 1_000) * 1_000);
+        }
+        a.add(b);
+        assertEquals(2_000, a.count());
+        assertEquals(2_000_000, a.maxNs());
+        assertPercentile(a, 50, 1_000_000L);
+        assertEquals(1_000, b.count(), "the merged-in histogram is left alone");
+    }
+
+    @Test
+    void intervalDeltasLeaveWritersUntouched() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(1_000);
+        long[] previous = new long[LatencyHistogram.buckets()];
+        h.copyInto(previous);
+        h.record(5_000_000);
+        h.record(5_000_000);
+        long[] current = new long[LatencyHistogram.buckets()];
+        h.copyInto(current);
+        LatencyHistogram.subtract(current, previous);
+
+        long total = 0;
+        for (long c : current) {
+            total += c;
+        }
+        assertEquals(2, total);
+        assertEquals(LatencyHistogram.highestEquivalentValue(LatencyHistogram.index(5_000_000)),
+                LatencyHistogram.valueAtPercentile(current, 1));
+        assertEquals(LatencyHistogram.max(current), LatencyHistogram.valueAtPercentile(current, 100));
+        assertEquals(3, h.count());
+
+        long[] sum = new long[LatencyHistogram.buckets()];
+        LatencyHistogram.add(sum, previous);
+        LatencyHistogram.add(sum, current);
+        long[] all = new long[LatencyHistogram.buckets()];
+        h.copyInto(all);
+        assertEquals(Arrays.toString(all), Arrays.toString(sum));
+    }
+
+    private static void assertPercentile(LatencyHistogram h, double percentile, long expected) {
+        long actual = h.valueAtPercentile(percentile);
+        assertTrue(actual >= expected && actual - expected <= expected / 64,
+                "p" + percentile + " = " + actual + ", expected about " + expected);
+    }
+}
@@ -0,0 +1,72 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.payload;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PooledPayloadSourceTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void fileShorterThanOneBlockIsRepeatedIntoOneBlock() throws Exception {
+        Path file = write("abc");
+        PooledPayloadSource source = PooledPayloadSource.replay(file.toString(), 8);
+        assertEquals(1, source.blocks());
+        assertEquals("abcabcab", text(source, 0));
+        assertSame(source.payload(0), source.payload(7));
+    }
+
+    @Test
+    void fileOfExactlyOneBlockIsNotRepeated() throws Exception {
+        Path file = write("abcd");
+        PooledPayloadSource source = PooledPayloadSource.replay(file.toString(), 4);
+        assertEquals(1, source.blocks());
+        assertEquals("abcd", text(source, 3));
+    }
+
+    @Test
+    void blocksAreConsecutiveSlicesAndWrapBySeq() throws Exception {
+        Path file = write("0123456789");
+        PooledPayloadSource source = PooledPayloadSource.replay(file.toString(), 4);
+        assertEquals(2, source.blocks(), "the trailing partial block is dropped");
+        assertEquals("0123", text(source, 0));
+        assertEquals("4567", text(source, 1));
+        assertEquals("0123", text(source, 2));
+        assertEquals("file:" + file.getFileName(), source.describe());
+    }
+
+    @Test
+    void emptyFileIsRejected() throws Exception {
+        Path file = write("");
+        assertThrows(IllegalArgumentException.class, () -> PooledPayloadSource.replay(file.toString(), 4));
+    }
+
+    @Test
+    void generatedBlocksHonourTheEntropyMask() {
+        PooledPayloadSource source = PooledPayloadSource.generated("entropy:2", PayloadMode.HEAP, 1024, 2);
+        for (int b = 0; b < source.blocks(); b++) {
+            for (byte v : source.payload(b).toByteArray()) {
+                assertEquals(0, v & ~0x3, "only the low two bits may be set");
+            }
+        }
+    }
+
+    private Path write(String content) throws Exception {
+        Path file = Files.createTempFile(dir, "replay", ".bin");
+        Files.writeString(file, content, StandardCharsets.US_ASCII);
+        return file;
+    }
+
+    private static String text(PayloadSource source, long seq) {
+        return source.payload(seq).toString(StandardCharsets.US_ASCII);
+    }
+}
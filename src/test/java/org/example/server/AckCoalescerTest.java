@@ -0,0 +1,307 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import org.example.common.MetricsReporter;
+import org.example.common.StreamMetrics;
+import org.example.throughput.Ack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AckCoalescerTest {
+    /** Long enough that the interval flush never fires in tests about the count threshold. */
+    private static final long NO_INTERVAL_MICROS = 60_000_000;
+
+    private final StreamMetrics metrics = MetricsReporter.shared().register("server", "ack-test");
+
+    @AfterEach
+    void closeMetrics() {
+        metrics.close();
+    }
+
+    /** Records what the coalescer writes and flags any call made while its monitor is held. */
+    static class FakeCall extends ServerCallStreamObserver<Ack> {
+        final List<Ack> acks = new ArrayList<>();
+        final List<Integer> requests = new ArrayList<>();
+        volatile boolean ready = true;
+        volatile boolean autoRequestDisabled;
+        volatile Runnable onReady;
+        volatile Object monitor;
+        volatile boolean calledUnderLock;
+        volatile boolean completed;
+        volatile Throwable error;
+
+        private void check() {
+            Object m = monitor;
+            if (m != null && Thread.holdsLock(m)) {
+                calledUnderLock = true;
+            }
+        }
+
+        synchronized List<Ack> acks() {
+            return new ArrayList<>(acks);
+        }
+
+        synchronized long requested() {
+            return requests.stream().mapToLong(Integer::longValue).sum();
+        }
+
+        /** Turns the transport ready again and runs the on-ready handler, as gRPC would. */
+        void becomeReady() {
+            ready = true;
+            onReady.run();
+        }
+
+        @Override
+        public void onNext(Ack ack) {
+            check();
+            synchronized (this) {
+                acks.add(ack);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            check();
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+            check();
+            completed = true;
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable handler) {
+            onReady = handler;
+        }
+
+        @Override
+        public void disableAutoRequest() {
+            autoRequestDisabled = true;
+        }
+
+        @Override
+        @Deprecated
+        public void disableAutoInboundFlowControl() {
+            autoRequestDisabled = true;
+        }
+
+        @Override
+        public void request(int n) {
+            check();
+            synchronized (this) {
+                requests.add(n);
+            }
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable handler) {
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+    }
+
+    /** Acks every {@code n} chunks, with the interval flush pushed out of the way. */
+    private static ServerOptions.Builder ackEvery(int n) {
+        return ServerOptions.builder().ackEvery(n).ackIntervalMicros(NO_INTERVAL_MICROS);
+    }
+
+    private AckCoalescer coalescer(FakeCall call, ServerOptions options) {
+        AckCoalescer acks = new AckCoalescer(call, options, metrics);
+        call.monitor = acks;
+        return acks;
+    }
+
+    @Test
+    void countThresholdSendsOneCumulativeAck() {
+        FakeCall call = new FakeCall();
+        AckCoalescer acks = coalescer(call, ackEvery(4).build());
+        for (long seq = 1; seq <= 3; seq++) {
+            acks.onChunk(seq);
+        }
+        assertTrue(call.acks().isEmpty());
+        acks.onChunk(4);
+        for (long seq = 5; seq <= 8; seq++) {
+            acks.onChunk(seq);
+        }
+        List<Ack> sent = call.acks();
+        assertEquals(2, sent.size());
+        assertEquals(4, sent.get(0).getSeq());
+        assertEquals(4, sent.get(0).getCount());
+        assertEquals(8, sent.get(1).getSeq());
+        assertEquals(4, sent.get(1).getCount());
+        assertEquals(2, metrics.totalAcks());
+        assertFalse(call.calledUnderLock);
+    }
+
+    @Test
+    void intervalFlushesAPartialBatch() throws InterruptedException {
+        FakeCall call = new FakeCall();
+        AckCoalescer acks = coalescer(call, ServerOptions.builder().ackEvery(1000).ackIntervalMicros(20_000).build());
+        acks.onChunk(1);
+        acks.onChunk(2);
+        acks.onChunk(3);
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (call.acks().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        List<Ack> sent = call.acks();
+        assertEquals(1, sent.size());
+        assertEquals(3, sent.get(0).getSeq());
+        assertEquals(3, sent.get(0).getCount());
+        assertFalse(call.calledUnderLock);
+    }
+
+    @Test
+    void completeFlushesWhatIsPendingThenCompletes() {
+        FakeCall call = new FakeCall();
+        AckCoalescer acks = coalescer(call, ackEvery(100).build());
+        for (long seq = 10; seq < 15; seq++) {
+            acks.onChunk(seq);
+        }
+        acks.complete();
+        List<Ack> sent = call.acks();
+        assertEquals(1, sent.size());
+        assertEquals(14, sent.get(0).getSeq());
+        assertEquals(5, sent.get(0).getCount());
+        assertTrue(call.completed);
+
+        acks.onChunk(15);
+        acks.complete();
+        assertEquals(1, call.acks().size());
+        assertFalse(call.calledUnderLock);
+    }
+
+    @Test
+    void onDrainWaitsForTheTransportAndFlushesWhenReady() {
+        FakeCall call = new FakeCall();
+        call.ready = false;
+        AckCoalescer acks = coalescer(call, ackEvery(1000).ackOnDrain(true).build());
+        acks.onChunk(1);
+        acks.onChunk(2);
+        acks.flush();
+        assertTrue(call.acks().isEmpty());
+        call.becomeReady();
+        List<Ack> sent = call.acks();
+        assertEquals(1, sent.size());
+        assertEquals(2, sent.get(0).getCount());
+    }
+
+    @Test
+    void reentrantReadyHandlerKeepsAcksInOrder() {
+        // The in-process transport may run the on-ready handler from inside onNext.
+        FakeCall call = new FakeCall() {
+            private boolean inside;
+
+            @Override
+            public void onNext(Ack ack) {
+                super.onNext(ack);
+                if (!inside) {
+                    inside = true;
+                    onReady.run();
+                    inside = false;
+                }
+            }
+        };
+        AckCoalescer acks = coalescer(call, ackEvery(2).ackOnDrain(true).build());
+        for (long seq = 1; seq <= 6; seq++) {
+            acks.onChunk(seq);
+        }
+        acks.onChunk(7);
+        acks.complete();
+        List<Ack> sent = call.acks();
+        assertEquals(List.of(2L, 4L, 6L, 7L), sent.stream().map(Ack::getSeq).toList());
+        assertFalse(call.calledUnderLock);
+        assertTrue(call.completed);
+    }
+
+    @Test
+    void failEndsTheStreamOnce() {
+        FakeCall call = new FakeCall();
+        AckCoalescer acks = coalescer(call, ackEvery(10).build());
+        acks.onChunk(1);
+        IllegalStateException boom = new IllegalStateException("boom");
+        acks.fail(boom);
+        acks.fail(new IllegalStateException("again"));
+        acks.complete();
+        assertEquals(boom, call.error);
+        assertFalse(call.completed);
+        assertTrue(call.acks().isEmpty());
+    }
+
+    @Test
+    void flowControlRequestsTheWindowUpFrontThenOnePerChunk() {
+        FakeCall call = new FakeCall();
+        AckCoalescer acks = coalescer(call, ServerOptions.builder().flowControl(true).inboundWindow(4).build());
+        assertTrue(call.autoRequestDisabled);
+        assertEquals(4, call.requested());
+        // A client that sends whenever it has credit never gets more than the window ahead.
+        long received = 0;
+        for (int round = 0; round < 100; round++) {
+            assertTrue(call.requested() - received <= 4);
+            if (call.requested() > received) {
+                acks.onChunk(++received);
+            }
+        }
+        assertEquals(100, received);
+        assertEquals(received + 4, call.requested());
+        assertFalse(call.calledUnderLock);
+    }
+
+    @Test
+    void requestsOwedWhileNotReadyArePaidBackOnReady() {
+        FakeCall call = new FakeCall();
+        AckCoalescer acks = coalescer(call, ServerOptions.builder().flowControl(true).inboundWindow(4).build());
+        call.ready = false;
+        for (long seq = 1; seq <= 3; seq++) {
+            acks.onChunk(seq);
+        }
+        acks.onFragment();
+        // Nothing is requested while the ack path is backed up, so the client runs out of credit.
+        assertEquals(4, call.requested());
+        call.becomeReady();
+        assertEquals(8, call.requested());
+        assertEquals(List.of(4, 4), call.requests.subList(0, 2));
+        // Paid back once only.
+        call.becomeReady();
+        assertEquals(8, call.requested());
+        assertFalse(call.calledUnderLock);
+    }
+
+    @Test
+    void noRequestsAfterTheStreamEnds() {
+        FakeCall call = new FakeCall();
+        AckCoalescer acks = coalescer(call, ServerOptions.builder().flowControl(true).inboundWindow(2).build());
+        call.ready = false;
+        acks.onChunk(1);
+        acks.complete();
+        call.becomeReady();
+        acks.onChunk(2);
+        assertEquals(2, call.requested());
+    }
+}
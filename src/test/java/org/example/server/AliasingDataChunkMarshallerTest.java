@@ -0,0 +1,211 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server;
+
+import com.google.protobuf.ByteString;
+import io.grpc.CallOptions;
+import io.grpc.Detachable;
+import io.grpc.HasByteBuffer;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.StreamObserver;
+import org.example.throughput.Ack;
+import org.example.throughput.DataChunk;
+import org.example.throughput.ThroughputServiceGrpc;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the aliasing marshaller through the in-process transport. The client marshaller hands
+ * the server a detachable, buffer-backed stream, as grpc-netty does, and zeroes its buffer when
+ * the server releases it, so any payload read after the release comes back as zeros.
+ */
+class AliasingDataChunkMarshallerTest {
+    private static final int MESSAGES = 16;
+    private static final int SIZE = 64 * 1024;
+
+    private final AtomicInteger released = new AtomicInteger();
+    private Server server;
+    private ManagedChannel channel;
+    private ThroughputServiceImpl service;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (channel != null) {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        if (server != null) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    /** A transport buffer: detaching hands it over, closing the detached stream frees it. */
+    private final class TransportStream extends InputStream implements Detachable, HasByteBuffer {
+        private final ByteBuffer buf;
+        private final boolean owner;
+
+        TransportStream(ByteBuffer buf, boolean owner) {
+            this.buf = buf;
+            this.owner = owner;
+        }
+
+        @Override
+        public InputStream detach() {
+            TransportStream detached = new TransportStream(buf.slice(), true);
+            buf.position(buf.limit());
+            return detached;
+        }
+
+        @Override
+        public boolean byteBufferSupported() {
+            return true;
+        }
+
+        @Override
+        public ByteBuffer getByteBuffer() {
+            return buf.hasRemaining() ? buf.slice() : null;
+        }
+
+        @Override
+        public int read() {
+            return buf.hasRemaining() ? buf.get() & 0xff : -1;
+        }
+
+        @Override
+        public int available() {
+            return buf.remaining();
+        }
+
+        @Override
+        public long skip(long n) {
+            int k = (int) Math.min(n, buf.remaining());
+            buf.position(buf.position() + k);
+            return k;
+        }
+
+        @Override
+        public void close() {
+            if (owner) {
+                Arrays.fill(buf.array(), (byte) 0);
+                released.incrementAndGet();
+            }
+        }
+    }
+
+    private final class TransportMarshaller implements MethodDescriptor.Marshaller<DataChunk> {
+        @Override
+        public InputStream stream(DataChunk value) {
+            return new TransportStream(ByteBuffer.wrap(value.toByteArray()), false);
+        }
+
+        @Override
+        public DataChunk parse(InputStream stream) {
+            throw new UnsupportedOperationException("client side only");
+        }
+    }
+
+    private static byte[] payload(int seq) {
+        byte[] b = new byte[SIZE];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) (i * 7 + seq + 1);
+        }
+        return b;
+    }
+
+    /** Streams {@link #MESSAGES} chunks to an echo server and returns the echoed payloads. */
+    private List<byte[]> echo(ServerOptions options) throws Exception {
+        String name = "aliasing-" + System.nanoTime();
+        service = new ThroughputServiceImpl("inprocess", options);
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ThroughputServiceImpl.definition(service))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        MethodDescriptor<DataChunk, Ack> method = ThroughputServiceGrpc.getStreamMethod()
+                .toBuilder(new TransportMarshaller(), ProtoUtils.marshaller(Ack.getDefaultInstance()))
+                .build();
+
+        List<byte[]> echoed = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Throwable[] error = new Throwable[1];
+        StreamObserver<DataChunk> requests = ClientCalls.asyncBidiStreamingCall(
+                channel.newCall(method, CallOptions.DEFAULT), new StreamObserver<>() {
+                    @Override
+                    public void onNext(Ack ack) {
+                        synchronized (echoed) {
+                            echoed.add(ack.getPayload().toByteArray());
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        error[0] = t;
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        done.countDown();
+                    }
+                });
+        for (int seq = 0; seq < MESSAGES; seq++) {
+            requests.onNext(DataChunk.newBuilder()
+                    .setSeq(seq)
+                    .setPayload(ByteString.copyFrom(payload(seq)))
+                    .build());
+        }
+        requests.onCompleted();
+        assertTrue(done.await(10, TimeUnit.SECONDS), "stream did not finish");
+        assertNull(error[0]);
+        synchronized (echoed) {
+            return new ArrayList<>(echoed);
+        }
+    }
+
+    private void assertEchoedIntact(List<byte[]> echoed) {
+        assertEquals(MESSAGES, echoed.size());
+        for (int seq = 0; seq < MESSAGES; seq++) {
+            assertArrayEquals(payload(seq), echoed.get(seq), "seq " + seq);
+        }
+    }
+
+    @Test
+    void inlineHandlerReadsTheAliasedPayloadBeforeTheBufferIsReleased() throws Exception {
+        List<byte[]> echoed = echo(ServerOptions.builder().zeroCopyInbound(true).handler("echo").build());
+        assertEchoedIntact(echoed);
+        assertEquals(MESSAGES, released.get());
+    }
+
+    @Test
+    void offloadedHandlerGetsACopyThatOutlivesTheRelease() throws Exception {
+        List<byte[]> echoed = echo(ServerOptions.builder()
+                .zeroCopyInbound(true)
+                .handler("echo")
+                .handlerThreads(2)
+                .build());
+        assertEchoedIntact(echoed);
+        assertEquals(MESSAGES, released.get());
+    }
+}
@@ -0,0 +1,162 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server;
+
+import com.google.protobuf.ByteString;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.example.throughput.DataChunk;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FragmentReassemblerTest {
+    private final FragmentReassembler.Pool pool = new FragmentReassembler.Pool(64L * 1024 * 1024);
+    private final FragmentReassembler reassembler = new FragmentReassembler(pool);
+
+    private static DataChunk fragment(long seq, int index, int count, byte[] payload) {
+        return DataChunk.newBuilder()
+                .setSeq(seq)
+                .setFragment(index)
+                .setFragments(count)
+                .setPayload(ByteString.copyFrom(payload))
+                .build();
+    }
+
+    private static byte[] bytes(int n, int seed) {
+        byte[] b = new byte[n];
+        Arrays.fill(b, (byte) seed);
+        return b;
+    }
+
+    private static void assertStatus(Status.Code code, Runnable call) {
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class, call::run);
+        assertEquals(code, e.getStatus().getCode());
+    }
+
+    @Test
+    void fragmentsInOrderRebuildTheBlock() {
+        assertTrue(FragmentReassembler.isFragment(fragment(7, 0, 3, bytes(4, 1))));
+        assertNull(reassembler.accept(fragment(7, 0, 3, bytes(4096, 1))));
+        assertNull(reassembler.accept(fragment(7, 1, 3, bytes(4096, 2))));
+        FragmentReassembler.Block block = reassembler.accept(fragment(7, 2, 3, bytes(4096, 3)));
+        assertNotNull(block);
+        assertEquals(7, block.chunk().getSeq());
+        byte[] expected = new byte[3 * 4096];
+        Arrays.fill(expected, 0, 4096, (byte) 1);
+        Arrays.fill(expected, 4096, 8192, (byte) 2);
+        Arrays.fill(expected, 8192, 12288, (byte) 3);
+        assertArrayEquals(expected, block.chunk().getPayload().toByteArray());
+    }
+
+    @Test
+    void shortFinalFragmentEndsTheBlockEarly() {
+        assertNull(reassembler.accept(fragment(1, 0, 2, bytes(1000, 1))));
+        FragmentReassembler.Block block = reassembler.accept(fragment(1, 1, 2, bytes(10, 2)));
+        assertEquals(1010, block.chunk().getPayload().size());
+    }
+
+    @Test
+    void outOfOrderFragmentFailsTheStream() {
+        reassembler.accept(fragment(1, 0, 3, bytes(100, 1)));
+        assertStatus(Status.Code.INVALID_ARGUMENT, () -> reassembler.accept(fragment(1, 2, 3, bytes(100, 1))));
+    }
+
+    @Test
+    void duplicateFragmentFailsTheStream() {
+        reassembler.accept(fragment(1, 0, 3, bytes(100, 1)));
+        reassembler.accept(fragment(1, 1, 3, bytes(100, 1)));
+        assertStatus(Status.Code.INVALID_ARGUMENT, () -> reassembler.accept(fragment(1, 1, 3, bytes(100, 1))));
+    }
+
+    @Test
+    void fragmentWithoutItsFirstFailsTheStream() {
+        assertStatus(Status.Code.INVALID_ARGUMENT, () -> reassembler.accept(fragment(1, 1, 2, bytes(100, 1))));
+    }
+
+    @Test
+    void fragmentOfAnotherBlockOrCountFailsTheStream() {
+        reassembler.accept(fragment(1, 0, 3, bytes(100, 1)));
+        assertStatus(Status.Code.INVALID_ARGUMENT, () -> reassembler.accept(fragment(2, 1, 3, bytes(100, 1))));
+
+        FragmentReassembler other = new FragmentReassembler(pool);
+        other.accept(fragment(1, 0, 3, bytes(100, 1)));
+        assertStatus(Status.Code.INVALID_ARGUMENT, () -> other.accept(fragment(1, 1, 4, bytes(100, 1))));
+    }
+
+    @Test
+    void fragmentLargerThanTheFirstOverflowsTheBlock() {
+        // Capacity is 2 × 1000 bytes; the pooled buffer is larger, but the bound still applies.
+        reassembler.accept(fragment(1, 0, 2, bytes(1000, 1)));
+        assertStatus(Status.Code.INVALID_ARGUMENT, () -> reassembler.accept(fragment(1, 1, 2, bytes(1001, 1))));
+    }
+
+    @Test
+    void newBlockBeforeTheLastEndedFailsTheStream() {
+        reassembler.accept(fragment(1, 0, 3, bytes(100, 1)));
+        reassembler.accept(fragment(1, 1, 3, bytes(100, 1)));
+        assertStatus(Status.Code.INVALID_ARGUMENT, () -> reassembler.accept(fragment(2, 0, 3, bytes(100, 1))));
+    }
+
+    @Test
+    void oversizedBlockIsRefused() {
+        int fragments = (int) (FragmentReassembler.MAX_BLOCK_BYTES / 1024) + 1;
+        assertStatus(Status.Code.RESOURCE_EXHAUSTED,
+                () -> reassembler.accept(fragment(1, 0, fragments, bytes(1024, 1))));
+    }
+
+    @Test
+    void streamEndingMidBlockReturnsTheBuffer() {
+        reassembler.accept(fragment(1, 0, 4, bytes(8192, 1)));
+        reassembler.accept(fragment(1, 1, 4, bytes(8192, 1)));
+        reassembler.abandon();
+        byte[] reused = pool.take(32 * 1024);
+        pool.give(reused);
+
+        FragmentReassembler next = new FragmentReassembler(pool);
+        next.accept(fragment(5, 0, 2, bytes(16 * 1024, 1)));
+        FragmentReassembler.Block block = next.accept(fragment(5, 1, 2, bytes(16 * 1024, 2)));
+        assertSame(reused, block.buffer());
+    }
+
+    @Test
+    void releasedBlockBufferIsReused() {
+        reassembler.accept(fragment(1, 0, 2, bytes(3000, 1)));
+        FragmentReassembler.Block first = reassembler.accept(fragment(1, 1, 2, bytes(3000, 1)));
+        first.release();
+        reassembler.accept(fragment(2, 0, 2, bytes(3000, 1)));
+        FragmentReassembler.Block second = reassembler.accept(fragment(2, 1, 2, bytes(2000, 1)));
+        assertSame(first.buffer(), second.buffer());
+        assertEquals(5000, second.chunk().getPayload().size());
+    }
+
+    @Test
+    void poolKeepsSmallerBuffersWhenALargerOneIsRequested() {
+        byte[] small = pool.take(1024 * 1024);
+        assertEquals(1024 * 1024, small.length);
+        pool.give(small);
+        byte[] large = pool.take(3 * 1024 * 1024);
+        assertEquals(4 * 1024 * 1024, large.length);
+        assertNotSame(small, large);
+        assertSame(small, pool.take(1000 * 1024));
+    }
+
+    @Test
+    void poolStopsKeepingBuffersPastItsIdleLimit() {
+        FragmentReassembler.Pool tiny = new FragmentReassembler.Pool(8192);
+        byte[] a = tiny.take(8192);
+        byte[] b = tiny.take(8192);
+        tiny.give(a);
+        tiny.give(b);
+        assertSame(a, tiny.take(8192));
+        assertNotSame(b, tiny.take(8192));
+    }
+}
@@ -0,0 +1,75 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SerialExecutorTest {
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void tasksRunOneAtATimeInSubmissionOrder() throws InterruptedException {
+        SerialExecutor serial = new SerialExecutor(pool);
+        List<Integer> order = new ArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1000);
+        for (int i = 0; i < 1000; i++) {
+            int n = i;
+            serial.execute(() -> {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                order.add(n);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    void throwingTaskDoesNotStallTheTasksBehindIt() throws InterruptedException {
+        SerialExecutor serial = new SerialExecutor(pool);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch queuedBehind = new CountDownLatch(1);
+        serial.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        serial.execute(() -> {
+            throw new IllegalStateException("handler bug");
+        });
+        serial.execute(queuedBehind::countDown);
+        release.countDown();
+        assertTrue(queuedBehind.await(5, TimeUnit.SECONDS), "task queued behind the failure never ran");
+
+        // The executor went idle again and still accepts work.
+        CountDownLatch later = new CountDownLatch(1);
+        serial.execute(later::countDown);
+        assertTrue(later.await(5, TimeUnit.SECONDS), "task submitted after the failure never ran");
+    }
+}
@@ -0,0 +1,79 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.server;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.example.throughput.DataChunk;
+import org.example.throughput.SubscribeRequest;
+import org.example.throughput.ThroughputServiceGrpc;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubscribeTest {
+    private Server server;
+    private ManagedChannel channel;
+    private ThroughputServiceImpl service;
+    private ThroughputServiceGrpc.ThroughputServiceBlockingStub stub;
+
+    @BeforeEach
+    void start() throws Exception {
+        String name = "subscribe-" + System.nanoTime();
+        service = new ThroughputServiceImpl("inprocess", ServerOptions.builder().build());
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ThroughputServiceImpl.definition(service))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        stub = ThroughputServiceGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        service.close();
+    }
+
+    private Status.Code rejected(int sizeBytes) {
+        Iterator<DataChunk> chunks = stub.subscribe(SubscribeRequest.newBuilder()
+                .setCount(1)
+                .setSizeBytes(sizeBytes)
+                .build());
+        return assertThrows(StatusRuntimeException.class, chunks::hasNext).getStatus().getCode();
+    }
+
+    @Test
+    void pushesCountChunksOfTheRequestedSize() {
+        Iterator<DataChunk> chunks = stub.subscribe(SubscribeRequest.newBuilder()
+                .setCount(3)
+                .setSizeBytes(1024)
+                .build());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(chunks.hasNext());
+            assertEquals(1024, chunks.next().getPayload().size());
+        }
+        assertFalse(chunks.hasNext());
+    }
+
+    @Test
+    void oversizedRequestsAreInvalidArguments() {
+        assertEquals(Status.Code.INVALID_ARGUMENT, rejected(64 * 1024 * 1024 + 1));
+        // uint32 sizes past 2^31 - 1 arrive as negative ints and must not reach the allocation.
+        assertEquals(Status.Code.INVALID_ARGUMENT, rejected(Integer.MIN_VALUE));
+        assertEquals(Status.Code.INVALID_ARGUMENT, rejected(-1));
+    }
+}
@@ -0,0 +1,167 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.storage;
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentLogTest {
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void groupCommitSyncsOnceForABatchAndAcksInAppendOrder() throws Exception {
+        List<Long> durable = new CopyOnWriteArrayList<>();
+        CountDownLatch all = new CountDownLatch(4);
+        try (SegmentLog log = SegmentLog.open(dir, new SegmentLog.Policy(4, 0, 1 << 20))) {
+            for (long seq = 0; seq < 3; seq++) {
+                log.append(seq, payload(16), durableInto(durable, seq, all));
+            }
+            assertFalse(all.await(100, TimeUnit.MILLISECONDS), "three of four records must not trigger an fsync");
+            assertEquals(0, log.fsyncs());
+
+            log.append(3, payload(16), durableInto(durable, 3, all));
+            assertTrue(all.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(0L, 1L, 2L, 3L), durable);
+            assertEquals(1, log.fsyncs());
+            assertEquals(1, log.fsyncLatency().count());
+        }
+    }
+
+    @Test
+    void intervalSyncsAPartialBatch() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        try (SegmentLog log = SegmentLog.open(dir, new SegmentLog.Policy(1_000, 20, 1 << 20))) {
+            log.append(0, payload(16), error -> done.countDown());
+            assertTrue(done.await(5, TimeUnit.SECONDS), "the 20 ms timer should sync a lone record");
+        }
+    }
+
+    @Test
+    void whenDurableForcesAnImmediateSync() throws Exception {
+        CountDownLatch done = new CountDownLatch(2);
+        try (SegmentLog log = SegmentLog.open(dir, new SegmentLog.Policy(1_000, 0, 1 << 20))) {
+            log.append(0, payload(16), error -> done.countDown());
+            log.whenDurable(error -> done.countDown());
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(1, log.fsyncs());
+        }
+    }
+
+    @Test
+    void recordsRollOverIntoNewSegments() throws Exception {
+        int size = 100;
+        try (SegmentLog log = SegmentLog.open(dir, new SegmentLog.Policy(1, 0, HEADER_BYTES + size))) {
+            for (long seq = 0; seq < 3; seq++) {
+                log.append(seq, payload(size), error -> { });
+            }
+        }
+        List<Path> segments = segments();
+        assertEquals(3, segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            ByteBuffer record = ByteBuffer.wrap(Files.readAllBytes(segments.get(i)));
+            assertEquals(HEADER_BYTES + size, record.remaining());
+            assertEquals(size, record.getInt());
+            assertEquals(i, record.getLong());
+        }
+
+        // A reopened log continues after the highest existing segment.
+        try (SegmentLog log = SegmentLog.open(dir, new SegmentLog.Policy(1, 0, HEADER_BYTES + size))) {
+            log.append(3, payload(size), error -> { });
+        }
+        assertEquals("segment-00000000000000000003.log", segments().get(3).getFileName().toString());
+    }
+
+    @Test
+    void closeRunsOutstandingCallbacks() throws Exception {
+        AtomicReference<Throwable> result = new AtomicReference<>(new AssertionError("not run"));
+        SegmentLog log = SegmentLog.open(dir, new SegmentLog.Policy(1_000, 0, 1 << 20));
+        log.append(0, payload(16), result::set);
+        log.close();
+        assertNull(result.get());
+    }
+
+    @Test
+    void whenDurableAfterCloseRunsImmediately() throws Exception {
+        SegmentLog log = SegmentLog.open(dir, new SegmentLog.Policy(1_000, 0, 1 << 20));
+        log.append(0, payload(16), error -> { });
+        log.close();
+        AtomicReference<Throwable> result = new AtomicReference<>(new AssertionError("not run"));
+        log.whenDurable(result::set);
+        assertNull(result.get());
+        assertThrows(IllegalStateException.class, () -> log.append(1, payload(16), error -> { }));
+    }
+
+    @Test
+    void interruptedSyncerFailsWaitingCallbacks() throws Exception {
+        AtomicReference<Throwable> appended = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        try (SegmentLog log = SegmentLog.open(dir, new SegmentLog.Policy(1_000, 0, 1 << 20))) {
+            log.append(0, payload(16), error -> {
+                appended.set(error);
+                done.countDown();
+            });
+            syncer().interrupt();
+            assertTrue(done.await(5, TimeUnit.SECONDS), "the waiting callback was stranded");
+            assertInstanceOf(InterruptedIOException.class, appended.get());
+
+            AtomicReference<Throwable> barrier = new AtomicReference<>();
+            log.whenDurable(barrier::set);
+            assertInstanceOf(InterruptedIOException.class, barrier.get());
+            assertThrows(IllegalStateException.class, () -> log.append(1, payload(16), error -> { }));
+        }
+    }
+
+    @Test
+    void policyRejectsNonsense() {
+        assertThrows(IllegalArgumentException.class, () -> new SegmentLog.Policy(0, 0, 1 << 20));
+        assertThrows(IllegalArgumentException.class, () -> new SegmentLog.Policy(1, -1, 1 << 20));
+        assertThrows(IllegalArgumentException.class, () -> new SegmentLog.Policy(1, 0, HEADER_BYTES - 1));
+    }
+
+    private static SegmentLog.Callback durableInto(List<Long> durable, long seq, CountDownLatch latch) {
+        // Runs on the syncer thread: record instead of asserting there.
+        return error -> {
+            durable.add(error == null ? seq : -1);
+            latch.countDown();
+        };
+    }
+
+    private static ByteString payload(int size) {
+        return ByteString.copyFrom(new byte[size]);
+    }
+
+    /** The open log's syncer; earlier tests' logs are closed, so their syncers have exited. */
+    private static Thread syncer() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("log-syncer") && t.isAlive())
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+}
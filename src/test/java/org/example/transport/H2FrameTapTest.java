@@ -0,0 +1,176 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class H2FrameTapTest {
+    private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int DEFAULT_WINDOW = 65_535;
+    private static final int DATA = 0x0;
+    private static final int HEADERS = 0x1;
+    private static final int RST_STREAM = 0x3;
+    private static final int SETTINGS = 0x4;
+    private static final int WINDOW_UPDATE = 0x8;
+    private static final int END_STREAM = 0x1;
+    private static final int PADDED = 0x8;
+
+    private static byte[] frame(int type, int flags, int sid, byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(payload.length >>> 16);
+        out.write(payload.length >>> 8);
+        out.write(payload.length);
+        out.write(type);
+        out.write(flags);
+        out.writeBytes(int32(sid));
+        out.writeBytes(payload);
+        return out.toByteArray();
+    }
+
+    private static byte[] int32(int v) {
+        return new byte[] {(byte) (v >>> 24), (byte) (v >>> 16), (byte) (v >>> 8), (byte) v};
+    }
+
+    private static byte[] windowUpdate(int sid, int increment) {
+        return frame(WINDOW_UPDATE, 0, sid, int32(increment));
+    }
+
+    private static byte[] initialWindow(int value) {
+        byte[] setting = new byte[6];
+        setting[1] = 0x4;
+        System.arraycopy(int32(value), 0, setting, 2, 4);
+        return frame(SETTINGS, 0, 0, setting);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] p : parts) {
+            out.writeBytes(p);
+        }
+        return out.toByteArray();
+    }
+
+    /** Feeds {@code bytes} in chunks of {@code step} bytes, so frame headers straddle reads. */
+    private static void feed(ImpairmentProxy.Tap.Observer conn, boolean upstream, byte[] bytes, int step, long now) {
+        for (int off = 0; off < bytes.length; off += step) {
+            conn.onBytes(upstream, ByteBuffer.wrap(bytes, off, Math.min(step, bytes.length - off)), now);
+        }
+    }
+
+    @Test
+    void frameHeadersSplitAcrossReadsDecodeTheSame() {
+        byte[] client = concat(PREFACE, frame(HEADERS, 0, 1, new byte[12]),
+                frame(DATA, 0, 1, new byte[1000]), frame(DATA, END_STREAM, 1, new byte[300]));
+        List<H2FrameTap.ConnectionReport> reports = new ArrayList<>();
+        for (int step : new int[] {client.length, 7, 1}) {
+            H2FrameTap tap = new H2FrameTap();
+            ImpairmentProxy.Tap.Observer conn = tap.open(1);
+            feed(conn, true, client, step, 0);
+            reports.add(tap.connections().get(0));
+        }
+        for (H2FrameTap.ConnectionReport r : reports) {
+            assertTrue(r.h2());
+            assertEquals(2, r.up().dataFrames());
+            assertEquals(1300, r.up().dataBytes());
+            assertEquals(300, r.up().dataSizeMin());
+            assertEquals(1000, r.up().dataSizeMax());
+            assertEquals(DEFAULT_WINDOW - 1300, r.up().minConnWindow());
+            assertEquals(1, r.perStream().size());
+            assertEquals(1300, r.perStream().get(0).upBytes());
+        }
+    }
+
+    @Test
+    void paddingCountsAgainstFlowControl() {
+        H2FrameTap tap = new H2FrameTap();
+        ImpairmentProxy.Tap.Observer conn = tap.open(1);
+        // 1 pad-length byte + 5 data bytes + 4 padding bytes: all 10 are flow-controlled.
+        byte[] padded = new byte[10];
+        padded[0] = 4;
+        feed(conn, true, concat(PREFACE, frame(HEADERS, 0, 1, new byte[4]), frame(DATA, PADDED, 1, padded)), 64, 0);
+        H2FrameTap.ConnectionReport r = tap.connections().get(0);
+        assertEquals(10, r.up().dataBytes());
+        assertEquals(DEFAULT_WINDOW - 10, r.up().minConnWindow());
+        assertEquals(DEFAULT_WINDOW - 10, r.perStream().get(0).minUpWindow());
+    }
+
+    @Test
+    void windowUpdatesAndSettingsReplayTheSendWindows() {
+        H2FrameTap tap = new H2FrameTap();
+        ImpairmentProxy.Tap.Observer conn = tap.open(1);
+        long ms = 1_000_000;
+        feed(conn, true, concat(PREFACE, frame(SETTINGS, 0, 0, new byte[0]), frame(HEADERS, 0, 1, new byte[4]),
+                frame(DATA, 0, 1, new byte[16_384]), frame(DATA, 0, 1, new byte[16_384]),
+                frame(DATA, 0, 1, new byte[16_384]), frame(DATA, 0, 1, new byte[16_383])), 4096, 0);
+        // Connection and stream windows are both exactly exhausted at t=0.
+        H2FrameTap.ConnectionReport blocked = tap.connections().get(0);
+        assertEquals(0, blocked.up().minConnWindow());
+        assertEquals(0, blocked.perStream().get(0).minUpWindow());
+
+        // The server raises the stream window by 1 MB at t=10 ms and credits the connection at t=30 ms.
+        feed(conn, false, initialWindow(DEFAULT_WINDOW + 1024 * 1024), 64, 10 * ms);
+        feed(conn, false, windowUpdate(0, 65_535), 64, 30 * ms);
+        feed(conn, false, frame(SETTINGS, 0x1, 0, new byte[0]), 64, 40 * ms);
+        conn.onClose(50 * ms);
+
+        H2FrameTap.ConnectionReport r = tap.connections().get(0);
+        assertEquals(1, r.up().windowUpdates());
+        assertEquals(1, r.up().connWindowUpdates());
+        assertEquals(65_535, r.up().windowIncrementBytes());
+        assertEquals(30.0, r.up().connZeroWindowMs(), 1e-9);
+        assertEquals(10.0, r.up().streamZeroWindowMs(), 1e-9);
+        assertEquals(10.0, r.perStream().get(0).upZeroWindowMs(), 1e-9);
+    }
+
+    @Test
+    void finishedAndResetStreamsAreEvictedButStillReported() {
+        H2FrameTap tap = new H2FrameTap();
+        ImpairmentProxy.Tap.Observer conn = tap.open(1);
+        conn.onBytes(true, ByteBuffer.wrap(PREFACE), 0);
+        int calls = 3000;
+        for (int i = 0; i < calls; i++) {
+            int sid = 2 * i + 1;
+            conn.onBytes(true, ByteBuffer.wrap(concat(frame(HEADERS, 0, sid, new byte[4]),
+                    frame(DATA, END_STREAM, sid, new byte[10]))), i);
+            if (i % 2 == 0) {
+                conn.onBytes(false, ByteBuffer.wrap(concat(frame(HEADERS, 0, sid, new byte[4]),
+                        frame(DATA, 0, sid, new byte[5]), frame(HEADERS, END_STREAM, sid, new byte[4]))), i);
+            } else {
+                conn.onBytes(false, ByteBuffer.wrap(frame(RST_STREAM, 0, sid, int32(8))), i);
+            }
+            // A late credit for the finished stream must not bring it back.
+            conn.onBytes(false, ByteBuffer.wrap(windowUpdate(sid, 10)), i);
+        }
+        H2FrameTap.ConnectionReport r = tap.connections().get(0);
+        assertEquals(calls, r.streams());
+        assertEquals(calls / 2, r.rstStreams());
+        assertEquals(1024, r.perStream().size());
+        assertEquals(1, r.perStream().get(0).id());
+        assertFalse(r.perStream().get(0).reset());
+        assertTrue(r.perStream().get(1).reset());
+        assertEquals(calls * 10L, r.up().dataBytes());
+        assertEquals(calls / 2 * 5L, r.down().dataBytes());
+        assertEquals(calls, tap.total().streams());
+    }
+
+    @Test
+    void nonH2ConnectionIsPassedThrough() {
+        H2FrameTap tap = new H2FrameTap();
+        ImpairmentProxy.Tap.Observer conn = tap.open(7);
+        conn.onBytes(true, ByteBuffer.wrap("GET / HTTP/1.1\r\n\r\n".getBytes(StandardCharsets.US_ASCII)), 0);
+        conn.onBytes(false, ByteBuffer.wrap(frame(DATA, 0, 1, new byte[100])), 0);
+        H2FrameTap.ConnectionReport r = tap.connections().get(0);
+        assertEquals(7, r.id());
+        assertFalse(r.h2());
+        assertEquals(0, r.down().dataFrames());
+    }
+}
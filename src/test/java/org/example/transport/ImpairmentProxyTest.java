@@ -0,0 +1,243 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.transport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImpairmentProxyTest {
+    private static final int READ_TIMEOUT_MS = 10_000;
+
+    private ServerSocket echo;
+    private final List<ImpairmentProxy> proxies = new ArrayList<>();
+
+    /** Echoes every byte back and half-closes once the client has. */
+    @BeforeEach
+    void startEcho() throws IOException {
+        echo = new ServerSocket(0);
+        Thread acceptor = new Thread(() -> {
+            while (!echo.isClosed()) {
+                try {
+                    Socket s = echo.accept();
+                    Thread t = new Thread(() -> pump(s), "echo");
+                    t.setDaemon(true);
+                    t.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }, "echo-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private static void pump(Socket s) {
+        try (s) {
+            InputStream in = s.getInputStream();
+            OutputStream out = s.getOutputStream();
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+            s.shutdownOutput();
+        } catch (IOException ignored) {
+            // reset by the proxy
+        }
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        for (ImpairmentProxy p : proxies) {
+            p.close();
+        }
+        echo.close();
+    }
+
+    private ImpairmentProxy proxy(Impairment up, Impairment down) throws IOException {
+        ImpairmentProxy p = ImpairmentProxy.start(new InetSocketAddress("localhost", echo.getLocalPort()), up, down);
+        proxies.add(p);
+        return p;
+    }
+
+    private static Socket connect(ImpairmentProxy proxy) throws IOException {
+        Socket s = new Socket("localhost", proxy.port());
+        s.setSoTimeout(READ_TIMEOUT_MS);
+        s.setTcpNoDelay(true);
+        return s;
+    }
+
+    private static byte[] pattern(int n, int seed) {
+        byte[] b = new byte[n];
+        for (int i = 0; i < n; i++) {
+            b[i] = (byte) (i * 31 + seed);
+        }
+        return b;
+    }
+
+    private static byte[] readFully(InputStream in, int n) throws IOException {
+        byte[] b = new byte[n];
+        int off = 0;
+        while (off < n) {
+            int r = in.read(b, off, n - off);
+            if (r < 0) {
+                throw new IOException("EOF after " + off + " of " + n + " bytes");
+            }
+            off += r;
+        }
+        return b;
+    }
+
+    @Test
+    void delayedSegmentsArriveInOrderDespiteJitter() throws Exception {
+        ImpairmentProxy proxy = proxy(Impairment.builder().latencyMs(30).jitterMs(25).build(), Impairment.none());
+        try (Socket s = connect(proxy)) {
+            ByteArrayOutputStream sent = new ByteArrayOutputStream();
+            long start = System.nanoTime();
+            for (int i = 0; i < 20; i++) {
+                byte[] part = pattern(100 + i, i);
+                s.getOutputStream().write(part);
+                sent.write(part);
+                Thread.sleep(2);
+            }
+            byte[] back = readFully(s.getInputStream(), sent.size());
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            assertArrayEquals(sent.toByteArray(), back);
+            assertTrue(elapsedMs >= 5, "round trip took " + elapsedMs + " ms");
+        }
+        assertEquals(1, proxy.connections());
+    }
+
+    @Test
+    void latencyDelaysTheRoundTrip() throws Exception {
+        ImpairmentProxy proxy = proxy(Impairment.builder().latencyMs(60).build(),
+                Impairment.builder().latencyMs(40).build());
+        try (Socket s = connect(proxy)) {
+            long start = System.nanoTime();
+            s.getOutputStream().write(1);
+            assertEquals(1, s.getInputStream().read());
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(elapsedMs >= 95, "round trip took " + elapsedMs + " ms");
+        }
+    }
+
+    @Test
+    void bandwidthShapesTheTransfer() throws Exception {
+        // 4 Mbit/s = 500 000 bytes/s, so 250 000 bytes need about half a second upstream.
+        ImpairmentProxy proxy = proxy(Impairment.builder().bandwidthKbps(4_000).build(), Impairment.none());
+        byte[] data = pattern(250_000, 7);
+        try (Socket s = connect(proxy)) {
+            long start = System.nanoTime();
+            Thread writer = new Thread(() -> {
+                try {
+                    s.getOutputStream().write(data);
+                } catch (IOException ignored) {
+                    // the read below fails instead
+                }
+            });
+            writer.start();
+            byte[] back = readFully(s.getInputStream(), data.length);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            writer.join();
+            assertArrayEquals(data, back);
+            assertTrue(elapsedMs >= 400, "250 KB at 4 Mbit/s took " + elapsedMs + " ms");
+        }
+    }
+
+    @Test
+    void halfCloseIsForwardedAfterTheData() throws Exception {
+        ImpairmentProxy proxy = proxy(Impairment.builder().latencyMs(20).build(), Impairment.none());
+        byte[] data = pattern(50_000, 3);
+        try (Socket s = connect(proxy)) {
+            s.getOutputStream().write(data);
+            s.shutdownOutput();
+            // The echo only half-closes once it has read our EOF, which must follow every byte.
+            assertArrayEquals(data, readFully(s.getInputStream(), data.length));
+            assertEquals(-1, s.getInputStream().read());
+        }
+    }
+
+    @Test
+    void stallPausesTheDirection() throws Exception {
+        ImpairmentProxy proxy = proxy(Impairment.builder().stall(1_000, 200).build(), Impairment.none());
+        try (Socket s = connect(proxy)) {
+            long start = System.nanoTime();
+            s.getOutputStream().write(pattern(1_500, 1));
+            readFully(s.getInputStream(), 1_500);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(elapsedMs >= 190, "stalled transfer took " + elapsedMs + " ms");
+        }
+    }
+
+    @Test
+    void resetClosesBothSidesWithRst() throws Exception {
+        ImpairmentProxy proxy = proxy(Impairment.builder().resetAfterBytes(1_000).build(), Impairment.none());
+        try (Socket s = connect(proxy)) {
+            s.getOutputStream().write(pattern(2_000, 5));
+            assertThrows(IOException.class, () -> {
+                InputStream in = s.getInputStream();
+                while (in.read() >= 0) {
+                    // drain whatever was echoed before the reset
+                }
+            });
+        }
+        assertEquals(1, proxy.resets());
+    }
+
+    @Test
+    void unreachableTargetClosesTheClient() throws Exception {
+        int closedPort;
+        try (ServerSocket gone = new ServerSocket(0)) {
+            closedPort = gone.getLocalPort();
+        }
+        ImpairmentProxy proxy = ImpairmentProxy.start(new InetSocketAddress("localhost", closedPort),
+                Impairment.none(), Impairment.none());
+        proxies.add(proxy);
+        for (int i = 0; i < 2; i++) {
+            try (Socket s = connect(proxy)) {
+                assertEquals(-1, s.getInputStream().read());
+            }
+        }
+        assertEquals(2, proxy.connections());
+    }
+
+    @Test
+    void closeEndsOpenConnectionsOnTheProxyThread() throws Exception {
+        List<String> closedOn = new CopyOnWriteArrayList<>();
+        ImpairmentProxy proxy = ImpairmentProxy.tap(new InetSocketAddress("localhost", echo.getLocalPort()),
+                connection -> new ImpairmentProxy.Tap.Observer() {
+                    @Override
+                    public void onBytes(boolean upstream, ByteBuffer data, long nowNs) {
+                    }
+
+                    @Override
+                    public void onClose(long nowNs) {
+                        closedOn.add(Thread.currentThread().getName());
+                    }
+                });
+        try (Socket s = connect(proxy)) {
+            s.getOutputStream().write(pattern(1_000, 5));
+            readFully(s.getInputStream(), 1_000);
+            proxy.close();
+            assertEquals(-1, s.getInputStream().read());
+        }
+        assertEquals(List.of("impairment-proxy"), closedOn);
+    }
+}
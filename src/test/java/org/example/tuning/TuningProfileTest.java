@@ -0,0 +1,99 @@
+// SPDX-License-Identifier: Apache-2.0
+package org.example.tuning;
+
+import org.example.tuning.TuningProfile.Knob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TuningProfileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void defaultsMatchTheValuesTheServersAndClientsHardCoded() {
+        TuningProfile p = TuningProfile.defaults();
+        assertEquals(32 * 1024 * 1024, p.intValue(Knob.NETTY_SERVER_FLOW_CONTROL_WINDOW));
+        assertEquals(32 * 1024 * 1024, p.intValue(Knob.NETTY_SERVER_MAX_INBOUND_MESSAGE_SIZE));
+        assertEquals(Integer.MAX_VALUE, p.intValue(Knob.NETTY_SERVER_MAX_CONCURRENT_CALLS));
+        assertEquals(8 * 1024, p.intValue(Knob.NETTY_SERVER_MAX_INBOUND_METADATA_SIZE));
+        assertEquals(32 * 1024 * 1024, p.intValue(Knob.HELIDON_SERVER_INITIAL_WINDOW_SIZE));
+        assertEquals(8 * 1024 * 1024, p.intValue(Knob.HELIDON_SERVER_MAX_FRAME_SIZE));
+        assertEquals(8192, p.intValue(Knob.HELIDON_SERVER_MAX_CONCURRENT_STREAMS));
+        assertEquals(128L * 1024 * 1024, p.longValue(Knob.HELIDON_SERVER_MAX_BUFFERED_ENTITY_SIZE));
+        assertEquals(32 * 1024 * 1024, p.intValue(Knob.HELIDON_SERVER_MAX_READ_BUFFER_SIZE));
+        assertEquals(8 * 1024, p.intValue(Knob.HELIDON_SERVER_WRITE_QUEUE_LENGTH));
+        assertEquals(8 * 1024, p.intValue(Knob.HELIDON_SERVER_BACKLOG));
+        assertTrue(p.booleanValue(Knob.HELIDON_SERVER_TCP_NO_DELAY));
+        assertEquals(32 * 1024 * 1024, p.intValue(Knob.NETTY_CLIENT_FLOW_CONTROL_WINDOW));
+        assertEquals(32 * 1024 * 1024, p.intValue(Knob.NETTY_CLIENT_MAX_INBOUND_MESSAGE_SIZE));
+        assertEquals(2 * 1024 * 1024, p.intValue(Knob.HELIDON_CLIENT_INITIAL_WINDOW_SIZE));
+        assertEquals(2 * 1024 * 1024, p.intValue(Knob.HELIDON_CLIENT_MAX_FRAME_SIZE));
+        assertEquals(2 * 1024 * 1024, p.intValue(Knob.HELIDON_CLIENT_INIT_BUFFER_SIZE));
+        assertTrue(p.describe().startsWith("default@"));
+    }
+
+    @Test
+    void sizesTakeBinarySuffixesInAnyCase() throws IOException {
+        TuningProfile p = TuningProfile.load(null, "netty.server.flowControlWindow=4kb,"
+                + "netty.client.flowControlWindow= 3 MB ,helidon.server.maxBufferedEntitySize=2GB,"
+                + "helidon.server.backlog=100");
+        assertEquals(4096, p.intValue(Knob.NETTY_SERVER_FLOW_CONTROL_WINDOW));
+        assertEquals(3 * 1024 * 1024, p.intValue(Knob.NETTY_CLIENT_FLOW_CONTROL_WINDOW));
+        assertEquals(2L * 1024 * 1024 * 1024, p.longValue(Knob.HELIDON_SERVER_MAX_BUFFERED_ENTITY_SIZE));
+        assertThrows(IllegalArgumentException.class, () -> p.intValue(Knob.HELIDON_SERVER_MAX_BUFFERED_ENTITY_SIZE));
+        assertEquals(100, p.intValue(Knob.HELIDON_SERVER_BACKLOG));
+    }
+
+    @Test
+    void badInputIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> TuningProfile.load(null, "no.such.key=1"));
+        assertThrows(IllegalArgumentException.class, () -> TuningProfile.load(null, "helidon.server.backlog"));
+        assertThrows(IllegalArgumentException.class, () -> TuningProfile.load(null, "helidon.server.backlog=lots"));
+        assertThrows(IllegalArgumentException.class, () -> TuningProfile.load(null, "helidon.server.backlog=-1"));
+        assertThrows(IllegalArgumentException.class, () -> TuningProfile.load(null, "helidon.server.backlog=1TB"));
+        assertThrows(IllegalArgumentException.class, () -> TuningProfile.load(null, "helidon.server.tcpNoDelay=yes"));
+    }
+
+    @Test
+    void profileFileOverridesOnlyTheKeysItNames() throws IOException {
+        Path file = dir.resolve("small-windows.properties");
+        Files.writeString(file, """
+                # only the Netty server window changes
+                netty.server.flowControlWindow=1MB
+                helidon.server.tcpNoDelay=false
+                """, StandardCharsets.UTF_8);
+        TuningProfile p = TuningProfile.load(file.toString(), null);
+        assertEquals(1024 * 1024, p.intValue(Knob.NETTY_SERVER_FLOW_CONTROL_WINDOW));
+        assertFalse(p.booleanValue(Knob.HELIDON_SERVER_TCP_NO_DELAY));
+        for (Knob k : Knob.values()) {
+            if (k != Knob.NETTY_SERVER_FLOW_CONTROL_WINDOW && k != Knob.HELIDON_SERVER_TCP_NO_DELAY) {
+                assertEquals(k.defaultValue(), p.value(k), k.key());
+            }
+        }
+        assertTrue(p.describe().startsWith("small-windows@"));
+        assertNotEquals(TuningProfile.defaults().describe().split("@")[1], p.describe().split("@")[1]);
+
+        TuningProfile set = TuningProfile.load(file.toString(), "helidon.server.backlog=16");
+        assertEquals(1024 * 1024, set.intValue(Knob.NETTY_SERVER_FLOW_CONTROL_WINDOW));
+        assertEquals(16, set.intValue(Knob.HELIDON_SERVER_BACKLOG));
+        assertTrue(set.describe().startsWith("small-windows+set@"));
+    }
+
+    @Test
+    void hashIgnoresHowAValueIsSpelled() throws IOException {
+        TuningProfile spelled = TuningProfile.load(null, "netty.server.flowControlWindow=33554432");
+        assertEquals(TuningProfile.defaults().describe().split("@")[1], spelled.describe().split("@")[1]);
+    }
+}